@@ -0,0 +1,127 @@
+package one.jpro.platform.image.manager;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares the JSON results of a benchmark run with a baseline, which is the JSON result file of an earlier run.
+ * Every benchmark present in both files is printed with its relative change. The comparison fails if a benchmark
+ * got slower than the baseline by more than the given threshold, taking the score errors of both runs into account.
+ * <p>
+ * Usage: {@code BenchmarkBaseline <baseline.json> <results.json> [threshold]}, where the threshold is
+ * a relative change, by default {@code 0.1} (10%).
+ *
+ * @author Florian Kirmaier
+ */
+public final class BenchmarkBaseline {
+
+    private static final double DEFAULT_THRESHOLD = 0.1;
+
+    private BenchmarkBaseline() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkBaseline <baseline.json> <results.json> [threshold]");
+            System.exit(2);
+        }
+        final Map<String, Score> baseline = readScores(Path.of(args[0]));
+        final Map<String, Score> current = readScores(Path.of(args[1]));
+        final double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            final Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf(Locale.ROOT, "%-90s %12.3f %-8s (new)%n", entry.getKey(),
+                        entry.getValue().score(), entry.getValue().unit());
+                continue;
+            }
+            final Score after = entry.getValue();
+            final double change = after.relativeChange(before);
+            final boolean regression = after.isRegression(before, threshold);
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf(Locale.ROOT, "%-90s %12.3f %-8s %+7.1f%%%s%n", entry.getKey(), after.score(),
+                    after.unit(), change * 100, regression ? "  REGRESSION" : "");
+        }
+        if (regressions > 0) {
+            System.out.printf(Locale.ROOT, "%d benchmark(s) regressed by more than %.0f%%%n",
+                    regressions, threshold * 100);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the primary scores of a JMH result file in JSON format, keyed by the benchmark name
+     * and its parameters.
+     *
+     * @param file the result file
+     * @return the scores, sorted by key
+     * @throws IOException if the file can't be read
+     */
+    static Map<String, Score> readScores(Path file) throws IOException {
+        final JSONArray results = new JSONArray(Files.readString(file, StandardCharsets.UTF_8));
+        final Map<String, Score> scores = new TreeMap<>();
+        for (int i = 0; i < results.length(); i++) {
+            final JSONObject result = results.getJSONObject(i);
+            final StringBuilder key = new StringBuilder(result.getString("benchmark"));
+            final JSONObject params = result.optJSONObject("params");
+            if (params != null) {
+                new TreeMap<>(params.toMap()).forEach((name, value) ->
+                        key.append(' ').append(name).append('=').append(value));
+            }
+            final JSONObject metric = result.getJSONObject("primaryMetric");
+            final double error = metric.optDouble("scoreError", 0);
+            scores.put(key.toString(), new Score(metric.getDouble("score"), Double.isNaN(error) ? 0 : error,
+                    metric.getString("scoreUnit"), result.getString("mode")));
+        }
+        return scores;
+    }
+
+    /**
+     * The primary score of a benchmark.
+     *
+     * @param score the score
+     * @param error the score error of the confidence interval
+     * @param unit  the unit of the score
+     * @param mode  the benchmark mode, for example {@code avgt} or {@code thrpt}
+     */
+    record Score(double score, double error, String unit, String mode) {
+
+        /**
+         * Returns whether a lower score is better, which is the case for all time based modes.
+         */
+        boolean isLowerBetter() {
+            return !"thrpt".equals(mode);
+        }
+
+        /**
+         * Returns the relative change of this score compared to the given baseline, positive if it got worse.
+         */
+        double relativeChange(Score baseline) {
+            final double change = (score - baseline.score) / baseline.score;
+            return isLowerBetter() ? change : -change;
+        }
+
+        /**
+         * Returns whether this score is worse than the given baseline by more than the threshold,
+         * even when both scores are taken at the favourable end of their confidence intervals.
+         */
+        boolean isRegression(Score baseline, double threshold) {
+            final double bestCase = isLowerBetter()
+                    ? ((score - error) - (baseline.score + baseline.error)) / baseline.score
+                    : ((baseline.score - baseline.error) - (score + error)) / baseline.score;
+            return bestCase > threshold;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package one.jpro.platform.image.manager;
+
+import javax.imageio.ImageIO;
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * The fixed corpus of sample images used by the benchmarks. The images are generated deterministically
+ * from a fixed seed, so every run benchmarks exactly the same pixels without checking large binary files
+ * into the repository:
+ * <ul>
+ *     <li>{@code photo.jpg} - a 1920x1280 photo-like JPEG image with smooth gradients and noise</li>
+ *     <li>{@code graphic.png} - an 800x600 PNG image with transparency, shapes and text</li>
+ *     <li>{@code large.jpg} - a 6000x4000 JPEG image, which is large enough to be decoded tile by tile</li>
+ * </ul>
+ *
+ * @author Florian Kirmaier
+ */
+final class BenchmarkCorpus {
+
+    static final String PHOTO = "photo.jpg";
+    static final String GRAPHIC = "graphic.png";
+    static final String LARGE = "large.jpg";
+
+    private static final long SEED = 0x6A50_0001L;
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * Writes the sample images into a new temporary directory.
+     *
+     * @return the directory containing the sample images
+     */
+    static Path create() {
+        try {
+            Path directory = Files.createTempDirectory("jpro-image-manager-corpus");
+            ImageIO.write(createPhoto(1920, 1280), "jpg", directory.resolve(PHOTO).toFile());
+            ImageIO.write(createGraphic(800, 600), "png", directory.resolve(GRAPHIC).toFile());
+            ImageIO.write(createPhoto(6000, 4000), "jpg", directory.resolve(LARGE).toFile());
+            return directory;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Returns the file of the given sample image.
+     *
+     * @param directory the directory returned by {@link #create()}
+     * @param name      the name of the sample image
+     * @return the image file
+     */
+    static File getFile(Path directory, String name) {
+        return directory.resolve(name).toFile();
+    }
+
+    /**
+     * Deletes the given corpus directory.
+     *
+     * @param directory the directory returned by {@link #create()}
+     */
+    static void delete(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static BufferedImage createPhoto(int width, int height) {
+        final Random random = new Random(SEED);
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        final int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final double fx = (double) x / width;
+                final double fy = (double) y / height;
+                final int noise = random.nextInt(24) - 12;
+                final int r = clamp((int) (200 * fx + 40 * Math.sin(fy * 9)) + noise);
+                final int g = clamp((int) (160 * fy + 60 * Math.cos(fx * 7)) + noise);
+                final int b = clamp((int) (120 + 100 * Math.sin((fx + fy) * 5)) + noise);
+                row[x] = (r << 16) | (g << 8) | b;
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+        return image;
+    }
+
+    private static BufferedImage createGraphic(int width, int height) {
+        final Random random = new Random(SEED);
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setPaint(new GradientPaint(0, 0, new Color(30, 90, 200, 255), width, height, new Color(30, 200, 90, 0)));
+        g2d.fillRect(0, 0, width, height);
+        g2d.setStroke(new BasicStroke(6));
+        for (int i = 0; i < 40; i++) {
+            g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.3f + random.nextFloat() * 0.7f));
+            g2d.setColor(new Color(random.nextInt(0x1000000)));
+            final int x = random.nextInt(width);
+            final int y = random.nextInt(height);
+            final int size = 20 + random.nextInt(160);
+            if (i % 2 == 0) {
+                g2d.fillOval(x, y, size, size);
+            } else {
+                g2d.drawRect(x, y, size, size / 2);
+            }
+        }
+        g2d.setComposite(AlphaComposite.SrcOver);
+        g2d.setColor(Color.BLACK);
+        g2d.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 48));
+        g2d.drawString("JPro Image Manager", 40, height / 2);
+        g2d.dispose();
+        return image;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
@@ -0,0 +1,108 @@
+package one.jpro.platform.image.manager;
+
+import one.jpro.platform.image.manager.encoder.ImageEncoderJPG;
+import one.jpro.platform.image.manager.source.ImageSourceFile;
+import one.jpro.platform.image.manager.transformer.ImageTransformerFitWidth;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the requests served by the {@link ImageManager}: loading an image which is not cached yet (cold),
+ * loading an image from the cache (warm) and computing the hash of an image definition, which is part
+ * of every request.
+ *
+ * @author Florian Kirmaier
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageManagerBenchmark {
+
+    /**
+     * An image manager with its own cache directory and a definition of one of the sample images.
+     */
+    @State(Scope.Benchmark)
+    public static class ManagerState {
+
+        @Param({BenchmarkCorpus.PHOTO, BenchmarkCorpus.GRAPHIC, BenchmarkCorpus.LARGE})
+        public String image;
+
+        Path corpus;
+        Path cacheDir;
+        ImageManager imageManager;
+        ImageDefinition imageDefinition;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            corpus = BenchmarkCorpus.create();
+            cacheDir = Files.createTempDirectory("jpro-image-manager-cache");
+            imageManager = new ImageManager(cacheDir.toFile());
+            imageDefinition = new ImageDefinition(new ImageSourceFile(BenchmarkCorpus.getFile(corpus, image)),
+                    new ImageTransformerFitWidth(640), new ImageEncoderJPG());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            imageManager.clearCache();
+            BenchmarkCorpus.delete(corpus);
+        }
+    }
+
+    /**
+     * Clears the image cache before each invocation, so every request has to create the image.
+     */
+    @State(Scope.Benchmark)
+    public static class ColdState {
+
+        @Setup(Level.Invocation)
+        public void clearCache(ManagerState state) {
+            state.imageManager.clearCache();
+        }
+    }
+
+    /**
+     * Makes sure the image is cached before the measurement starts.
+     */
+    @State(Scope.Benchmark)
+    public static class WarmState {
+
+        @Setup(Level.Trial)
+        public void loadImage(ManagerState state) {
+            state.imageManager.loadImage(state.imageDefinition);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ImageResult loadImageCold(ManagerState state, ColdState cold) {
+        return state.imageManager.loadImage(state.imageDefinition);
+    }
+
+    @Benchmark
+    public ImageResult loadImageWarm(ManagerState state, WarmState warm) {
+        return state.imageManager.loadImage(state.imageDefinition);
+    }
+
+    @Benchmark
+    public String computeImageDefinitionHash(ManagerState state) {
+        return ImageManager.computeImageDefinitionHash(state.imageDefinition);
+    }
+}
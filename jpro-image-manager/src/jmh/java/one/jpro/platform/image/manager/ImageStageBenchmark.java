@@ -0,0 +1,160 @@
+package one.jpro.platform.image.manager;
+
+import one.jpro.platform.image.manager.encoder.ImageEncoder;
+import one.jpro.platform.image.manager.encoder.ImageEncoderJPG;
+import one.jpro.platform.image.manager.encoder.ImageEncoderPNG;
+import one.jpro.platform.image.manager.source.ImageSource;
+import one.jpro.platform.image.manager.source.ImageSourceFile;
+import one.jpro.platform.image.manager.transformer.ImageTransformer;
+import one.jpro.platform.image.manager.transformer.ImageTransformerFitHeight;
+import one.jpro.platform.image.manager.transformer.ImageTransformerFitWidth;
+import one.jpro.platform.image.manager.transformer.ImageTransformerIdentity;
+import one.jpro.platform.image.manager.transformer.ImageTransformerScaleToArea;
+import one.jpro.platform.image.manager.transformer.ImageTransformerWH;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the stages of creating an image separately, for each sample image of the {@link BenchmarkCorpus}:
+ * decoding the source (which depends on the target size of the transformer), transforming the decoded image
+ * with each transformer, and encoding it with each encoder.
+ *
+ * @author Florian Kirmaier
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageStageBenchmark {
+
+    /**
+     * The maximum width of the images passed to the encoders, which corresponds to a typical image on a web page.
+     */
+    private static final int ENCODE_WIDTH = 1280;
+
+    /**
+     * The sample images, generated once per fork.
+     */
+    @State(Scope.Benchmark)
+    public static class CorpusState {
+
+        Path corpus;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            corpus = BenchmarkCorpus.create();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            BenchmarkCorpus.delete(corpus);
+        }
+    }
+
+    /**
+     * A sample image combined with one of the transformers.
+     */
+    @State(Scope.Benchmark)
+    public static class TransformState {
+
+        @Param({BenchmarkCorpus.PHOTO, BenchmarkCorpus.GRAPHIC, BenchmarkCorpus.LARGE})
+        public String image;
+
+        @Param({"identity", "fitWidth", "fitHeight", "scaleToArea", "wh"})
+        public String transformer;
+
+        ImageSource imageSource;
+        ImageTransformer imageTransformer;
+        BufferedImage decodedImage;
+
+        @Setup(Level.Trial)
+        public void setUp(CorpusState corpusState) {
+            imageSource = new ImageSourceFile(BenchmarkCorpus.getFile(corpusState.corpus, image));
+            imageTransformer = createTransformer(transformer);
+            decodedImage = imageSource.loadImage(imageTransformer);
+        }
+    }
+
+    /**
+     * A sample image combined with one of the encoders.
+     */
+    @State(Scope.Benchmark)
+    public static class EncodeState {
+
+        @Param({BenchmarkCorpus.PHOTO, BenchmarkCorpus.GRAPHIC, BenchmarkCorpus.LARGE})
+        public String image;
+
+        @Param({"png", "jpg", "jpgProgressive"})
+        public String encoder;
+
+        ImageEncoder imageEncoder;
+        BufferedImage transformedImage;
+        File target;
+
+        @Setup(Level.Trial)
+        public void setUp(CorpusState corpusState) throws IOException {
+            ImageSource imageSource = new ImageSourceFile(BenchmarkCorpus.getFile(corpusState.corpus, image));
+            BufferedImage decoded = imageSource.loadImage();
+            ImageTransformer transformer = decoded.getWidth() > ENCODE_WIDTH
+                    ? new ImageTransformerFitWidth(ENCODE_WIDTH) : new ImageTransformerIdentity();
+            transformedImage = transformer.transform(decoded);
+            imageEncoder = createEncoder(encoder);
+            target = Files.createTempFile(corpusState.corpus, "encoded", "." + imageEncoder.getFileExtension()).toFile();
+        }
+    }
+
+    @Benchmark
+    public BufferedImage decode(TransformState state) {
+        return state.imageSource.loadImage(state.imageTransformer);
+    }
+
+    @Benchmark
+    public BufferedImage transform(TransformState state) {
+        return state.imageTransformer.transform(state.decodedImage);
+    }
+
+    @Benchmark
+    public long encode(EncodeState state) {
+        state.imageEncoder.saveImage(state.transformedImage, state.target);
+        return state.target.length();
+    }
+
+    private static ImageTransformer createTransformer(String name) {
+        return switch (name) {
+            case "identity" -> new ImageTransformerIdentity();
+            case "fitWidth" -> new ImageTransformerFitWidth(640);
+            case "fitHeight" -> new ImageTransformerFitHeight(480);
+            case "scaleToArea" -> new ImageTransformerScaleToArea(640 * 480);
+            case "wh" -> new ImageTransformerWH(640, 480);
+            default -> throw new IllegalArgumentException("Unknown transformer: " + name);
+        };
+    }
+
+    private static ImageEncoder createEncoder(String name) {
+        return switch (name) {
+            case "png" -> new ImageEncoderPNG();
+            case "jpg" -> new ImageEncoderJPG();
+            case "jpgProgressive" -> new ImageEncoderJPG(0.8, true);
+            default -> throw new IllegalArgumentException("Unknown encoder: " + name);
+        };
+    }
+}
@@ -3,6 +3,7 @@
  */
 module one.jpro.platform.image.manager {
     requires java.desktop;
+    requires java.net.http;
     requires javafx.graphics;
     requires org.slf4j;
     requires jpro.webapi;
@@ -12,4 +13,6 @@ module one.jpro.platform.image.manager {
     exports one.jpro.platform.image.manager.encoder;
     exports one.jpro.platform.image.manager.source;
     exports one.jpro.platform.image.manager.transformer;
+
+    uses one.jpro.platform.image.manager.encoder.ImageEncoderProvider;
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package one.jpro.platform.image.manager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * This interface defines a contract for objects that can feed a stable binary representation of themselves
+ * into a {@link MessageDigest}. Two objects that produce the same image must hash the same bytes, and any
+ * difference that affects the produced image must change the hashed bytes. The representation must be stable
+ * across JVM restarts, because the hash identifies the images in the persistent image cache.
+ * <p>
+ * Implementations should start with a type tag, for example the simple class name, followed by the fields
+ * written with the helper methods of {@link ImageUtils}. The default implementation hashes the JSON
+ * representation of the object, which is stable but slower.
+ *
+ * @author Florian Kirmaier
+ * @see ImageUtils#hashString(MessageDigest, String)
+ */
+public interface DigestHashable extends JsonConvertible {
+
+    /**
+     * Updates the given digest with the binary representation of this object.
+     *
+     * @param digest The digest to update.
+     */
+    default void hashInto(MessageDigest digest) {
+        digest.update(toJSON().toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,21 @@
+package one.jpro.platform.image.manager;
+
+/**
+ * Defines which cached images are evicted first, when the image cache exceeds its configured limits.
+ *
+ * @author Florian Kirmaier
+ * @see ImageManager#setEvictionPolicy(EvictionPolicy)
+ */
+public enum EvictionPolicy {
+
+    /**
+     * Evicts the least recently used images first.
+     */
+    LRU,
+
+    /**
+     * Evicts the least frequently used images first. Images with the same number of accesses
+     * are evicted in least recently used order.
+     */
+    LFU
+}
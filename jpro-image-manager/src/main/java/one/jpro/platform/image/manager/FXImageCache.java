@@ -0,0 +1,255 @@
+package one.jpro.platform.image.manager;
+
+import com.jpro.webapi.WebAPI;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A memory-resident cache of the JavaFX images created for {@link ImageResult image results}, so the same
+ * cached image file is decoded only once, no matter how often and in how many sessions it is shown.
+ * The cache is bounded by the estimated memory size of the decoded images and evicts the least recently
+ * used images first. In the browser, the virtual images are cached as well.
+ * <p>
+ * Optionally, the pixels can be kept off-heap: the image file is decoded synchronously into a direct
+ * {@link ByteBuffer}, which is wrapped by a {@link PixelBuffer}, so the decoded images don't take up
+ * space in the Java heap.
+ *
+ * @author Florian Kirmaier
+ * @see ImageResult#toFXImage()
+ */
+public class FXImageCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FXImageCache.class);
+
+    private static final String MAX_SIZE_NAME = "jpro.imagemanager.fxcache.maxSize";
+    private static final String OFF_HEAP_NAME = "jpro.imagemanager.fxcache.offHeap";
+    private static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+    /**
+     * Virtual images don't hold any pixels on the server, so each one is accounted with a small fixed size.
+     */
+    private static final long VIRTUAL_IMAGE_SIZE = 1024;
+    private static volatile FXImageCache defaultInstance;
+
+    private final Map<String, CachedImage> images = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private long size;
+    private volatile long maxSize;
+    private volatile boolean offHeap;
+
+    /**
+     * Creates a cache with the given maximum size.
+     *
+     * @param maxSize the maximum estimated size of the decoded images in bytes
+     * @param offHeap whether the pixels are kept in direct buffers outside the Java heap
+     */
+    public FXImageCache(long maxSize, boolean offHeap) {
+        setMaxSize(maxSize);
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * Returns the default cache, which is used by {@link ImageResult#toFXImage()}. Its maximum size is 64 MB,
+     * unless the {@code jpro.imagemanager.fxcache.maxSize} system property is set. The pixels are kept off-heap
+     * if the {@code jpro.imagemanager.fxcache.offHeap} system property is set to {@code true}.
+     *
+     * @return the default cache
+     */
+    public static FXImageCache getDefault() {
+        if (defaultInstance == null) {
+            synchronized (FXImageCache.class) {
+                if (defaultInstance == null) {
+                    defaultInstance = new FXImageCache(Long.getLong(MAX_SIZE_NAME, DEFAULT_MAX_SIZE),
+                            Boolean.getBoolean(OFF_HEAP_NAME));
+                }
+            }
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * Returns the maximum estimated size of the decoded images.
+     *
+     * @return the maximum size in bytes
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the maximum estimated size of the decoded images. The size of an image is estimated
+     * with 4 bytes per pixel.
+     *
+     * @param maxSize the maximum size in bytes, {@code 0} disables the cache
+     * @throws IllegalArgumentException if the given size is negative
+     */
+    public void setMaxSize(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Max size must not be negative.");
+        }
+        this.maxSize = maxSize;
+        synchronized (this) {
+            evictIfNeeded();
+        }
+    }
+
+    /**
+     * Returns whether the pixels of newly cached images are kept in direct buffers outside the Java heap.
+     *
+     * @return {@code true} if the pixels are kept off-heap
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Sets whether the pixels of newly cached images are kept in direct buffers outside the Java heap.
+     * Off-heap images are decoded synchronously by the calling thread. This setting has no effect
+     * in the browser.
+     *
+     * @param offHeap {@code true} to keep the pixels off-heap
+     */
+    public void setOffHeap(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * Returns the JavaFX image for the given image result, creating and caching it if needed.
+     *
+     * @param imageResult the image result
+     * @return the JavaFX image
+     */
+    public Image getImage(ImageResult imageResult) {
+        final boolean browser = WebAPI.isBrowser();
+        final String key = (browser ? "virtual:" : "") + imageResult.getFile().toURI()
+                + "@" + imageResult.getWidth() + "x" + imageResult.getHeight();
+        synchronized (this) {
+            CachedImage cached = images.get(key);
+            if (cached != null && !cached.image().isError()) {
+                hitCount.increment();
+                return cached.image();
+            }
+        }
+
+        missCount.increment();
+        final Image image;
+        final long imageSize;
+        if (browser) {
+            image = imageResult.createFXImage();
+            imageSize = VIRTUAL_IMAGE_SIZE;
+        } else {
+            image = offHeap ? createOffHeapImage(imageResult) : imageResult.createFXImage();
+            imageSize = 4L * imageResult.getWidth() * imageResult.getHeight();
+        }
+
+        synchronized (this) {
+            if (imageSize <= maxSize) {
+                CachedImage previous = images.put(key, new CachedImage(image, imageSize));
+                size += imageSize - (previous == null ? 0 : previous.size());
+                evictIfNeeded();
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Removes all images from the cache.
+     */
+    public synchronized void clear() {
+        images.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the number of cached images.
+     *
+     * @return the number of images
+     */
+    public synchronized int getImageCount() {
+        return images.size();
+    }
+
+    /**
+     * Returns the estimated size of the cached images.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of requests served from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the number of requests that required creating the image.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    private void evictIfNeeded() {
+        Iterator<CachedImage> iterator = images.values().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            size -= iterator.next().size();
+            iterator.remove();
+        }
+    }
+
+    private static Image createOffHeapImage(ImageResult imageResult) {
+        final BufferedImage decoded;
+        try {
+            decoded = ImageIO.read(imageResult.getFile());
+        } catch (IOException ex) {
+            logger.warn("Error while decoding image {}, falling back to an on-heap image", imageResult.getFile(), ex);
+            return imageResult.createFXImage();
+        }
+        if (decoded == null) {
+            return imageResult.createFXImage();
+        }
+
+        final int width = decoded.getWidth();
+        final int height = decoded.getHeight();
+        final BufferedImage argbImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2d = argbImage.createGraphics();
+        g2d.drawImage(decoded, 0, 0, null);
+        g2d.dispose();
+
+        final IntBuffer buffer = ByteBuffer.allocateDirect(width * height * 4)
+                .order(ByteOrder.nativeOrder())
+                .asIntBuffer();
+        buffer.put(((DataBufferInt) argbImage.getRaster().getDataBuffer()).getData());
+        buffer.flip();
+        PixelBuffer<IntBuffer> pixelBuffer = new PixelBuffer<>(width, height, buffer,
+                PixelFormat.getIntArgbPreInstance());
+        return new WritableImage(pixelBuffer);
+    }
+
+    private record CachedImage(Image image, long size) {
+    }
+}
@@ -0,0 +1,286 @@
+package one.jpro.platform.image.manager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A memory-resident index of the image cache, mapping the hash of an image definition
+ * to the cached file and its dimensions. The index is loaded once from a manifest file
+ * in the cache directory and every change is appended to it, so a cache hit doesn't
+ * require any disk access.
+ * <p>
+ * Each line of the manifest is either an added entry
+ * ({@code +<TAB>hash<TAB>path<TAB>width<TAB>height<TAB>size}) or a removed entry ({@code -<TAB>hash}).
+ * When the manifest contains considerably more lines than live entries, it is compacted on load.
+ * <p>
+ * The index also keeps track of the accesses to every entry, which is used to select the entries
+ * to evict. The access information is kept in memory only, after a restart the entries are
+ * ordered by the time they were added to the cache.
+ *
+ * @author Florian Kirmaier
+ */
+final class ImageCacheIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageCacheIndex.class);
+
+    static final String MANIFEST_FILE_NAME = "manifest";
+
+    private final File cacheDir;
+    private final File manifestFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong accessSequence = new AtomicLong();
+    private final AtomicLong totalSize = new AtomicLong();
+
+    /**
+     * Creates the index for the given cache directory and loads the manifest, if it exists.
+     *
+     * @param cacheDir the cache directory
+     */
+    ImageCacheIndex(File cacheDir) {
+        this.cacheDir = cacheDir;
+        this.manifestFile = new File(cacheDir, MANIFEST_FILE_NAME);
+        load();
+    }
+
+    /**
+     * Returns the directory an image with the given hash is stored in. The directories are sharded
+     * in two levels by the first four characters of the hash, so no directory ends up with
+     * a huge number of children.
+     *
+     * @param hash the image definition hash
+     * @return the directory for the image
+     */
+    File getHashDir(String hash) {
+        return new File(cacheDir, hash.substring(0, 2) + File.separator + hash.substring(2, 4) + File.separator + hash);
+    }
+
+    /**
+     * Returns the entry for the given hash and records the access to it.
+     *
+     * @param hash the image definition hash
+     * @return the entry or {@code null} if the image is not cached
+     */
+    Entry get(String hash) {
+        Entry entry = entries.get(hash);
+        if (entry != null) {
+            entry.touch(accessSequence.incrementAndGet());
+        }
+        return entry;
+    }
+
+    /**
+     * Adds an entry to the index and appends it to the manifest.
+     *
+     * @param hash   the image definition hash
+     * @param file   the cached image file
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param size   the size of the image file in bytes
+     * @return the added entry
+     * @throws IOException if the manifest can't be written
+     */
+    synchronized Entry put(String hash, File file, int width, int height, long size) throws IOException {
+        Entry entry = new Entry(hash, file, width, height, size, accessSequence.incrementAndGet());
+        append(toManifestLine(entry));
+        Entry previous = entries.put(hash, entry);
+        totalSize.addAndGet(size - (previous == null ? 0 : previous.size()));
+        return entry;
+    }
+
+    /**
+     * Removes the entry for the given hash from the index and records the removal in the manifest.
+     *
+     * @param hash the image definition hash
+     * @return the removed entry or {@code null} if there was no entry for the hash
+     * @throws IOException if the manifest can't be written
+     */
+    synchronized Entry remove(String hash) throws IOException {
+        Entry entry = entries.remove(hash);
+        if (entry != null) {
+            totalSize.addAndGet(-entry.size());
+            append("-\t" + hash);
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the number of entries in the index.
+     *
+     * @return the number of cached images
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the total size of all cached image files.
+     *
+     * @return the size in bytes
+     */
+    long totalSize() {
+        return totalSize.get();
+    }
+
+    /**
+     * Returns a snapshot of all entries, ordered by the given eviction policy,
+     * so that the entry which should be evicted first comes first.
+     *
+     * @param policy the eviction policy
+     * @return the ordered entries
+     */
+    List<Entry> evictionOrder(EvictionPolicy policy) {
+        List<Entry> result = new ArrayList<>(entries.values());
+        Comparator<Entry> byRecency = Comparator.comparingLong(Entry::lastAccess);
+        if (policy == EvictionPolicy.LFU) {
+            result.sort(Comparator.comparingLong(Entry::accessCount).thenComparing(byRecency));
+        } else {
+            result.sort(byRecency);
+        }
+        return result;
+    }
+
+    /**
+     * Removes all entries from memory. The caller is responsible for deleting the cache directory.
+     */
+    synchronized void clear() {
+        entries.clear();
+        totalSize.set(0);
+    }
+
+    private void append(String line) throws IOException {
+        Files.createDirectories(cacheDir.toPath());
+        Files.writeString(manifestFile.toPath(), line + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private String toManifestLine(Entry entry) {
+        return "+\t" + entry.hash() + "\t" + relativePath(entry.file()) + "\t"
+                + entry.width() + "\t" + entry.height() + "\t" + entry.size();
+    }
+
+    private String relativePath(File file) {
+        return cacheDir.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+    }
+
+    private void load() {
+        if (!manifestFile.exists()) {
+            return;
+        }
+        int lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                String[] parts = line.split("\t");
+                if (parts.length == 6 && parts[0].equals("+")) {
+                    File file = new File(cacheDir, parts[2].replace('/', File.separatorChar));
+                    Entry entry = new Entry(parts[1], file, Integer.parseInt(parts[3]), Integer.parseInt(parts[4]),
+                            Long.parseLong(parts[5]), accessSequence.incrementAndGet());
+                    entries.put(entry.hash(), entry);
+                } else if (parts.length == 2 && parts[0].equals("-")) {
+                    entries.remove(parts[1]);
+                } else {
+                    logger.warn("Ignoring invalid line in image cache manifest: {}", line);
+                }
+            }
+        } catch (IOException | NumberFormatException ex) {
+            logger.error("Error while loading the image cache manifest, starting with an empty cache", ex);
+            entries.clear();
+            return;
+        }
+        totalSize.set(entries.values().stream().mapToLong(Entry::size).sum());
+
+        if (lines > 2 * entries.size() + 100) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        File tempFile = new File(cacheDir, MANIFEST_FILE_NAME + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+            for (Entry entry : evictionOrder(EvictionPolicy.LRU)) {
+                writer.write(toManifestLine(entry) + "\n");
+            }
+        } catch (IOException ex) {
+            logger.warn("Error while compacting the image cache manifest", ex);
+            return;
+        }
+        try {
+            Files.move(tempFile.toPath(), manifestFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            logger.warn("Error while compacting the image cache manifest", ex);
+        }
+    }
+
+    /**
+     * An entry of the image cache index.
+     */
+    static final class Entry {
+
+        private final String hash;
+        private final File file;
+        private final int width;
+        private final int height;
+        private final long size;
+        private volatile long lastAccess;
+        private final AtomicLong accessCount = new AtomicLong();
+
+        Entry(String hash, File file, int width, int height, long size, long lastAccess) {
+            this.hash = hash;
+            this.file = file;
+            this.width = width;
+            this.height = height;
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+
+        String hash() {
+            return hash;
+        }
+
+        File file() {
+            return file;
+        }
+
+        int width() {
+            return width;
+        }
+
+        int height() {
+            return height;
+        }
+
+        long size() {
+            return size;
+        }
+
+        long lastAccess() {
+            return lastAccess;
+        }
+
+        long accessCount() {
+            return accessCount.get();
+        }
+
+        private void touch(long sequence) {
+            lastAccess = sequence;
+            accessCount.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package one.jpro.platform.image.manager;
+
+import java.time.Duration;
+
+/**
+ * An immutable snapshot of the statistics of the image cache managed by the {@link ImageManager}.
+ *
+ * @author Florian Kirmaier
+ * @see ImageManager#getCacheStatistics()
+ */
+public class ImageCacheStatistics {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long entryCount;
+    private final long size;
+    private final Duration averageTransformTime;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param hitCount             The number of image requests served from the cache.
+     * @param missCount            The number of image requests that required creating the image.
+     * @param evictionCount        The number of images evicted from the cache.
+     * @param entryCount           The number of images currently in the cache.
+     * @param size                 The total size of the cached images in bytes.
+     * @param averageTransformTime The average time it took to create an image.
+     */
+    public ImageCacheStatistics(long hitCount, long missCount, long evictionCount, long entryCount, long size,
+                                Duration averageTransformTime) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.entryCount = entryCount;
+        this.size = size;
+        this.averageTransformTime = averageTransformTime;
+    }
+
+    /**
+     * Returns the number of image requests served from the cache.
+     *
+     * @return The hit count.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of image requests that required creating the image.
+     *
+     * @return The miss count.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the ratio of image requests served from the cache.
+     *
+     * @return The hit rate between 0.0 and 1.0, or 0.0 if no image has been requested yet.
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 0.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * Returns the number of images evicted from the cache.
+     *
+     * @return The eviction count.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of images currently in the cache.
+     *
+     * @return The entry count.
+     */
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the total size of the cached images.
+     *
+     * @return The size in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the average time it took to create an image on a cache miss,
+     * including decoding, transforming and encoding it.
+     *
+     * @return The average transform time.
+     */
+    public Duration getAverageTransformTime() {
+        return averageTransformTime;
+    }
+
+    @Override
+    public String toString() {
+        return "ImageCacheStatistics{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                ", entryCount=" + entryCount +
+                ", size=" + size +
+                ", averageTransformTime=" + averageTransformTime +
+                '}';
+    }
+}
@@ -5,15 +5,18 @@ import one.jpro.platform.image.manager.source.ImageSource;
 import one.jpro.platform.image.manager.transformer.ImageTransformer;
 import org.json.JSONObject;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
 /**
  * Represents a definition of an image that encompasses its source, transformation, and encoding details.
  * This class also provides the capability to convert its instance into a JSON representation.
  *
  * @author Florian Kirmaier
  * @author Besmir Beqiri
- * @see JsonConvertible
+ * @see DigestHashable
  */
-public class ImageDefinition implements JsonConvertible {
+public class ImageDefinition implements DigestHashable {
 
     /**
      * The source from which the image is obtained or generated.
@@ -30,6 +33,12 @@ public class ImageDefinition implements JsonConvertible {
      */
     private final ImageEncoder encoder;
 
+    /**
+     * The digest state after hashing the transformer and the encoder, which don't change. It is computed
+     * on first use and cloned for every hash, so only the source needs to be hashed again.
+     */
+    private volatile MessageDigest precomputedDigest;
+
     /**
      * Constructs a new instance of ImageDefinition.
      *
@@ -52,6 +61,18 @@ public class ImageDefinition implements JsonConvertible {
         return json;
     }
 
+    /**
+     * Updates the digest with the transformer, the encoder and the source of this definition, in this order.
+     *
+     * @param digest The digest to update.
+     */
+    @Override
+    public void hashInto(MessageDigest digest) {
+        transformer.hashInto(digest);
+        encoder.hashInto(digest);
+        source.hashInto(digest);
+    }
+
     /**
      * Returns the image source associated with this definition.
      *
@@ -80,11 +101,36 @@ public class ImageDefinition implements JsonConvertible {
     }
 
     /**
-     * Computes and returns a hash string representation for this instance.
+     * Computes and returns the MD5 hash of this definition as a hex string. The hash of the transformer
+     * and the encoder is computed only once, while the source is hashed on every call, so changes
+     * of the source, like a modified file, are taken into account.
      *
      * @return A string representing the hash of this instance.
      */
     String getHashString() {
-        return ImageManager.computeImageDefinitionHash(this);
+        MessageDigest digest = precomputedDigest;
+        if (digest == null) {
+            digest = createDigest();
+            transformer.hashInto(digest);
+            encoder.hashInto(digest);
+            precomputedDigest = digest;
+        }
+        try {
+            digest = (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException ex) {
+            digest = createDigest();
+            transformer.hashInto(digest);
+            encoder.hashInto(digest);
+        }
+        source.hashInto(digest);
+        return ImageUtils.toHexString(digest.digest());
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException("Error computing MD5 hash", ex);
+        }
     }
 }
\ No newline at end of file
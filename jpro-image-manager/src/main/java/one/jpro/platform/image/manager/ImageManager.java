@@ -2,17 +2,39 @@ package one.jpro.platform.image.manager;
 
 import javafx.scene.image.Image;
 
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import one.jpro.platform.image.manager.encoder.ImageEncoder;
 import one.jpro.platform.image.manager.source.ImageSource;
 import one.jpro.platform.image.manager.transformer.ImageTransformer;
+import one.jpro.platform.image.manager.transformer.ImageTransformerWH;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,11 +49,63 @@ public class ImageManager {
 
     private static final String CACHE_DIR_NAME = "jpro.imagemanager.cache";
     private static final String CACHE_DIR_HOME = System.getProperty("user.home") + "/.jpro" + "/image-manager";
+    private static final String CACHE_MAX_SIZE_NAME = "jpro.imagemanager.cache.maxSize";
+    private static final String CACHE_MAX_ENTRIES_NAME = "jpro.imagemanager.cache.maxEntries";
+    private static final String CACHE_EVICTION_POLICY_NAME = "jpro.imagemanager.cache.evictionPolicy";
+    private static final double EVICTION_TARGET_RATIO = 0.9;
+    private static final String THREADS_NAME = "jpro.imagemanager.threads";
+    /**
+     * The cache directories of older versions, which were named after the MD5 hash of the image definition.
+     */
+    private static final Pattern LEGACY_CACHE_DIR = Pattern.compile("[0-9a-f]{32}");
     private static String CACHE_DIR = null;
     private static volatile ImageManager defaultInstance;
 
+    private final File cacheDir;
+    private final ImageCacheIndex cacheIndex;
+    private final Map<String, CompletableFuture<ImageResult>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService evictionExecutor;
+    private final AtomicBoolean evictionScheduled = new AtomicBoolean();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder transformTime = new LongAdder();
+    private volatile long maxCacheSize;
+    private volatile long maxCacheEntries;
+    private volatile EvictionPolicy evictionPolicy;
+    private volatile Executor executor;
+
     // Private constructor to prevent instantiation
-    private ImageManager() {}
+    private ImageManager() {
+        this(new File(CACHE_DIR));
+        // If `jpro.imagemanager.cache.maxSize`, `jpro.imagemanager.cache.maxEntries` or
+        // `jpro.imagemanager.cache.evictionPolicy` are set, use them to limit the cache
+        maxCacheSize = Long.getLong(CACHE_MAX_SIZE_NAME, Long.MAX_VALUE);
+        maxCacheEntries = Long.getLong(CACHE_MAX_ENTRIES_NAME, Long.MAX_VALUE);
+        evictionPolicy = EvictionPolicy.valueOf(System.getProperty(CACHE_EVICTION_POLICY_NAME, EvictionPolicy.LRU.name()));
+        scheduleEvictionIfNeeded();
+    }
+
+    /**
+     * Creates an ImageManager that uses the given cache directory.
+     *
+     * @param cacheDir the cache directory
+     */
+    ImageManager(File cacheDir) {
+        this.cacheDir = cacheDir;
+        this.cacheIndex = new ImageCacheIndex(cacheDir);
+        this.maxCacheSize = Long.MAX_VALUE;
+        this.maxCacheEntries = Long.MAX_VALUE;
+        this.evictionPolicy = EvictionPolicy.LRU;
+        // If `jpro.imagemanager.threads` is set, use that as number of image processing threads
+        this.executor = createDefaultExecutor(Integer.getInteger(THREADS_NAME, Runtime.getRuntime().availableProcessors()));
+        this.evictionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "image-manager-eviction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictionExecutor.execute(this::deleteLegacyCacheDirs);
+    }
 
     /**
      * Returns the singleton instance of ImageManager.
@@ -61,62 +135,346 @@ public class ImageManager {
      * @return the cache directory
      */
     File getCacheDir() {
-        return new File(CACHE_DIR);
+        return cacheDir;
+    }
+
+    /**
+     * Returns the maximum total size of the cached images.
+     *
+     * @return the maximum cache size in bytes
+     */
+    public long getMaxCacheSize() {
+        return maxCacheSize;
+    }
+
+    /**
+     * Sets the maximum total size of the cached images. When the cache exceeds this size,
+     * images are evicted in the background according to the eviction policy.
+     * By default, the cache size is unlimited, unless the {@code jpro.imagemanager.cache.maxSize}
+     * system property is set.
+     * <p>
+     * The original images downloaded for URL sources are stored in the {@code remote} directory of the cache
+     * and have their own limit, see {@link one.jpro.platform.image.manager.source.RemoteImageFetcher#setMaxStorageSize}.
+     *
+     * @param maxCacheSize the maximum cache size in bytes
+     * @throws IllegalArgumentException if the given size is not positive
+     */
+    public void setMaxCacheSize(long maxCacheSize) {
+        if (maxCacheSize <= 0) {
+            throw new IllegalArgumentException("Max cache size must be positive.");
+        }
+        this.maxCacheSize = maxCacheSize;
+        scheduleEvictionIfNeeded();
+    }
+
+    /**
+     * Returns the maximum number of cached images.
+     *
+     * @return the maximum number of cache entries
+     */
+    public long getMaxCacheEntries() {
+        return maxCacheEntries;
+    }
+
+    /**
+     * Sets the maximum number of cached images. When the cache exceeds this number,
+     * images are evicted in the background according to the eviction policy.
+     * By default, the number of entries is unlimited, unless the {@code jpro.imagemanager.cache.maxEntries}
+     * system property is set.
+     *
+     * @param maxCacheEntries the maximum number of cache entries
+     * @throws IllegalArgumentException if the given number is not positive
+     */
+    public void setMaxCacheEntries(long maxCacheEntries) {
+        if (maxCacheEntries <= 0) {
+            throw new IllegalArgumentException("Max cache entries must be positive.");
+        }
+        this.maxCacheEntries = maxCacheEntries;
+        scheduleEvictionIfNeeded();
+    }
+
+    /**
+     * Returns the policy used to select the images to evict.
+     *
+     * @return the eviction policy
+     */
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    /**
+     * Sets the policy used to select the images to evict. The default policy is {@link EvictionPolicy#LRU},
+     * unless the {@code jpro.imagemanager.cache.evictionPolicy} system property is set.
+     *
+     * @param evictionPolicy the eviction policy
+     */
+    public void setEvictionPolicy(EvictionPolicy evictionPolicy) {
+        this.evictionPolicy = Objects.requireNonNull(evictionPolicy, "Eviction policy must not be null.");
+    }
+
+    /**
+     * Returns the executor used to load images asynchronously.
+     *
+     * @return the image processing executor
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor used to load images asynchronously. Decoding, transforming and encoding images
+     * is CPU-heavy, so the executor should be bounded to about the number of available processors.
+     * By default, a fixed thread pool with one thread per available processor is used,
+     * unless the {@code jpro.imagemanager.threads} system property is set.
+     *
+     * @param executor the image processing executor
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = Objects.requireNonNull(executor, "Executor must not be null.");
+    }
+
+    /**
+     * Returns a snapshot of the statistics of the image cache.
+     *
+     * @return the cache statistics
+     */
+    public ImageCacheStatistics getCacheStatistics() {
+        long misses = missCount.sum();
+        Duration averageTransformTime = Duration.ofNanos(misses == 0 ? 0 : transformTime.sum() / misses);
+        return new ImageCacheStatistics(hitCount.sum(), misses, evictionCount.sum(), cacheIndex.size(),
+                cacheIndex.totalSize(), averageTransformTime);
     }
 
     /**
      * Loads the image based on the given definition, caches it, and returns the image result.
+     * Cached images are looked up in the in-memory cache index, so a cache hit doesn't require any disk access.
+     * If the same image is requested concurrently while it is not cached yet, it is created only once
+     * and all callers share the result.
      *
      * @param imageDefinition the image definition containing source, transformation and encoder
      * @return the loaded and potentially cached image result
      */
     public ImageResult loadImage(ImageDefinition imageDefinition) {
+        String hash = computeImageDefinitionHash(imageDefinition);
+        ImageCacheIndex.Entry entry = cacheIndex.get(hash);
+        if (entry != null) {
+            hitCount.increment();
+            return new ImageResult(entry.file(), entry.width(), entry.height());
+        }
+
+        CompletableFuture<ImageResult> future = new CompletableFuture<>();
+        CompletableFuture<ImageResult> inFlightFuture = inFlight.putIfAbsent(hash, future);
+        if (inFlightFuture != null) {
+            // sharing the result of a concurrent computation counts as a hit
+            hitCount.increment();
+            try {
+                return inFlightFuture.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                throw ex;
+            }
+        }
+
+        try {
+            // the image may have been created while this thread was not yet registered as in flight
+            entry = cacheIndex.get(hash);
+            final ImageResult result;
+            if (entry != null) {
+                hitCount.increment();
+                result = new ImageResult(entry.file(), entry.width(), entry.height());
+            } else {
+                missCount.increment();
+                long startTime = System.nanoTime();
+                result = createImage(hash, imageDefinition);
+                transformTime.add(System.nanoTime() - startTime);
+                scheduleEvictionIfNeeded();
+            }
+            future.complete(result);
+            return result;
+        } catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(hash, future);
+        }
+    }
+
+    /**
+     * Creates the image for the given definition and adds it to the cache.
+     *
+     * @param hash            the hash of the image definition
+     * @param imageDefinition the image definition containing source, transformation and encoder
+     * @return the created image result
+     */
+    private ImageResult createImage(String hash, ImageDefinition imageDefinition) {
+        BufferedImage img = imageDefinition.getSource().loadImage(imageDefinition.getTransformer());
+        img = imageDefinition.getTransformer().transform(img);
+        return storeImage(hash, imageDefinition, img);
+    }
+
+    /**
+     * Encodes the given image and adds it to the cache. The image is encoded into a temporary file first,
+     * which is then atomically moved into place, so a partially written image is never visible
+     * under its final name.
+     *
+     * @param hash            the hash of the image definition
+     * @param imageDefinition the image definition the image was created for
+     * @param img             the transformed image
+     * @return the created image result
+     */
+    private ImageResult storeImage(String hash, ImageDefinition imageDefinition, BufferedImage img) {
         String origFileName = imageDefinition.getSource().getFileName();
         String baseName = origFileName.substring(0, origFileName.lastIndexOf("."));
         String fileName = baseName + "." + imageDefinition.getEncoder().getFileExtension();
 
+        File hashDir = cacheIndex.getHashDir(hash);
+        File imageFile = new File(hashDir, fileName);
+        Path tempFile = null;
         try {
-            String hash = computeImageDefinitionHash(imageDefinition);
-            File hashDir = new File(CACHE_DIR, hash);
-            File imageFile = new File(hashDir, fileName);
-
-            if (hashDir.exists()) {
-                File keyFile = new File(hashDir, "key");
-                if (keyFile.exists() && imageFile.exists()) {
-                    String savedDef = Files.readString(keyFile.toPath());
-                    if (savedDef.equals(imageDefinition.toJSON().toString())) {
-                        String wh = Files.readString(new File(hashDir, "wh").toPath());
-                        String[] dims = wh.split(",");
-                        return new ImageResult(imageFile, Integer.parseInt(dims[0]), Integer.parseInt(dims[1]));
-                    }
+            Files.createDirectories(hashDir.toPath());
+            tempFile = Files.createTempFile(hashDir.toPath(), fileName, ".tmp");
+            imageDefinition.getEncoder().saveImage(img, tempFile.toFile());
+            try {
+                Files.move(tempFile, imageFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile, imageFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            ImageCacheIndex.Entry entry = cacheIndex.put(hash, imageFile, img.getWidth(), img.getHeight(),
+                    imageFile.length());
+            return new ImageResult(entry.file(), entry.width(), entry.height());
+        } catch (IOException ex) {
+            logger.error("Error while loading image", ex);
+            throw new RuntimeException(ex);
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ex) {
+                    logger.warn("Could not delete temporary image file: {}", tempFile, ex);
                 }
             }
+        }
+    }
 
-            BufferedImage img = imageDefinition.getSource().loadImage();
-            img = imageDefinition.getTransformer().transform(img);
-            imageDefinition.getEncoder().saveImage(img, imageFile);
+    /**
+     * Loads all variants of the given variant set and returns a result holding them.
+     * Variants which are not cached yet are created together: the source is decoded only once,
+     * each variant is scaled down from the next wider variant, and the variants are encoded
+     * in parallel using the image processing executor.
+     *
+     * @param variantSet the variant set
+     * @return the image result holding all variants
+     * @see ImageResult#toFXImage(javafx.scene.Node)
+     */
+    public ImageResult loadImageVariants(ImageVariantSet variantSet) {
+        final List<ImageDefinition> definitions = variantSet.getImageDefinitions();
+        final List<String> hashes = new ArrayList<>();
+        final List<CompletableFuture<ImageResult>> futures = new ArrayList<>();
+        final List<Integer> created = new ArrayList<>();
+        for (int i = 0; i < definitions.size(); i++) {
+            String hash = computeImageDefinitionHash(definitions.get(i));
+            hashes.add(hash);
+            ImageCacheIndex.Entry entry = cacheIndex.get(hash);
+            if (entry != null) {
+                hitCount.increment();
+                futures.add(CompletableFuture.completedFuture(new ImageResult(entry.file(), entry.width(), entry.height())));
+                continue;
+            }
+            CompletableFuture<ImageResult> future = new CompletableFuture<>();
+            CompletableFuture<ImageResult> inFlightFuture = inFlight.putIfAbsent(hash, future);
+            if (inFlightFuture != null) {
+                // sharing the result of a concurrent computation counts as a hit
+                hitCount.increment();
+                futures.add(inFlightFuture);
+            } else {
+                missCount.increment();
+                futures.add(future);
+                created.add(i);
+            }
+        }
 
-            ImageResult result = new ImageResult(imageFile, img.getWidth(), img.getHeight());
+        if (!created.isEmpty()) {
+            try {
+                createVariants(definitions, hashes, futures, created);
+            } finally {
+                for (int i : created) {
+                    inFlight.remove(hashes.get(i), futures.get(i));
+                }
+            }
+            scheduleEvictionIfNeeded();
+        }
 
-            // Save metadata
-            Files.writeString(new File(hashDir, "key").toPath(), imageDefinition.toJSON().toString());
-            Files.writeString(new File(hashDir, "wh").toPath(), img.getWidth() + "," + img.getHeight());
+        try {
+            return new ImageResult(futures.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
 
-            return result;
-        } catch (IOException ex) {
-            logger.error("Error while loading image", ex);
-            throw new RuntimeException(ex);
+    /**
+     * Creates the given variants from a single decoded image. The definitions are ordered from the widest
+     * to the narrowest variant, so each variant is scaled down from the previously created one.
+     * The encoding tasks are queued and executed by the image processing executor as well as by the calling
+     * thread, so the variants are created even if all executor threads are busy.
+     */
+    private void createVariants(List<ImageDefinition> definitions, List<String> hashes,
+                                List<CompletableFuture<ImageResult>> futures, List<Integer> created) {
+        final long startTime = System.nanoTime();
+        final Queue<Runnable> encodings = new ConcurrentLinkedQueue<>();
+        try {
+            final ImageDefinition widest = definitions.get(created.get(0));
+            final BufferedImage decoded = widest.getSource().loadImage(widest.getTransformer());
+            BufferedImage current = decoded;
+            for (int i : created) {
+                final ImageDefinition definition = definitions.get(i);
+                // the size is computed from the decoded image, so each variant has the same size
+                // as if it was created from its own definition
+                Dimension size = definition.getTransformer().getTargetSize(decoded.getWidth(), decoded.getHeight());
+                current = new ImageTransformerWH(size.width, size.height).transform(current);
+                final BufferedImage variant = current;
+                final CompletableFuture<ImageResult> future = futures.get(i);
+                encodings.add(() -> {
+                    try {
+                        future.complete(storeImage(hashes.get(i), definition, variant));
+                    } catch (RuntimeException ex) {
+                        future.completeExceptionally(ex);
+                    }
+                });
+                executor.execute(() -> runNext(encodings));
+            }
+        } catch (RuntimeException ex) {
+            created.forEach(i -> futures.get(i).completeExceptionally(ex));
+        }
+        while (runNext(encodings)) {
+            // help encoding the variants
         }
+        created.forEach(i -> futures.get(i).exceptionally(ex -> null).join());
+        transformTime.add(System.nanoTime() - startTime);
+    }
+
+    private static boolean runNext(Queue<Runnable> tasks) {
+        Runnable task = tasks.poll();
+        if (task != null) {
+            task.run();
+        }
+        return task != null;
     }
 
     /**
-     * Loads the image asynchronously based on the given definition.
+     * Loads the image asynchronously based on the given definition, using the image processing executor.
      *
      * @param imageDefinition the image definition containing source, transformation, and encoder
      * @return a CompletableFuture containing the image result
+     * @see #setExecutor(Executor)
      */
-    CompletableFuture<ImageResult> loadImageFuture(ImageDefinition imageDefinition) {
-        return CompletableFuture.supplyAsync(() -> loadImage(imageDefinition));
+    public CompletableFuture<ImageResult> loadImageFuture(ImageDefinition imageDefinition) {
+        return CompletableFuture.supplyAsync(() -> loadImage(imageDefinition), executor);
     }
 
     /**
@@ -127,46 +485,150 @@ public class ImageManager {
      * @param encoding       the image encoder to use
      * @return the processed FX image
      */
-    Image loadFXImage(ImageSource source, ImageTransformer transformation, ImageEncoder encoding) {
+    public Image loadFXImage(ImageSource source, ImageTransformer transformation, ImageEncoder encoding) {
         ImageDefinition def = new ImageDefinition(source, transformation, encoding);
         ImageResult result = loadImage(def);
         return result.toFXImage();
     }
 
     /**
-     * Loads an JavaFX image asynchronously after applying the specified transformation and encoding.
+     * Loads an JavaFX image asynchronously after applying the specified transformation and encoding,
+     * using the image processing executor.
      *
      * @param source      the image source
      * @param transformer the image transformer to apply
      * @param encoder     the image encoder to use
      * @return a CompletableFuture containing the processed FX image
+     * @see #setExecutor(Executor)
+     */
+    public CompletableFuture<Image> loadFXImageFuture(ImageSource source, ImageTransformer transformer, ImageEncoder encoder) {
+        return CompletableFuture.supplyAsync(() -> loadFXImage(source, transformer, encoder), executor);
+    }
+
+    /**
+     * Creates and caches the images for all given definitions in parallel, using the image processing executor.
+     * This is useful to render all image variants at deploy time, before the first requests arrive.
+     *
+     * @param imageDefinitions the image definitions to create
+     * @return a CompletableFuture that completes when all images have been processed
+     */
+    public CompletableFuture<Void> prewarm(Collection<ImageDefinition> imageDefinitions) {
+        return prewarm(imageDefinitions, null);
+    }
+
+    /**
+     * Creates and caches the images for all given definitions in parallel, using the image processing executor.
+     * This is useful to render all image variants at deploy time, before the first requests arrive.
+     * Images that fail to load are logged and don't stop the processing of the remaining images.
+     *
+     * @param imageDefinitions the image definitions to create
+     * @param progressCallback an optional callback that is called with the number of processed images
+     *                         and the total number of images, each time an image has been processed.
+     *                         It is called from the executor threads.
+     * @return a CompletableFuture that completes when all images have been processed
      */
-    CompletableFuture<Image> loadFXImageFuture(ImageSource source, ImageTransformer transformer, ImageEncoder encoder) {
-        return CompletableFuture.supplyAsync(() -> loadFXImage(source, transformer, encoder));
+    public CompletableFuture<Void> prewarm(Collection<ImageDefinition> imageDefinitions,
+                                           BiConsumer<Integer, Integer> progressCallback) {
+        final int total = imageDefinitions.size();
+        final AtomicInteger processed = new AtomicInteger();
+        final CompletableFuture<?>[] futures = imageDefinitions.stream()
+                .map(imageDefinition -> CompletableFuture.runAsync(() -> {
+                    try {
+                        loadImage(imageDefinition);
+                    } catch (RuntimeException ex) {
+                        logger.error("Error while prewarming image: {}", imageDefinition.toJSON(), ex);
+                    } finally {
+                        int count = processed.incrementAndGet();
+                        if (progressCallback != null) {
+                            progressCallback.accept(count, total);
+                        }
+                    }
+                }, executor))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures);
     }
 
     /**
-     * Computes the hash for the given image definition.
+     * Computes the hash for the given image definition. The definition is hashed through its binary
+     * {@link DigestHashable#hashInto(MessageDigest) hashInto} representation, and the hash of its transformer
+     * and encoder is memoized on the definition.
      *
      * @param imageDefinition the image definition
-     * @return the computed MD5 hash as a string
+     * @return the computed MD5 hash as a hex string
      */
     public static String computeImageDefinitionHash(ImageDefinition imageDefinition) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("MD5");
-            byte[] hashBytes = digest.digest(imageDefinition.toJSON().toString().getBytes(StandardCharsets.UTF_8));
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hashBytes) {
-                String hex = Integer.toHexString(0xFF & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
+        return imageDefinition.getHashString();
+    }
+
+    /**
+     * Creates the default image processing executor with the given number of daemon threads.
+     *
+     * @param threads the number of threads
+     * @return the executor
+     */
+    private static ExecutorService createDefaultExecutor(int threads) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "image-manager-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Schedules the eviction of cached images in the background, if the cache exceeds its limits.
+     */
+    private void scheduleEvictionIfNeeded() {
+        if (isOverBudget(1.0) && evictionScheduled.compareAndSet(false, true)) {
+            evictionExecutor.execute(() -> {
+                evictionScheduled.set(false);
+                evict();
+            });
+        }
+    }
+
+    private boolean isOverBudget(double ratio) {
+        return cacheIndex.totalSize() > maxCacheSize * ratio || cacheIndex.size() > maxCacheEntries * ratio;
+    }
+
+    /**
+     * Evicts cached images according to the eviction policy, until the cache is below 90% of its limits,
+     * so that the eviction doesn't run again right after the next image is added.
+     */
+    synchronized void evict() {
+        if (!isOverBudget(1.0)) {
+            return;
+        }
+        for (ImageCacheIndex.Entry entry : cacheIndex.evictionOrder(evictionPolicy)) {
+            if (!isOverBudget(EVICTION_TARGET_RATIO)) {
+                break;
+            }
+            try {
+                if (cacheIndex.remove(entry.hash()) != null) {
+                    deleteDirectoryRecursively(entry.file().getParentFile());
+                    evictionCount.increment();
                 }
-                hexString.append(hex);
+            } catch (IOException ex) {
+                logger.error("Error while evicting image: {}", entry.file(), ex);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Deletes the cache directories of older versions, which are not part of the cache index
+     * and would otherwise never be evicted.
+     */
+    void deleteLegacyCacheDirs() {
+        final File[] files = cacheDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory() && LEGACY_CACHE_DIR.matcher(file.getName()).matches()) {
+                logger.debug("Deleting legacy image cache directory: {}", file);
+                deleteDirectoryRecursively(file);
             }
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException ex) {
-            logger.error("Error computing MD5 hash", ex);
-            throw new RuntimeException(ex);
         }
     }
 
@@ -174,8 +636,8 @@ public class ImageManager {
      * Clears the entire image cache.
      */
     void clearCache() {
-        File cacheDirectory = new File(CACHE_DIR);
-        deleteDirectoryRecursively(cacheDirectory);
+        cacheIndex.clear();
+        deleteDirectoryRecursively(cacheDir);
     }
 
     /**
@@ -1,18 +1,34 @@
 package one.jpro.platform.image.manager;
 
 import com.jpro.webapi.WebAPI;
+import javafx.scene.Node;
 import javafx.scene.image.Image;
+import javafx.stage.Window;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * Represents the result of an image operation, encapsulating details about
  * the image file and its dimensions (width and height).
+ * <p>
+ * A result created from an {@link ImageVariantSet} also holds all variants of the image,
+ * so the variant matching the rendered size and the pixel ratio of the client can be selected.
  *
  * @author Florian Kirmaier
  */
 public class ImageResult {
 
+    /**
+     * The device pixel ratios of the browser clients, queried once per client. A {@code null} value
+     * marks a client whose ratio has been requested, but not yet received.
+     */
+    private static final Map<WebAPI, Double> clientPixelRatios = new WeakHashMap<>();
+
     /**
      * The image file.
      */
@@ -28,6 +44,11 @@ public class ImageResult {
      */
     private final int height;
 
+    /**
+     * The variants of the image, ordered by ascending width.
+     */
+    private final List<ImageResult> variants;
+
     /**
      * Constructs a new instance.
      *
@@ -39,6 +60,27 @@ public class ImageResult {
         this.file = file;
         this.width = width;
         this.height = height;
+        this.variants = List.of(this);
+    }
+
+    /**
+     * Constructs a new instance holding multiple variants of the same image.
+     * The file and dimensions of this result are the ones of the widest variant.
+     *
+     * @param variants The variants of the image.
+     * @throws IllegalArgumentException if no variant is given
+     */
+    public ImageResult(List<ImageResult> variants) {
+        if (variants.isEmpty()) {
+            throw new IllegalArgumentException("At least one variant is required.");
+        }
+        List<ImageResult> sorted = new ArrayList<>(variants);
+        sorted.sort(Comparator.comparingInt(ImageResult::getWidth));
+        ImageResult widest = sorted.get(sorted.size() - 1);
+        this.file = widest.getFile();
+        this.width = widest.getWidth();
+        this.height = widest.getHeight();
+        this.variants = List.copyOf(sorted);
     }
 
     /**
@@ -68,18 +110,145 @@ public class ImageResult {
         return height;
     }
 
+    /**
+     * Returns the variants of the image, ordered by ascending width. A result created for a single
+     * image definition has only one variant, which is the result itself.
+     *
+     * @return The variants of the image.
+     */
+    public List<ImageResult> getVariants() {
+        return variants;
+    }
+
+    /**
+     * Selects the narrowest variant which is at least as wide as the given width multiplied by the pixel ratio.
+     * If no variant is wide enough, the widest variant is returned.
+     *
+     * @param renderedWidth The width the image is rendered with, in logical pixels.
+     * @param pixelRatio    The pixel ratio of the client.
+     * @return The selected variant.
+     */
+    public ImageResult selectVariant(double renderedWidth, double pixelRatio) {
+        final double requiredWidth = renderedWidth * pixelRatio;
+        for (ImageResult variant : variants) {
+            if (variant.getWidth() >= requiredWidth) {
+                return variant;
+            }
+        }
+        return variants.get(variants.size() - 1);
+    }
+
+    /**
+     * Converts the variant matching the given rendered width and pixel ratio into an {@link Image}.
+     *
+     * @param renderedWidth The width the image is rendered with, in logical pixels.
+     * @param pixelRatio    The pixel ratio of the client.
+     * @return A {@link Image} instance representing the selected variant.
+     * @see #selectVariant(double, double)
+     */
+    public Image toFXImage(double renderedWidth, double pixelRatio) {
+        return selectVariant(renderedWidth, pixelRatio).toFXImage();
+    }
+
+    /**
+     * Converts the variant matching the rendered width of the given node and the pixel ratio of the client
+     * into an {@link Image}. If the node is not yet laid out, the widest variant is used.
+     *
+     * @param node The node the image is rendered in.
+     * @return A {@link Image} instance representing the selected variant.
+     */
+    public Image toFXImage(Node node) {
+        final double renderedWidth = node.getLayoutBounds().getWidth();
+        if (renderedWidth <= 0) {
+            return variants.get(variants.size() - 1).toFXImage();
+        }
+        return toFXImage(renderedWidth, getPixelRatio(node));
+    }
+
+    /**
+     * Returns the pixel ratio of the client the given node is shown on. In the browser, this is the
+     * {@code devicePixelRatio} of the browser, because the render scale of the window is the one of the server.
+     * On the desktop, it is the render scale of the window. If the node is not shown in a window,
+     * or the ratio of the browser is not known yet, a pixel ratio of 1 is assumed.
+     * <p>
+     * The ratio of a browser is requested asynchronously with the first lookup, so the JavaFX thread never
+     * waits for the browser. Call {@link #requestPixelRatio(WebAPI)} when the session starts,
+     * to know the ratio before the first image is selected.
+     *
+     * @param node The node the image is rendered in.
+     * @return The pixel ratio of the client.
+     */
+    public static double getPixelRatio(Node node) {
+        final Window window = node.getScene() == null ? null : node.getScene().getWindow();
+        if (window == null) {
+            return 1.0;
+        }
+        if (WebAPI.isBrowser()) {
+            final Double pixelRatio = requestPixelRatio(WebAPI.getWebAPI(window));
+            return pixelRatio == null ? 1.0 : pixelRatio;
+        }
+        return window.getRenderScaleX();
+    }
+
+    /**
+     * Requests the {@code devicePixelRatio} of the given browser client, unless it has been requested before.
+     * The answer of the browser is received asynchronously.
+     *
+     * @param webAPI The WebAPI of the client.
+     * @return The pixel ratio of the client, or {@code null} if it has not been received yet.
+     */
+    public static Double requestPixelRatio(WebAPI webAPI) {
+        synchronized (clientPixelRatios) {
+            if (clientPixelRatios.containsKey(webAPI)) {
+                return clientPixelRatios.get(webAPI);
+            }
+            clientPixelRatios.put(webAPI, null);
+        }
+        webAPI.executeScriptWithListener("window.devicePixelRatio", result -> {
+            final double pixelRatio = parsePixelRatio(result);
+            synchronized (clientPixelRatios) {
+                clientPixelRatios.put(webAPI, pixelRatio);
+            }
+        });
+        return null;
+    }
+
+    static double parsePixelRatio(String result) {
+        try {
+            final double pixelRatio = Double.parseDouble(result);
+            return pixelRatio > 0 ? pixelRatio : 1.0;
+        } catch (NullPointerException | NumberFormatException ex) {
+            return 1.0;
+        }
+    }
+
     /**
      * Converts this image result into an {@link Image} suitable for use within JavaFX applications.
      * If the code is running in a browser context (as determined by the WebAPI), a virtual image is created instead.
      * Otherwise, a standard JavaFX Image object is constructed using the file's URI.
+     * The images are cached by the {@link FXImageCache#getDefault() default FX image cache},
+     * so the same image is shared instead of being decoded again.
+     * <p>
+     * This method doesn't select a variant. For a result holding multiple variants, the image of the widest
+     * variant is returned. Use {@link #toFXImage(Node)} or {@link #toFXImage(double, double)} to get the variant
+     * matching the rendered size and the pixel ratio of the client.
      *
      * @return A {@link Image} instance representing the image in a format suitable.
      */
     public Image toFXImage() {
+        return FXImageCache.getDefault().getImage(this);
+    }
+
+    /**
+     * Creates a new {@link Image} for this image result, without using the cache.
+     *
+     * @return A new {@link Image} instance.
+     */
+    Image createFXImage() {
         if (WebAPI.isBrowser()) {
             return WebAPI.createVirtualImage(file.toURI().toString(), width, height);
         } else {
             return new Image(file.toURI().toString(), width, height, false, true);
         }
     }
-}
\ No newline at end of file
+}
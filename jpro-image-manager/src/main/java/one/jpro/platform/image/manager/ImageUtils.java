@@ -1,7 +1,9 @@
 package one.jpro.platform.image.manager;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.util.HexFormat;
 
 /**
  * This class provides utility methods for various image operations.
@@ -10,6 +12,8 @@ import java.security.MessageDigest;
  */
 public class ImageUtils {
 
+    private static final HexFormat HEX_FORMAT = HexFormat.of();
+
     /**
      * Computes the MD5 hash of the given data and returns the first 8 bytes
      * of the hash as a long value.
@@ -30,6 +34,16 @@ public class ImageUtils {
         }
     }
 
+    /**
+     * Formats the given bytes, for example a digest, as a lowercase hexadecimal string.
+     *
+     * @param bytes The bytes to format.
+     * @return The hexadecimal string with two characters per byte.
+     */
+    public static String toHexString(byte[] bytes) {
+        return HEX_FORMAT.formatHex(bytes);
+    }
+
     /**
      * Escapes certain special characters in a JSON string to ensure it's valid.
      * Specifically, it escapes backslashes and double quotes.
@@ -40,4 +54,61 @@ public class ImageUtils {
     public static String escapeJson(String str) {
         return str.replace("\\", "\\\\").replace("\"", "\\\"");
     }
+
+    /**
+     * Updates the digest with the given string. The length is hashed before the UTF-8 bytes of the string,
+     * so consecutive strings can't be confused with each other, e.g. {@code "ab", "c"} and {@code "a", "bc"}.
+     *
+     * @param digest The digest to update.
+     * @param value  The string value.
+     */
+    public static void hashString(MessageDigest digest, String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        hashInt(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    /**
+     * Updates the digest with the four bytes of the given int value, in big-endian order.
+     *
+     * @param digest The digest to update.
+     * @param value  The int value.
+     */
+    public static void hashInt(MessageDigest digest, int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+
+    /**
+     * Updates the digest with the eight bytes of the given long value, in big-endian order.
+     *
+     * @param digest The digest to update.
+     * @param value  The long value.
+     */
+    public static void hashLong(MessageDigest digest, long value) {
+        hashInt(digest, (int) (value >>> 32));
+        hashInt(digest, (int) value);
+    }
+
+    /**
+     * Updates the digest with the bits of the given double value.
+     *
+     * @param digest The digest to update.
+     * @param value  The double value.
+     */
+    public static void hashDouble(MessageDigest digest, double value) {
+        hashLong(digest, Double.doubleToLongBits(value));
+    }
+
+    /**
+     * Updates the digest with a single byte for the given boolean value.
+     *
+     * @param digest The digest to update.
+     * @param value  The boolean value.
+     */
+    public static void hashBoolean(MessageDigest digest, boolean value) {
+        digest.update((byte) (value ? 1 : 0));
+    }
 }
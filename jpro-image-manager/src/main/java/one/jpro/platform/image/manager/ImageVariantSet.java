@@ -0,0 +1,117 @@
+package one.jpro.platform.image.manager;
+
+import one.jpro.platform.image.manager.encoder.ImageEncoder;
+import one.jpro.platform.image.manager.source.ImageSource;
+import one.jpro.platform.image.manager.transformer.ImageTransformerFitWidth;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Defines a set of responsive variants of one image source, similar to the {@code srcset} attribute
+ * of an HTML image. Each variant is scaled to one of the given widths, keeping the aspect ratio,
+ * and encoded with the same encoder.
+ * <p>
+ * Every variant corresponds to an {@link ImageDefinition} with an {@link ImageTransformerFitWidth}
+ * transformer, so the variants share the image cache with single image definitions.
+ *
+ * @author Florian Kirmaier
+ * @see ImageManager#loadImageVariants(ImageVariantSet)
+ */
+public class ImageVariantSet {
+
+    /**
+     * The source from which all variants are created.
+     */
+    private final ImageSource source;
+
+    /**
+     * The encoder used for all variants.
+     */
+    private final ImageEncoder encoder;
+
+    /**
+     * The distinct widths of the variants, in descending order.
+     */
+    private final int[] widths;
+
+    /**
+     * Constructs a new variant set.
+     *
+     * @param source  The source of the image.
+     * @param encoder The encoder for all variants.
+     * @param widths  The widths of the variants in pixels.
+     * @throws IllegalArgumentException if no width is given or a width is not positive
+     */
+    public ImageVariantSet(ImageSource source, ImageEncoder encoder, int... widths) {
+        this.source = Objects.requireNonNull(source, "Source must not be null.");
+        this.encoder = Objects.requireNonNull(encoder, "Encoder must not be null.");
+        if (widths.length == 0) {
+            throw new IllegalArgumentException("At least one width is required.");
+        }
+        if (Arrays.stream(widths).anyMatch(width -> width <= 0)) {
+            throw new IllegalArgumentException("Widths must be positive.");
+        }
+        this.widths = Arrays.stream(widths).distinct().boxed()
+                .sorted((a, b) -> Integer.compare(b, a))
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Creates a variant set for an image displayed with the given width, with one variant
+     * for each of the given device pixel ratios.
+     *
+     * @param source            The source of the image.
+     * @param encoder           The encoder for all variants.
+     * @param baseWidth         The width the image is displayed with, in logical pixels.
+     * @param devicePixelRatios The device pixel ratios to create variants for, for example {@code 1, 2, 3}.
+     * @return the variant set
+     */
+    public static ImageVariantSet forPixelRatios(ImageSource source, ImageEncoder encoder, int baseWidth,
+                                                 double... devicePixelRatios) {
+        int[] widths = Arrays.stream(devicePixelRatios)
+                .mapToInt(ratio -> (int) Math.round(baseWidth * ratio))
+                .toArray();
+        return new ImageVariantSet(source, encoder, widths);
+    }
+
+    /**
+     * Returns the image source associated with this variant set.
+     *
+     * @return The {@link ImageSource} instance.
+     */
+    public ImageSource getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the image encoder associated with this variant set.
+     *
+     * @return The {@link ImageEncoder} instance.
+     */
+    public ImageEncoder getEncoder() {
+        return encoder;
+    }
+
+    /**
+     * Returns the distinct widths of the variants, in descending order.
+     *
+     * @return The widths in pixels.
+     */
+    public int[] getWidths() {
+        return widths.clone();
+    }
+
+    /**
+     * Returns the image definitions of all variants, ordered from the widest to the narrowest variant.
+     *
+     * @return The image definitions.
+     */
+    public List<ImageDefinition> getImageDefinitions() {
+        return Arrays.stream(widths)
+                .mapToObj(width -> new ImageDefinition(source, new ImageTransformerFitWidth(width), encoder))
+                .collect(Collectors.toList());
+    }
+}
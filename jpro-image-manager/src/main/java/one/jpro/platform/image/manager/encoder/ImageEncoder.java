@@ -1,6 +1,6 @@
 package one.jpro.platform.image.manager.encoder;
 
-import one.jpro.platform.image.manager.JsonConvertible;
+import one.jpro.platform.image.manager.DigestHashable;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
@@ -11,9 +11,9 @@ import java.io.File;
  * and returning the file extension of the encoded image.
  *
  * @author Florian Kirmaier
- * @see JsonConvertible
+ * @see DigestHashable
  */
-public interface ImageEncoder extends JsonConvertible {
+public interface ImageEncoder extends DigestHashable {
 
     /**
      * Saves a {@link BufferedImage} to a specified {@link File}.
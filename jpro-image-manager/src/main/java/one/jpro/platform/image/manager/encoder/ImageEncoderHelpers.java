@@ -0,0 +1,83 @@
+package one.jpro.platform.image.manager.encoder;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Provides helper methods for image encoder implementations.
+ *
+ * @author Florian Kirmaier
+ */
+public class ImageEncoderHelpers {
+
+    /**
+     * Writes the given image to the target file with an {@link ImageWriter} for the given format.
+     * The write parameters are configured by the given consumer, for example to set the compression quality.
+     * No metadata is written except for what the format itself requires.
+     * <p>
+     * The parent directory of the target file must already exist.
+     *
+     * @param image           The image to write.
+     * @param target          The target file.
+     * @param formatName      The informal name of the format, for example {@code "jpeg"} or {@code "png"}.
+     * @param paramConfigurer A consumer configuring the write parameters, or {@code null} to use the defaults.
+     * @throws ImageEncoderException If no writer is available for the format or the image can't be written.
+     */
+    public static void writeImage(BufferedImage image, File target, String formatName,
+                                  Consumer<ImageWriteParam> paramConfigurer) {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
+        if (!writers.hasNext()) {
+            throw new ImageEncoderException("The given " + formatName.toUpperCase() + " format is not supported.");
+        }
+        ImageWriter writer = writers.next();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(target));
+             ImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (paramConfigurer != null) {
+                paramConfigurer.accept(param);
+            }
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException ex) {
+            throw new ImageEncoderException("Error while saving the image to " + formatName.toUpperCase()
+                    + " format.", ex);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Returns an image without an alpha channel, which can be written in formats like JPEG.
+     * Transparent pixels are composed onto the given background color.
+     *
+     * @param image      The image.
+     * @param background The background color for transparent pixels.
+     * @return The given image, if it has no alpha channel, otherwise an RGB copy of it.
+     */
+    public static BufferedImage removeAlpha(BufferedImage image, Color background) {
+        if (!image.getColorModel().hasAlpha()) {
+            return image;
+        }
+        BufferedImage rgbImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = rgbImage.createGraphics();
+        g2d.setColor(background);
+        g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g2d.drawImage(image, 0, 0, null);
+        g2d.dispose();
+        return rgbImage;
+    }
+}
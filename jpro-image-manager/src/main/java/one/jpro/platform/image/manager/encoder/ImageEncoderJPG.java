@@ -1,13 +1,13 @@
 package one.jpro.platform.image.manager.encoder;
 
+import one.jpro.platform.image.manager.ImageUtils;
 import org.json.JSONObject;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.IOException;
+import java.security.MessageDigest;
 
 /**
  * An implementation of ImageEncoder for encoding images in JPG format.
@@ -18,9 +18,8 @@ import java.io.IOException;
  */
 public class ImageEncoderJPG implements ImageEncoder {
 
-    private static final Logger logger = LoggerFactory.getLogger(ImageEncoderJPG.class);
-
     private final double quality;
+    private final boolean progressive;
 
     /**
      * Default constructor. Initializes with a default quality of 0.80.
@@ -36,41 +35,43 @@ public class ImageEncoderJPG implements ImageEncoder {
      * @throws IllegalArgumentException If the provided quality is not between 0.0 and 1.0.
      */
     public ImageEncoderJPG(double quality) {
+        this(quality, false);
+    }
+
+    /**
+     * Constructor with specified quality and progressive mode. Progressive JPEG images are displayed
+     * in increasing quality while they are loaded and are usually slightly smaller for larger images.
+     *
+     * @param quality     The quality factor for encoding, a value between 0.0 and 1.0.
+     * @param progressive Whether the image is encoded as progressive JPEG.
+     * @throws IllegalArgumentException If the provided quality is not between 0.0 and 1.0.
+     */
+    public ImageEncoderJPG(double quality, boolean progressive) {
         if (quality < 0.0 || quality > 1.0) {
             throw new IllegalArgumentException("Quality should be between 0.0 and 1.0");
         }
         this.quality = quality;
+        this.progressive = progressive;
     }
 
     /**
-     * Save the provided image to the specified file in JPG format.
-     * Note: The current implementation doesn't consider the quality settings due to Java's ImageIO limitations.
+     * Save the provided image to the specified file in JPG format, using the quality and progressive mode
+     * of this encoder. Transparent pixels are composed onto a white background, since JPG doesn't support
+     * an alpha channel.
      *
      * @param image  The image to be saved.
-     * @param target The target file where the image will be saved.
+     * @param target The target file where the image will be saved. Its parent directory must exist.
      * @throws ImageEncoderException If there's an error while saving the image.
      */
     @Override
     public void saveImage(BufferedImage image, File target) {
-        final String fileExtensionUpperCase = getFileExtension().toUpperCase();
-        try {
-            // Java's ImageIO doesn't support JPG quality settings, so we would need another method
-            // For simplicity, we'll just save it without specifying quality
-            final File parentFile = target.getParentFile();
-            if (parentFile != null && !parentFile.exists()) {
-                if (parentFile.mkdirs()) {
-                    logger.info("Created directory: {}", parentFile.getAbsolutePath());
-                } else {
-                    throw new ImageEncoderException("Failed to create directory: " + parentFile.getAbsolutePath());
-                }
-            }
-            boolean result = ImageIO.write(image, fileExtensionUpperCase, target);
-            if (!result) {
-                throw new ImageEncoderException("The given " + fileExtensionUpperCase + " format is not supported.");
+        ImageEncoderHelpers.writeImage(ImageEncoderHelpers.removeAlpha(image, Color.WHITE), target, "jpeg", param -> {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality((float) quality);
+            if (progressive) {
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
             }
-        } catch (IOException ex) {
-            throw new ImageEncoderException("Error while saving the image to " + fileExtensionUpperCase + " format.", ex);
-        }
+        });
     }
 
     /**
@@ -88,7 +89,16 @@ public class ImageEncoderJPG implements ImageEncoder {
         JSONObject json = new JSONObject();
         json.put("type", getClass().getSimpleName());
         json.put("quality", quality);
+        json.put("progressive", progressive);
         json.put("fileExtension", getFileExtension());
         return json;
     }
-}
\ No newline at end of file
+
+    @Override
+    public void hashInto(MessageDigest digest) {
+        ImageUtils.hashString(digest, getClass().getSimpleName());
+        ImageUtils.hashDouble(digest, quality);
+        ImageUtils.hashBoolean(digest, progressive);
+        ImageUtils.hashString(digest, getFileExtension());
+    }
+}
@@ -1,13 +1,12 @@
 package one.jpro.platform.image.manager.encoder;
 
+import one.jpro.platform.image.manager.ImageUtils;
 import org.json.JSONObject;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.IOException;
+import java.security.MessageDigest;
 
 /**
  * An implementation of the ImageEncoder interface for PNG image format.
@@ -18,35 +17,48 @@ import java.io.IOException;
  */
 public class ImageEncoderPNG implements ImageEncoder {
 
-    private static final Logger logger = LoggerFactory.getLogger(ImageEncoderPNG.class);
+    private final int compressionLevel;
 
     /**
-     * Saves the provided BufferedImage to a specified target file in PNG format.
+     * Default constructor. Initializes with the maximum compression level of 9, since cached images
+     * are encoded once and served many times.
+     */
+    public ImageEncoderPNG() {
+        this(9);
+    }
+
+    /**
+     * Constructor with specified compression level. The compression is lossless, a higher level results
+     * in smaller files, but takes longer to encode.
+     *
+     * @param compressionLevel The deflate compression level, a value between 0 (no compression) and 9.
+     * @throws IllegalArgumentException If the provided compression level is not between 0 and 9.
+     */
+    public ImageEncoderPNG(int compressionLevel) {
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new IllegalArgumentException("Compression level should be between 0 and 9");
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Saves the provided BufferedImage to a specified target file in PNG format,
+     * using the compression level of this encoder.
      *
      * @param image  The BufferedImage to be saved.
-     * @param target The target file where the image should be saved.
+     * @param target The target file where the image should be saved. Its parent directory must exist.
      * @throws ImageEncoderException If there's an error during the save process,
      *         or if the provided format is unsupported.
      */
     @Override
     public void saveImage(BufferedImage image, File target) {
-        final String fileExtensionUpperCase = getFileExtension().toUpperCase();
-        try {
-            final File parentFile = target.getParentFile();
-            if (parentFile != null && !parentFile.exists()) {
-                if (parentFile.mkdirs()) {
-                    logger.info("Created directory: {}", parentFile.getAbsolutePath());
-                } else {
-                    throw new ImageEncoderException("Failed to create directory: " + parentFile.getAbsolutePath());
-                }
+        ImageEncoderHelpers.writeImage(image, target, "png", param -> {
+            if (param.canWriteCompressed()) {
+                // the PNG writer maps the compression quality linearly to the deflate level
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(1.0f - compressionLevel / 9.0f);
             }
-            boolean result = ImageIO.write(image, fileExtensionUpperCase, target);
-            if (!result) {
-                throw new ImageEncoderException("The given " + fileExtensionUpperCase + " format is not supported.");
-            }
-        } catch (IOException ex) {
-            throw new ImageEncoderException("Error while saving the image to " + fileExtensionUpperCase + " format.", ex);
-        }
+        });
     }
 
     /**
@@ -63,7 +75,15 @@ public class ImageEncoderPNG implements ImageEncoder {
     public JSONObject toJSON() {
         JSONObject json = new JSONObject();
         json.put("type", getClass().getSimpleName());
+        json.put("compressionLevel", compressionLevel);
         json.put("fileExtension", getFileExtension());
         return json;
     }
-}
\ No newline at end of file
+
+    @Override
+    public void hashInto(MessageDigest digest) {
+        ImageUtils.hashString(digest, getClass().getSimpleName());
+        ImageUtils.hashInt(digest, compressionLevel);
+        ImageUtils.hashString(digest, getFileExtension());
+    }
+}
@@ -0,0 +1,28 @@
+package one.jpro.platform.image.manager.encoder;
+
+/**
+ * Service provider interface for image encoders. Implementations are discovered with the
+ * {@link java.util.ServiceLoader} by the {@link ImageEncoderRegistry}, so additional encoders can be
+ * plugged in by adding them to the class path or module path. On the class path, providers are registered
+ * in a {@code META-INF/services/one.jpro.platform.image.manager.encoder.ImageEncoderProvider} file,
+ * on the module path with a {@code provides} clause in the module descriptor.
+ *
+ * @author Florian Kirmaier
+ * @see ImageEncoderRegistry
+ */
+public interface ImageEncoderProvider {
+
+    /**
+     * Returns the file extension of the images encoded by the provided encoder, for example {@code "webp"}.
+     *
+     * @return The file extension as a string.
+     */
+    String getFileExtension();
+
+    /**
+     * Creates an encoder with its default settings.
+     *
+     * @return The image encoder.
+     */
+    ImageEncoder createEncoder();
+}
@@ -0,0 +1,82 @@
+package one.jpro.platform.image.manager.encoder;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * A registry of the available image encoders, looked up by file extension. The built-in
+ * {@link ImageEncoderPNG PNG} and {@link ImageEncoderJPG JPG} encoders are always available,
+ * additional encoders are discovered once through the {@link ImageEncoderProvider} service.
+ * A discovered provider takes precedence over a built-in encoder with the same file extension.
+ *
+ * @author Florian Kirmaier
+ * @see ImageEncoderProvider
+ */
+public final class ImageEncoderRegistry {
+
+    private static volatile Map<String, Supplier<ImageEncoder>> encoders;
+
+    private ImageEncoderRegistry() {
+    }
+
+    /**
+     * Creates an encoder with its default settings for the given file extension.
+     *
+     * @param fileExtension The file extension, for example {@code "png"}. The case is ignored.
+     * @return The image encoder.
+     * @throws ImageEncoderException If no encoder is available for the file extension.
+     */
+    public static ImageEncoder getEncoder(String fileExtension) {
+        Supplier<ImageEncoder> supplier = getEncoders().get(normalize(fileExtension));
+        if (supplier == null) {
+            throw new ImageEncoderException("No image encoder available for file extension: " + fileExtension);
+        }
+        return supplier.get();
+    }
+
+    /**
+     * Returns whether an encoder is available for the given file extension.
+     *
+     * @param fileExtension The file extension, for example {@code "png"}. The case is ignored.
+     * @return {@code true} if an encoder is available, otherwise {@code false}.
+     */
+    public static boolean isSupported(String fileExtension) {
+        return getEncoders().containsKey(normalize(fileExtension));
+    }
+
+    /**
+     * Returns the file extensions of all available encoders.
+     *
+     * @return The file extensions in lower case.
+     */
+    public static Set<String> getFileExtensions() {
+        return Collections.unmodifiableSet(getEncoders().keySet());
+    }
+
+    private static Map<String, Supplier<ImageEncoder>> getEncoders() {
+        if (encoders == null) {
+            synchronized (ImageEncoderRegistry.class) {
+                if (encoders == null) {
+                    Map<String, Supplier<ImageEncoder>> result = new TreeMap<>();
+                    result.put("png", ImageEncoderPNG::new);
+                    result.put("jpg", ImageEncoderJPG::new);
+                    result.put("jpeg", ImageEncoderJPG::new);
+                    for (ImageEncoderProvider provider : ServiceLoader.load(ImageEncoderProvider.class)) {
+                        result.put(normalize(provider.getFileExtension()), provider::createEncoder);
+                    }
+                    encoders = result;
+                }
+            }
+        }
+        return encoders;
+    }
+
+    private static String normalize(String fileExtension) {
+        return fileExtension.toLowerCase(Locale.ROOT);
+    }
+}
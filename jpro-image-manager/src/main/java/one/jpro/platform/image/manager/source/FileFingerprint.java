@@ -0,0 +1,47 @@
+package one.jpro.platform.image.manager.source;
+
+import one.jpro.platform.image.manager.ImageUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * A cheap, metadata-based fingerprint (size, modification time and file key) of an image source file,
+ * so the file doesn't need to be read each time an image definition is hashed. Reading the fingerprint
+ * costs a single {@code stat} call, so a changed file is detected right away.
+ *
+ * @param path         the absolute path of the file
+ * @param size         the size of the file in bytes
+ * @param lastModified the last modification time in milliseconds
+ * @param fileKey      the file key (for example the inode), or {@code null} if not available
+ * @param hashValue    a hash value identifying the current version of the file
+ * @author Florian Kirmaier
+ */
+record FileFingerprint(Path path, long size, long lastModified, Object fileKey, long hashValue) {
+
+    FileFingerprint(Path path, long size, long lastModified, Object fileKey) {
+        this(path, size, lastModified, fileKey, ImageUtils.computeHashValue(
+                (path + "|" + size + "|" + lastModified + "|" + fileKey).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Reads the fingerprint of the given file.
+     *
+     * @param file the file
+     * @return the fingerprint of the file
+     */
+    static FileFingerprint of(Path file) {
+        final Path path = file.toAbsolutePath().normalize();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new FileFingerprint(path, attributes.size(), attributes.lastModifiedTime().toMillis(),
+                    attributes.fileKey());
+        } catch (IOException ex) {
+            // same values as File.length() and File.lastModified() return for a missing file
+            return new FileFingerprint(path, 0L, 0L, null);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package one.jpro.platform.image.manager.source;
 
-import one.jpro.platform.image.manager.JsonConvertible;
+import one.jpro.platform.image.manager.DigestHashable;
+import one.jpro.platform.image.manager.transformer.ImageTransformer;
 
 import java.awt.image.BufferedImage;
 
@@ -8,9 +9,9 @@ import java.awt.image.BufferedImage;
  * The ImageSource interface represents a source of images that can be loaded and manipulated.
  *
  * @author Florian Kirmaier
- * @see JsonConvertible
+ * @see DigestHashable
  */
-public interface ImageSource extends JsonConvertible {
+public interface ImageSource extends DigestHashable {
 
     /**
      * Loads an image and returns it as BufferedImage.
@@ -19,6 +20,21 @@ public interface ImageSource extends JsonConvertible {
      */
     BufferedImage loadImage();
 
+    /**
+     * Loads an image that will be transformed by the given transformer and returns it as BufferedImage.
+     * Implementations may use the target size of the transformer to decode the image at the smallest
+     * resolution that is still sufficient for the transformation, which saves memory and decoding time
+     * when large images are scaled down. The default implementation ignores the transformer
+     * and delegates to {@link #loadImage()}.
+     *
+     * @param transformer The transformer that will be applied to the loaded image.
+     * @return The loaded image as a BufferedImage object.
+     * @see ImageTransformer#getTargetSize(int, int)
+     */
+    default BufferedImage loadImage(ImageTransformer transformer) {
+        return loadImage();
+    }
+
     /**
      * Returns the identity hash code associated with this image source.
      *
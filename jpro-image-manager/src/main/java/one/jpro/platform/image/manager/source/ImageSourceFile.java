@@ -1,18 +1,22 @@
 package one.jpro.platform.image.manager.source;
 
 import one.jpro.platform.image.manager.ImageUtils;
+import one.jpro.platform.image.manager.transformer.ImageTransformer;
 import org.json.JSONObject;
 
 import java.awt.image.BufferedImage;
 import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
 import java.io.File;
-import java.nio.file.Files;
 import java.io.IOException;
+import java.security.MessageDigest;
 
 /**
  * Represents an image source based on a file.
  * This class is used to load images from local files and perform various operations
  * related to the image file, such as computing a hash value and converting its details to JSON.
+ * The hash value and the modification date are derived from the file metadata (size, modification time
+ * and file key), which costs a single {@code stat} call instead of reading the whole file.
  *
  * @author Florian Kirmaier
  * @author Besmir Beqiri
@@ -50,15 +54,19 @@ public class ImageSourceFile implements ImageSource {
     }
 
     @Override
-    public long identityHashValue() {
-        try {
-            byte[] fileBytes = Files.readAllBytes(file.toPath());
-            return ImageUtils.computeHashValue(fileBytes);
+    public BufferedImage loadImage(ImageTransformer transformer) {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(file)) {
+            return ImageSourceHelpers.readImage(stream, transformer);
         } catch (IOException ex) {
-            throw new ImageSourceException("Failed to compute hash value for the file: " + file.getAbsolutePath(), ex);
+            throw new ImageSourceException("Failed to load image from file: " + file.getAbsolutePath(), ex);
         }
     }
 
+    @Override
+    public long identityHashValue() {
+        return FileFingerprint.of(file.toPath()).hashValue();
+    }
+
     @Override
     public String getFileName() {
         return file.getName();
@@ -69,7 +77,14 @@ public class ImageSourceFile implements ImageSource {
         JSONObject json = new JSONObject();
         json.put("type", getClass().getSimpleName());
         json.put("path", ImageUtils.escapeJson(file.getAbsolutePath()));
-        json.put("modified", file.lastModified());
+        json.put("modified", FileFingerprint.of(file.toPath()).lastModified());
         return json;
     }
+
+    @Override
+    public void hashInto(MessageDigest digest) {
+        ImageUtils.hashString(digest, getClass().getSimpleName());
+        // the fingerprint covers the path, size, modification time and file key
+        ImageUtils.hashLong(digest, FileFingerprint.of(file.toPath()).hashValue());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+package one.jpro.platform.image.manager.source;
+
+import one.jpro.platform.image.manager.transformer.ImageTransformer;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Provides helper methods for image source implementations.
+ *
+ * @author Florian Kirmaier
+ */
+public class ImageSourceHelpers {
+
+    /**
+     * The decoded image is kept at least this many times larger than the target size of the transformation,
+     * because subsampling simply skips pixels and the transformer needs enough pixels left to filter
+     * the image without visible aliasing.
+     */
+    private static final int SUBSAMPLING_QUALITY_FACTOR = 2;
+
+    private static final String TILING_THRESHOLD_NAME = "jpro.imagemanager.tiling.threshold";
+    private static final String TILE_SIZE_NAME = "jpro.imagemanager.tiling.tileSize";
+
+    /**
+     * Images with more decoded pixels than this are decoded and downscaled tile by tile.
+     */
+    private static final long TILING_THRESHOLD = Long.getLong(TILING_THRESHOLD_NAME, 4096L * 4096);
+
+    /**
+     * The maximum number of decoded pixels per tile.
+     */
+    private static final long TILE_SIZE = Long.getLong(TILE_SIZE_NAME, 1024L * 1024);
+
+    /**
+     * Decodes the image from the given stream at the smallest resolution that is still sufficient
+     * for the given transformer. The image dimensions are read from the image header first,
+     * then the image is decoded using source subsampling, so pixels that would be thrown away
+     * by the downscaling transformation are never decoded.
+     * <p>
+     * If the subsampled image is still larger than 4096x4096 pixels (or the {@code jpro.imagemanager.tiling.threshold}
+     * system property) and the format stores the image in tiles, it is decoded in tiles of about one million pixels
+     * (or the {@code jpro.imagemanager.tiling.tileSize} system property) and every tile is downscaled to the target size
+     * of the transformer right away, so the whole source image is never held in memory. Other formats, like PNG or
+     * baseline JPEG, can't seek to a region and would be decoded again from the start for every tile, so they are
+     * decoded in a single read with the subsampling of the transformation, which keeps the decoded image at least
+     * twice as large as the target size, so the transformer can filter it without aliasing.
+     *
+     * @param stream      The stream to read the image from.
+     * @param transformer The transformer that will be applied to the decoded image, or {@code null}
+     *                    to decode the image at full resolution.
+     * @return The decoded image, or {@code null} if no registered reader can decode the stream.
+     * @throws IOException If an error occurs while reading the stream.
+     */
+    public static BufferedImage readImage(ImageInputStream stream, ImageTransformer transformer) throws IOException {
+        return readImage(stream, transformer, TILING_THRESHOLD, TILE_SIZE);
+    }
+
+    static BufferedImage readImage(ImageInputStream stream, ImageTransformer transformer, long tilingThreshold,
+                                   long tileSize) throws IOException {
+        if (stream == null) {
+            throw new IOException("Cannot create an image input stream.");
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+        if (!readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(stream, true, true);
+            ImageReadParam param = reader.getDefaultReadParam();
+            if (transformer != null) {
+                final int sourceWidth = reader.getWidth(0);
+                final int sourceHeight = reader.getHeight(0);
+                final int subsampling = computeSubsampling(sourceWidth, sourceHeight, transformer);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                Dimension targetSize = getTiledTargetSize(sourceWidth, sourceHeight, subsampling, transformer,
+                        tilingThreshold);
+                if (targetSize != null && reader.isImageTiled(0)) {
+                    return TiledImageDecoder.decode(reader, param, targetSize, tileSize);
+                }
+            }
+            return reader.read(0, param);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * Computes the largest subsampling factor for which the decoded image is still at least
+     * {@link #SUBSAMPLING_QUALITY_FACTOR} times larger than the target size of the transformation.
+     *
+     * @param sourceWidth  The width of the source image in pixels.
+     * @param sourceHeight The height of the source image in pixels.
+     * @param transformer  The transformer that will be applied to the decoded image.
+     * @return The subsampling factor, {@code 1} means no subsampling.
+     */
+    static int computeSubsampling(int sourceWidth, int sourceHeight, ImageTransformer transformer) {
+        Dimension targetSize = transformer.getTargetSize(sourceWidth, sourceHeight);
+        if (targetSize == null || targetSize.width <= 0 || targetSize.height <= 0) {
+            return 1;
+        }
+        int subsamplingX = sourceWidth / (targetSize.width * SUBSAMPLING_QUALITY_FACTOR);
+        int subsamplingY = sourceHeight / (targetSize.height * SUBSAMPLING_QUALITY_FACTOR);
+        return Math.max(1, Math.min(subsamplingX, subsamplingY));
+    }
+
+    /**
+     * Returns the size the image should be downscaled to while it is decoded tile by tile, or {@code null}
+     * if the image should be decoded as a whole, because it is small enough or the transformer doesn't downscale it.
+     *
+     * @param sourceWidth  The width of the source image in pixels.
+     * @param sourceHeight The height of the source image in pixels.
+     * @param subsampling  The subsampling factor used for decoding.
+     * @param transformer  The transformer that will be applied to the decoded image.
+     * @param threshold    The number of decoded pixels above which the image is decoded tile by tile.
+     * @return The target size or {@code null}.
+     */
+    static Dimension getTiledTargetSize(int sourceWidth, int sourceHeight, int subsampling,
+                                        ImageTransformer transformer, long threshold) {
+        final long decodedWidth = (sourceWidth + subsampling - 1) / subsampling;
+        final long decodedHeight = (sourceHeight + subsampling - 1) / subsampling;
+        if (decodedWidth * decodedHeight <= threshold) {
+            return null;
+        }
+        Dimension targetSize = transformer.getTargetSize(sourceWidth, sourceHeight);
+        if (targetSize == null || targetSize.width <= 0 || targetSize.height <= 0
+                || targetSize.width > decodedWidth || targetSize.height > decodedHeight) {
+            return null;
+        }
+        return targetSize;
+    }
+}
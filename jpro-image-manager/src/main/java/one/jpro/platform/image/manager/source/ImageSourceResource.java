@@ -1,15 +1,21 @@
 package one.jpro.platform.image.manager.source;
 
 import one.jpro.platform.image.manager.ImageUtils;
+import one.jpro.platform.image.manager.transformer.ImageTransformer;
 import org.json.JSONObject;
 
 import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URL;
 import java.net.URLConnection;
-import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class provides an implementation of the ImageSource interface
@@ -21,6 +27,10 @@ import java.nio.file.Paths;
  */
 public class ImageSourceResource implements ImageSource {
 
+    private static final Map<String, URL> resourceUrls = new ConcurrentHashMap<>();
+    private static final Map<String, Long> lastModifiedDates = new ConcurrentHashMap<>();
+    private static final Map<String, Long> identityHashes = new ConcurrentHashMap<>();
+
     private final String resourcePath;
 
     /**
@@ -44,18 +54,39 @@ public class ImageSourceResource implements ImageSource {
         }
     }
 
+    @Override
+    public BufferedImage loadImage(ImageTransformer transformer) {
+        try (InputStream is = getClass().getResourceAsStream(resourcePath)) {
+            if (is == null) {
+                throw new ImageSourceException("Resource not found: " + resourcePath);
+            }
+            try (ImageInputStream stream = ImageIO.createImageInputStream(is)) {
+                return ImageSourceHelpers.readImage(stream, transformer);
+            }
+        } catch (Exception e) {
+            throw new ImageSourceException("Error loading resource: " + resourcePath, e);
+        }
+    }
+
     @Override
     public long identityHashValue() {
         try {
-            URL resourceUrl = getClass().getResource(resourcePath);
+            URL resourceUrl = getResourceUrl();
             if (resourceUrl == null) {
                 throw new ImageSourceException("Resource not found: " + resourcePath);
             }
-            URLConnection conn = resourceUrl.openConnection();
-            long lastModified = conn.getLastModified();
+            if (isFile(resourceUrl)) {
+                return FileFingerprint.of(Paths.get(resourceUrl.toURI())).hashValue();
+            }
+            long lastModified = getLastModified(resourceUrl);
             if (lastModified == 0) { // fallback to binary data hash
-                byte[] resourceData = Files.readAllBytes(Paths.get(resourceUrl.toURI()));
-                return ImageUtils.computeHashValue(resourceData);
+                return identityHashes.computeIfAbsent(resourcePath, path -> {
+                    try (InputStream is = resourceUrl.openStream()) {
+                        return ImageUtils.computeHashValue(is.readAllBytes());
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
             }
             return lastModified;
         } catch (Exception ex) {
@@ -71,11 +102,9 @@ public class ImageSourceResource implements ImageSource {
         // get last modified date
         // It's important, so the images get recreated, when the files in the jar are updated
         try {
-            URL resourceUrl = getClass().getResource(resourcePath);
+            URL resourceUrl = getResourceUrl();
             if (resourceUrl != null) {
-                // we don't access any stream here, so we don't need to close it
-                URLConnection conn = resourceUrl.openConnection();
-                json.put("modified", conn.getLastModified());
+                json.put("modified", getLastModified(resourceUrl));
             }
         } catch (Exception ex) {
             throw new RuntimeException("Error obtaining modification date for resource: " + resourcePath, ex);
@@ -83,6 +112,63 @@ public class ImageSourceResource implements ImageSource {
         return json;
     }
 
+    @Override
+    public void hashInto(MessageDigest digest) {
+        ImageUtils.hashString(digest, getClass().getSimpleName());
+        ImageUtils.hashString(digest, resourcePath);
+        // the modification date is included, so the images get recreated when the resources are updated
+        try {
+            URL resourceUrl = getResourceUrl();
+            ImageUtils.hashLong(digest, resourceUrl == null ? -1 : getLastModified(resourceUrl));
+        } catch (Exception ex) {
+            throw new ImageSourceException("Error obtaining modification date for resource: " + resourcePath, ex);
+        }
+    }
+
+    /**
+     * Returns the URL of the resource. Found resources are memoized, since their location doesn't change.
+     *
+     * @return the resource URL or {@code null} if the resource doesn't exist
+     */
+    private URL getResourceUrl() {
+        URL resourceUrl = resourceUrls.get(resourcePath);
+        if (resourceUrl == null) {
+            resourceUrl = getClass().getResource(resourcePath);
+            if (resourceUrl != null) {
+                resourceUrls.put(resourcePath, resourceUrl);
+            }
+        }
+        return resourceUrl;
+    }
+
+    /**
+     * Returns the modification date of the resource. Resources on the file system, for example when running
+     * from an IDE, are tracked through their file fingerprint. Resources inside a jar file don't change
+     * while the application is running, so their modification date is only read once.
+     *
+     * @param resourceUrl the resource URL
+     * @return the modification date in milliseconds, or {@code 0} if unknown
+     * @throws Exception if the modification date can't be obtained
+     */
+    private long getLastModified(URL resourceUrl) throws Exception {
+        if (isFile(resourceUrl)) {
+            return FileFingerprint.of(Paths.get(resourceUrl.toURI())).lastModified();
+        }
+        return lastModifiedDates.computeIfAbsent(resourcePath, path -> {
+            try {
+                // we don't access any stream here, so we don't need to close it
+                URLConnection conn = resourceUrl.openConnection();
+                return conn.getLastModified();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    private static boolean isFile(URL url) {
+        return "file".equals(url.getProtocol());
+    }
+
     @Override
     public String getFileName() {
         return resourcePath.substring(resourcePath.lastIndexOf('/') + 1);
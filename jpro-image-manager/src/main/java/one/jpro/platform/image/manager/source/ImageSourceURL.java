@@ -1,17 +1,30 @@
 package one.jpro.platform.image.manager.source;
 
 import one.jpro.platform.image.manager.ImageUtils;
+import one.jpro.platform.image.manager.transformer.ImageTransformer;
 import org.json.JSONObject;
 
 import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class provides an implementation of the ImageSource interface
  * for an image source fetched from a given URL.
+ * <p>
+ * Images from {@code http} and {@code https} URLs are fetched with a {@link RemoteImageFetcher},
+ * which keeps the original bytes on disk and revalidates them with conditional requests.
+ * Other URLs (for example {@code file} or {@code jar} URLs) are read directly.
  *
  * @author Florian Kirmaier
  * @author Besmir Beqiri
@@ -19,37 +32,118 @@ import java.net.URLConnection;
  */
 public class ImageSourceURL implements ImageSource {
 
+    /**
+     * How long a computed version is reused before the remote server is contacted again.
+     */
+    private static final Duration VERSION_TTL = Duration.ofMinutes(5);
+    private static final Map<String, Version> versions = new ConcurrentHashMap<>();
+
     private final URL url;
+    private final RemoteImageFetcher fetcher;
 
+    /**
+     * Creates an image source for the given URL, using the {@link RemoteImageFetcher#getDefault() default}
+     * fetcher for remote images.
+     *
+     * @param url The URL of the image.
+     */
     public ImageSourceURL(URL url) {
+        this(url, RemoteImageFetcher.getDefault());
+    }
+
+    /**
+     * Creates an image source for the given URL, using the given fetcher for remote images.
+     *
+     * @param url     The URL of the image.
+     * @param fetcher The fetcher used for {@code http} and {@code https} URLs.
+     */
+    public ImageSourceURL(URL url, RemoteImageFetcher fetcher) {
         this.url = url;
+        this.fetcher = fetcher;
     }
 
     @Override
     public BufferedImage loadImage() {
-        try {
-            return ImageIO.read(url);
+        return loadImage(null);
+    }
+
+    @Override
+    public BufferedImage loadImage(ImageTransformer transformer) {
+        try (InputStream is = isRemote() ? Files.newInputStream(fetch().file()) : url.openStream();
+             ImageInputStream stream = ImageIO.createImageInputStream(is)) {
+            return ImageSourceHelpers.readImage(stream, transformer);
         } catch (IOException ex) {
             throw new ImageSourceException("Error while reading image from URL: " + url, ex);
         }
     }
 
+    /**
+     * Returns the identity hash value, derived from the URL and the {@link #getVersion() version} of the image.
+     *
+     * @return The identity hash value corresponding to this object.
+     */
     @Override
     public long identityHashValue() {
-        try {
-            // First, get the modification date.
-            URLConnection connection = url.openConnection();
-            long lastModified = connection.getLastModified();
-
-            // Combine the URL and modification date to generate the hash.
-            String combined = url.toString() + lastModified;
-            return ImageUtils.computeHashValue(combined.getBytes());
+        // Combine the URL and version to generate the hash.
+        String combined = url.toString() + getVersion();
+        return ImageUtils.computeHashValue(combined.getBytes());
+    }
 
+    /**
+     * Returns the version of the image: the validators ({@code ETag} or {@code Last-Modified}) of a remote image,
+     * or the modification date of other URLs. The value is memoized for five minutes, so the remote server is not
+     * contacted each time the source is hashed.
+     *
+     * @return The version of the image.
+     */
+    private String getVersion() {
+        final String key = url.toString();
+        final long now = System.currentTimeMillis();
+        Version version = versions.get(key);
+        if (version != null && version.expires() > now) {
+            return version.value();
+        }
+        try {
+            final String value;
+            if (isRemote()) {
+                // The fetched bytes are kept, so loading the image afterward only needs a revalidation.
+                RemoteImageFetcher.RemoteImage remoteImage = fetch();
+                if (remoteImage.etag() != null || remoteImage.lastModified() != null) {
+                    value = remoteImage.etag() + "|" + remoteImage.lastModified();
+                } else {
+                    value = Long.toString(ImageUtils.computeHashValue(Files.readAllBytes(remoteImage.file())));
+                }
+            } else {
+                URLConnection connection = url.openConnection();
+                value = Long.toString(connection.getLastModified());
+            }
+            versions.put(key, new Version(value, now + VERSION_TTL.toMillis()));
+            return value;
         } catch (IOException e) {
             throw new ImageSourceException("Error while getting modification date for URL: " + url, e);
         }
     }
 
+    /**
+     * Expires all memoized versions, so the next hash contacts the remote servers again.
+     */
+    static void expireVersions() {
+        versions.clear();
+    }
+
+    private boolean isRemote() {
+        final String protocol = url.getProtocol();
+        return "http".equalsIgnoreCase(protocol) || "https".equalsIgnoreCase(protocol);
+    }
+
+    private RemoteImageFetcher.RemoteImage fetch() {
+        try {
+            return fetcher.fetch(url.toURI());
+        } catch (URISyntaxException ex) {
+            throw new ImageSourceException("Invalid image URL: " + url, ex);
+        }
+    }
+
     @Override
     public JSONObject toJSON() {
         JSONObject json = new JSONObject();
@@ -62,4 +156,14 @@ public class ImageSourceURL implements ImageSource {
     public String getFileName() {
         return url.toString().substring(url.toString().lastIndexOf('/') + 1);
     }
+
+    private record Version(String value, long expires) {
+    }
+
+    @Override
+    public void hashInto(MessageDigest digest) {
+        ImageUtils.hashString(digest, getClass().getSimpleName());
+        ImageUtils.hashString(digest, url.toString());
+        ImageUtils.hashString(digest, getVersion());
+    }
 }
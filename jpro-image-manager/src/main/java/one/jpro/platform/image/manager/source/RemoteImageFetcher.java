@@ -0,0 +1,420 @@
+package one.jpro.platform.image.manager.source;
+
+import one.jpro.platform.image.manager.ImageUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.*;
+
+/**
+ * Fetches remote images over HTTP(S) and stores the original bytes together with their HTTP validators
+ * ({@code ETag} and {@code Last-Modified}) in a local directory. Subsequent fetches of the same URL
+ * are sent as conditional requests ({@code If-None-Match} / {@code If-Modified-Since}), so an unchanged
+ * image only costs a {@code 304 Not Modified} response instead of a full download.
+ * <p>
+ * All requests share one {@link HttpClient}, which reuses connections, and are subject to a connect
+ * timeout, a request timeout and a maximum download size. The request timeout covers the whole exchange,
+ * including the download of the body, so a stalled server can't block a loader thread forever.
+ * <p>
+ * The stored images are limited to a maximum total size. When it is exceeded, the least recently
+ * fetched images are deleted, until the stored images take up less than 90% of the maximum size.
+ *
+ * @author Florian Kirmaier
+ * @see ImageSourceURL
+ */
+public class RemoteImageFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteImageFetcher.class);
+
+    private static final String CACHE_DIR_NAME = "jpro.imagemanager.cache";
+    private static final String CACHE_DIR_HOME = System.getProperty("user.home") + "/.jpro" + "/image-manager";
+    private static final String REMOTE_DIR_NAME = "remote";
+    private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final long DEFAULT_MAX_DOWNLOAD_SIZE = 50L * 1024 * 1024;
+    private static final String MAX_STORAGE_SIZE_NAME = "jpro.imagemanager.remote.maxSize";
+    private static final long DEFAULT_MAX_STORAGE_SIZE = 1024L * 1024 * 1024;
+    private static final double EVICTION_TARGET_RATIO = 0.9;
+    private static final String DATA_FILE_SUFFIX = ".data";
+    private static final String METADATA_FILE_SUFFIX = ".properties";
+    private static volatile RemoteImageFetcher defaultInstance;
+
+    private final Path directory;
+    private final Duration requestTimeout;
+    private final long maxDownloadSize;
+    private final HttpClient httpClient;
+    private final Map<String, RemoteImage> remoteImages = new ConcurrentHashMap<>();
+    private volatile long maxStorageSize = DEFAULT_MAX_STORAGE_SIZE;
+
+    /**
+     * Creates a fetcher that stores the downloaded images in the given directory.
+     *
+     * @param directory       The directory to store the downloaded images in.
+     * @param connectTimeout  The maximum time to wait for a connection to be established.
+     * @param requestTimeout  The maximum time to wait for a response, including its body.
+     * @param maxDownloadSize The maximum size of a downloaded image in bytes.
+     */
+    public RemoteImageFetcher(Path directory, Duration connectTimeout, Duration requestTimeout, long maxDownloadSize) {
+        if (maxDownloadSize <= 0) {
+            throw new IllegalArgumentException("Max download size must be positive.");
+        }
+        this.directory = directory;
+        this.requestTimeout = requestTimeout;
+        this.maxDownloadSize = maxDownloadSize;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * Returns the default fetcher, which stores the downloaded images in the {@code remote} directory
+     * of the image manager cache and uses a connect timeout of 10 seconds, a request timeout of
+     * 30 seconds and a maximum download size of 50 MB. The stored images are limited to 1 GB,
+     * unless the {@code jpro.imagemanager.remote.maxSize} system property is set.
+     *
+     * @return the default fetcher
+     */
+    public static RemoteImageFetcher getDefault() {
+        if (defaultInstance == null) {
+            synchronized (RemoteImageFetcher.class) {
+                if (defaultInstance == null) {
+                    final String cacheDir = System.getProperty(CACHE_DIR_NAME, CACHE_DIR_HOME);
+                    RemoteImageFetcher fetcher = new RemoteImageFetcher(Paths.get(cacheDir, REMOTE_DIR_NAME),
+                            DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT, DEFAULT_MAX_DOWNLOAD_SIZE);
+                    fetcher.setMaxStorageSize(Long.getLong(MAX_STORAGE_SIZE_NAME, DEFAULT_MAX_STORAGE_SIZE));
+                    defaultInstance = fetcher;
+                }
+            }
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * Returns the maximum total size of the stored images.
+     *
+     * @return the maximum storage size in bytes
+     */
+    public long getMaxStorageSize() {
+        return maxStorageSize;
+    }
+
+    /**
+     * Sets the maximum total size of the stored images. When it is exceeded after a download,
+     * the least recently fetched images are deleted.
+     *
+     * @param maxStorageSize the maximum storage size in bytes
+     * @throws IllegalArgumentException if the given size is not positive
+     */
+    public void setMaxStorageSize(long maxStorageSize) {
+        if (maxStorageSize <= 0) {
+            throw new IllegalArgumentException("Max storage size must be positive.");
+        }
+        this.maxStorageSize = maxStorageSize;
+    }
+
+    /**
+     * Fetches the image at the given URI. If the image has been fetched before, a conditional request
+     * is sent and the stored image is returned when the server reports it as not modified.
+     *
+     * @param uri The URI of the image, using the {@code http} or {@code https} scheme.
+     * @return The fetched remote image.
+     * @throws ImageSourceException If the image can't be fetched or exceeds the maximum download size.
+     */
+    public RemoteImage fetch(URI uri) {
+        final String key = uri.toString();
+        final RemoteImage stored = getStored(key);
+
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri).timeout(requestTimeout).GET();
+        if (stored != null) {
+            if (stored.etag() != null) {
+                requestBuilder.header("If-None-Match", stored.etag());
+            }
+            if (stored.lastModified() != null) {
+                requestBuilder.header("If-Modified-Since", stored.lastModified());
+            }
+        }
+
+        Path tempFile = null;
+        try {
+            Files.createDirectories(directory);
+            tempFile = Files.createTempFile(directory, "download", ".tmp");
+            final Path downloadFile = tempFile;
+            CompletableFuture<HttpResponse<Path>> future = httpClient.sendAsync(requestBuilder.build(),
+                    responseInfo -> responseInfo.statusCode() == 200
+                            ? new LimitedBodySubscriber(HttpResponse.BodySubscribers.ofFile(downloadFile),
+                            responseInfo.headers().firstValueAsLong("Content-Length").orElse(-1), uri)
+                            : HttpResponse.BodySubscribers.replacing(null));
+            HttpResponse<Path> response;
+            try {
+                response = future.get(requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ex) {
+                future.cancel(true);
+                throw new ImageSourceException("Timed out after " + requestTimeout
+                        + " while fetching image from: " + uri, ex);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof ImageSourceException imageSourceException) {
+                    throw imageSourceException;
+                }
+                throw new ImageSourceException("Error while fetching image from: " + uri, ex.getCause());
+            }
+
+            if (response.statusCode() == 304 && stored != null) {
+                logger.debug("Remote image not modified: {}", uri);
+                touch(stored.file());
+                return stored;
+            }
+            if (response.statusCode() != 200) {
+                throw new ImageSourceException("Unexpected HTTP status " + response.statusCode()
+                        + " while fetching image from: " + uri);
+            }
+            RemoteImage remoteImage = new RemoteImage(getDataFile(key),
+                    response.headers().firstValue("ETag").orElse(null),
+                    response.headers().firstValue("Last-Modified").orElse(null));
+            store(key, tempFile, remoteImage);
+            evictIfNeeded();
+            return remoteImage;
+        } catch (IOException ex) {
+            throw new ImageSourceException("Error while fetching image from: " + uri, ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ImageSourceException("Interrupted while fetching image from: " + uri, ex);
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ex) {
+                    logger.warn("Could not delete temporary download file: {}", tempFile, ex);
+                }
+            }
+        }
+    }
+
+    private RemoteImage getStored(String key) {
+        RemoteImage remoteImage = remoteImages.get(key);
+        if (remoteImage == null) {
+            remoteImage = loadMetadata(key);
+            if (remoteImage != null) {
+                remoteImages.put(key, remoteImage);
+            }
+        }
+        return remoteImage != null && Files.exists(remoteImage.file()) ? remoteImage : null;
+    }
+
+    private RemoteImage loadMetadata(String key) {
+        final Path metadataFile = getMetadataFile(key);
+        if (!Files.exists(metadataFile)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(metadataFile, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException ex) {
+            logger.warn("Could not read remote image metadata: {}", metadataFile, ex);
+            return null;
+        }
+        if (!key.equals(properties.getProperty("url"))) {
+            return null;
+        }
+        return new RemoteImage(getDataFile(key), properties.getProperty("etag"), properties.getProperty("lastModified"));
+    }
+
+    private void store(String key, Path downloadFile, RemoteImage remoteImage) throws IOException {
+        moveAtomically(downloadFile, remoteImage.file());
+
+        Properties properties = new Properties();
+        properties.setProperty("url", key);
+        if (remoteImage.etag() != null) {
+            properties.setProperty("etag", remoteImage.etag());
+        }
+        if (remoteImage.lastModified() != null) {
+            properties.setProperty("lastModified", remoteImage.lastModified());
+        }
+        Path tempFile = Files.createTempFile(directory, "metadata", ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+            moveAtomically(tempFile, getMetadataFile(key));
+            remoteImages.put(key, remoteImage);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Marks the stored image as recently fetched, so it is evicted last.
+     */
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ex) {
+            logger.debug("Could not update the modification time of: {}", file, ex);
+        }
+    }
+
+    /**
+     * Deletes the least recently fetched images, if the stored images exceed the maximum storage size.
+     */
+    synchronized void evictIfNeeded() {
+        final List<Path> dataFiles = new ArrayList<>();
+        final Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        long totalSize = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + DATA_FILE_SUFFIX)) {
+            for (Path dataFile : stream) {
+                BasicFileAttributes fileAttributes = Files.readAttributes(dataFile, BasicFileAttributes.class);
+                attributes.put(dataFile, fileAttributes);
+                dataFiles.add(dataFile);
+                totalSize += fileAttributes.size();
+            }
+        } catch (IOException ex) {
+            logger.warn("Could not determine the size of the stored remote images in: {}", directory, ex);
+            return;
+        }
+        if (totalSize <= maxStorageSize) {
+            return;
+        }
+        dataFiles.sort(Comparator.comparing(dataFile -> attributes.get(dataFile).lastModifiedTime()));
+        for (Path dataFile : dataFiles) {
+            if (totalSize <= maxStorageSize * EVICTION_TARGET_RATIO) {
+                break;
+            }
+            final String name = dataFile.getFileName().toString();
+            final Path metadataFile = dataFile.resolveSibling(
+                    name.substring(0, name.length() - DATA_FILE_SUFFIX.length()) + METADATA_FILE_SUFFIX);
+            try {
+                Files.deleteIfExists(metadataFile);
+                Files.deleteIfExists(dataFile);
+                remoteImages.values().removeIf(remoteImage -> remoteImage.file().equals(dataFile));
+                totalSize -= attributes.get(dataFile).size();
+            } catch (IOException ex) {
+                logger.warn("Could not delete stored remote image: {}", dataFile, ex);
+            }
+        }
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private Path getDataFile(String key) {
+        return directory.resolve(hash(key) + DATA_FILE_SUFFIX);
+    }
+
+    private Path getMetadataFile(String key) {
+        return directory.resolve(hash(key) + METADATA_FILE_SUFFIX);
+    }
+
+    private static String hash(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] hashBytes = digest.digest(key.getBytes(StandardCharsets.UTF_8));
+            return ImageUtils.toHexString(hashBytes);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Writes the body to a file and fails as soon as it exceeds the maximum download size,
+     * either announced by the {@code Content-Length} header or while it is downloaded.
+     */
+    private final class LimitedBodySubscriber implements HttpResponse.BodySubscriber<Path> {
+
+        private final HttpResponse.BodySubscriber<Path> delegate;
+        private final long contentLength;
+        private final URI uri;
+        private Flow.Subscription subscription;
+        private long total;
+        private boolean exceeded;
+
+        LimitedBodySubscriber(HttpResponse.BodySubscriber<Path> delegate, long contentLength, URI uri) {
+            this.delegate = delegate;
+            this.contentLength = contentLength;
+            this.uri = uri;
+        }
+
+        @Override
+        public CompletionStage<Path> getBody() {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            delegate.onSubscribe(subscription);
+            if (contentLength > maxDownloadSize) {
+                exceed();
+            }
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            if (exceeded) {
+                return;
+            }
+            for (ByteBuffer item : items) {
+                total += item.remaining();
+            }
+            if (total > maxDownloadSize) {
+                exceed();
+            } else {
+                delegate.onNext(items);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!exceeded) {
+                delegate.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!exceeded) {
+                delegate.onComplete();
+            }
+        }
+
+        private void exceed() {
+            exceeded = true;
+            subscription.cancel();
+            delegate.onError(new ImageSourceException("Image exceeds the maximum download size of "
+                    + maxDownloadSize + " bytes: " + uri));
+        }
+    }
+
+    /**
+     * A remote image stored on the local file system together with its HTTP validators.
+     *
+     * @param file         The file containing the original bytes of the image.
+     * @param etag         The value of the {@code ETag} header, or {@code null} if not provided.
+     * @param lastModified The value of the {@code Last-Modified} header, or {@code null} if not provided.
+     */
+    public record RemoteImage(Path file, String etag, String lastModified) {
+    }
+}
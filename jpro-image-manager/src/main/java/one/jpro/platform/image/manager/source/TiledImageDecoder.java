@@ -0,0 +1,76 @@
+package one.jpro.platform.image.manager.source;
+
+import one.jpro.platform.image.manager.transformer.ImageResampler;
+import one.jpro.platform.image.manager.transformer.ResamplingFilter;
+
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Decodes and downscales very large images tile by tile, so the memory used depends on the tile size
+ * and the target size rather than on the size of the source image. The source is read in horizontal tiles
+ * spanning the full image width via {@link ImageReadParam#setSourceRegion(Rectangle)}, combined with the
+ * source subsampling of the read parameters. Each tile is downscaled horizontally to the target width right away
+ * with the {@link ImageResampler}, which filters every row on its own, so there are no seams between the tiles.
+ * The rows of all tiles are then downscaled vertically to the target height in a single pass.
+ * <p>
+ * Reading a region is only cheap for formats, which store the image in tiles, like tiled TIFF. Formats, which
+ * can't seek, like PNG or baseline JPEG, decode the image from the start for every region, so they should be
+ * decoded in a single read instead.
+ *
+ * @author Florian Kirmaier
+ */
+final class TiledImageDecoder {
+
+    private TiledImageDecoder() {
+    }
+
+    /**
+     * Decodes the first image of the given reader, downscaled to the given target size.
+     *
+     * @param reader     The reader, with its input already set.
+     * @param param      The read parameters, possibly with source subsampling. The source region is replaced.
+     * @param targetSize The target size, which must not be larger than the subsampled source.
+     * @param tilePixels The maximum number of decoded pixels per tile.
+     * @return The downscaled image.
+     * @throws IOException If an error occurs while reading the image.
+     */
+    static BufferedImage decode(ImageReader reader, ImageReadParam param, Dimension targetSize, long tilePixels)
+            throws IOException {
+        final int sourceWidth = reader.getWidth(0);
+        final int sourceHeight = reader.getHeight(0);
+        final int subsampling = param.getSourceXSubsampling();
+        final int decodedWidth = (sourceWidth + subsampling - 1) / subsampling;
+        final int decodedHeight = (sourceHeight + subsampling - 1) / subsampling;
+        int tileHeight = (int) Math.max(1, Math.min(decodedHeight, tilePixels / decodedWidth));
+        if (reader.isImageTiled(0)) {
+            // align the regions to the stored tiles where possible, so fewer stored tiles are decoded twice
+            final int storedTileHeight = Math.max(1, reader.getTileHeight(0) / subsampling);
+            tileHeight = Math.max(storedTileHeight, tileHeight / storedTileHeight * storedTileHeight);
+        }
+
+        // the tiles downscaled to the target width, but still at the decoded height
+        BufferedImage rows = null;
+        int rowsY = 0;
+        for (int decodedY = 0; decodedY < decodedHeight; decodedY += tileHeight) {
+            final int sourceY = decodedY * subsampling;
+            final int regionHeight = Math.min(tileHeight * subsampling, sourceHeight - sourceY);
+            param.setSourceRegion(new Rectangle(0, sourceY, sourceWidth, regionHeight));
+            final BufferedImage tile = reader.read(0, param);
+            final BufferedImage scaledTile = ImageResampler.resample(tile, targetSize.width, tile.getHeight(),
+                    ResamplingFilter.LANCZOS3);
+            if (rows == null) {
+                rows = new BufferedImage(targetSize.width, decodedHeight, scaledTile.getType());
+            }
+            final int height = Math.min(scaledTile.getHeight(), decodedHeight - rowsY);
+            rows.getRaster().setDataElements(0, rowsY, scaledTile.getRaster().createChild(0, 0,
+                    targetSize.width, height, 0, 0, null));
+            rowsY += height;
+        }
+        return ImageResampler.resample(rows, targetSize.width, targetSize.height, ResamplingFilter.LANCZOS3);
+    }
+}
@@ -0,0 +1,319 @@
+package one.jpro.platform.image.manager.transformer;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Resamples images with separable filters, working directly on {@code int[]} rasters.
+ * <p>
+ * The image is first converted to premultiplied ARGB pixels, so transparent pixels don't bleed into their
+ * neighbours. For large downscaling ratios, the image is repeatedly halved with a fast 2x2 box filter, as long
+ * as it stays at least as large as the target, so the final filter pass only needs a few taps per pixel.
+ * The final pass applies the chosen {@link ResamplingFilter} horizontally, then vertically. Large images
+ * are processed in parallel, row by row, using the common {@link ForkJoinPool}.
+ *
+ * @author Florian Kirmaier
+ * @see ResamplingFilter
+ */
+public final class ImageResampler {
+
+    /**
+     * The minimum number of pixels processed by a single fork-join task.
+     */
+    private static final int PARALLEL_THRESHOLD = 64 * 1024;
+
+    private ImageResampler() {
+    }
+
+    /**
+     * Resamples the given image to the given size.
+     *
+     * @param image        The image to resample.
+     * @param targetWidth  The width of the resampled image.
+     * @param targetHeight The height of the resampled image.
+     * @param filter       The filter used for resampling.
+     * @return The resampled image, of type {@link BufferedImage#TYPE_INT_ARGB} if the image has an alpha channel,
+     * otherwise of type {@link BufferedImage#TYPE_INT_RGB}.
+     * @throws IllegalArgumentException If the target size is not positive.
+     */
+    public static BufferedImage resample(BufferedImage image, int targetWidth, int targetHeight,
+                                         ResamplingFilter filter) {
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            throw new IllegalArgumentException("Target size must be positive.");
+        }
+        final boolean hasAlpha = image.getColorModel().hasAlpha();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = null;
+
+        // halve the image while it stays at least as large as the target
+        while (width >= targetWidth * 2 || height >= targetHeight * 2) {
+            final boolean halveX = width >= targetWidth * 2;
+            final boolean halveY = height >= targetHeight * 2;
+            final int halvedWidth = halveX ? (width + 1) / 2 : width;
+            final int halvedHeight = halveY ? (height + 1) / 2 : height;
+            pixels = pixels == null
+                    ? halve(image, halvedWidth, halvedHeight, halveX, halveY)
+                    : halve(pixels, width, height, halvedWidth, halvedHeight, halveX, halveY);
+            width = halvedWidth;
+            height = halvedHeight;
+        }
+        if (pixels == null) {
+            pixels = toPremultipliedArgb(image, 0, height);
+        }
+
+        final float[] horizontal = resampleHorizontally(pixels, width, height, targetWidth, filter);
+        final int[] result = resampleVertically(horizontal, targetWidth, height, targetHeight, filter, hasAlpha);
+
+        final BufferedImage output = new BufferedImage(targetWidth, targetHeight,
+                hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        final int[] outputPixels = ((DataBufferInt) output.getRaster().getDataBuffer()).getData();
+        System.arraycopy(result, 0, outputPixels, 0, result.length);
+        return output;
+    }
+
+    /**
+     * Returns the given rows of the image as premultiplied ARGB pixels.
+     */
+    private static int[] toPremultipliedArgb(BufferedImage image, int fromRow, int toRow) {
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB_PRE && fromRow == 0 && toRow == image.getHeight()
+                && image.getRaster().getParent() == null) {
+            return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+        final BufferedImage premultiplied = new BufferedImage(image.getWidth(), toRow - fromRow,
+                BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2d = premultiplied.createGraphics();
+        g2d.drawImage(image, 0, -fromRow, null);
+        g2d.dispose();
+        return ((DataBufferInt) premultiplied.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Halves the source image, converting it to premultiplied ARGB pixels in strips,
+     * so the whole image is never held as premultiplied ARGB pixels.
+     */
+    private static int[] halve(BufferedImage image, int halvedWidth, int halvedHeight, boolean halveX, boolean halveY) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int[] result = new int[halvedWidth * halvedHeight];
+        parallelRows(halvedHeight, width * (halveY ? 2 : 1), (from, to) -> {
+            final int fromRow = halveY ? 2 * from : from;
+            final int toRow = Math.min(height, halveY ? 2 * to : to);
+            final int[] strip = toPremultipliedArgb(image, fromRow, toRow);
+            halveRows(strip, fromRow, width, toRow, result, from, to, halvedWidth, halveX, halveY);
+        });
+        return result;
+    }
+
+    /**
+     * Halves the image in one or both directions, averaging 2x2 (or 2x1) pixel blocks.
+     */
+    private static int[] halve(int[] pixels, int width, int height, int halvedWidth, int halvedHeight,
+                               boolean halveX, boolean halveY) {
+        final int[] result = new int[halvedWidth * halvedHeight];
+        parallelRows(halvedHeight, width * (halveY ? 2 : 1), (from, to) ->
+                halveRows(pixels, 0, width, height, result, from, to, halvedWidth, halveX, halveY));
+        return result;
+    }
+
+    /**
+     * Computes the given rows of the halved image. The source pixels start at the given row of the source
+     * image, which ends at the given height. For odd sizes, the last row or column is averaged with itself.
+     * The four channels are averaged at once, two channels per {@code int}.
+     */
+    private static void halveRows(int[] pixels, int firstRow, int width, int height, int[] result, int from, int to,
+                                  int halvedWidth, boolean halveX, boolean halveY) {
+        for (int y = from; y < to; y++) {
+            final int y0 = halveY ? 2 * y : y;
+            final int y1 = halveY ? Math.min(y0 + 1, height - 1) : y0;
+            final int row0 = (y0 - firstRow) * width;
+            final int row1 = (y1 - firstRow) * width;
+            for (int x = 0; x < halvedWidth; x++) {
+                final int x0 = halveX ? 2 * x : x;
+                final int x1 = halveX ? Math.min(x0 + 1, width - 1) : x0;
+                final int p00 = pixels[row0 + x0];
+                final int p01 = pixels[row0 + x1];
+                final int p10 = pixels[row1 + x0];
+                final int p11 = pixels[row1 + x1];
+                final int redBlue = (p00 & 0xFF00FF) + (p01 & 0xFF00FF) + (p10 & 0xFF00FF) + (p11 & 0xFF00FF);
+                final int alphaGreen = ((p00 >>> 8) & 0xFF00FF) + ((p01 >>> 8) & 0xFF00FF)
+                        + ((p10 >>> 8) & 0xFF00FF) + ((p11 >>> 8) & 0xFF00FF);
+                result[y * halvedWidth + x] = (((redBlue + 0x20002) >>> 2) & 0xFF00FF)
+                        | ((((alphaGreen + 0x20002) >>> 2) & 0xFF00FF) << 8);
+            }
+        }
+    }
+
+    /**
+     * Resamples every row to the target width. The result holds four premultiplied channels
+     * (alpha, red, green, blue) per pixel.
+     */
+    private static float[] resampleHorizontally(int[] pixels, int width, int height, int targetWidth,
+                                                ResamplingFilter filter) {
+        final Contributions contributions = new Contributions(width, targetWidth, filter);
+        final float[] result = new float[targetWidth * height * 4];
+        parallelRows(height, width, (from, to) -> {
+            for (int y = from; y < to; y++) {
+                final int rowOffset = y * width;
+                for (int x = 0; x < targetWidth; x++) {
+                    final int[] indices = contributions.indices[x];
+                    final float[] weights = contributions.weights[x];
+                    float a = 0, r = 0, g = 0, b = 0;
+                    for (int i = 0; i < weights.length; i++) {
+                        final int argb = pixels[rowOffset + indices[i]];
+                        final float weight = weights[i];
+                        a += ((argb >>> 24) & 0xFF) * weight;
+                        r += ((argb >> 16) & 0xFF) * weight;
+                        g += ((argb >> 8) & 0xFF) * weight;
+                        b += (argb & 0xFF) * weight;
+                    }
+                    final int offset = (y * targetWidth + x) * 4;
+                    result[offset] = a;
+                    result[offset + 1] = r;
+                    result[offset + 2] = g;
+                    result[offset + 3] = b;
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Resamples every column to the target height and converts the pixels back to non-premultiplied ARGB.
+     */
+    private static int[] resampleVertically(float[] pixels, int width, int height, int targetHeight,
+                                            ResamplingFilter filter, boolean hasAlpha) {
+        final Contributions contributions = new Contributions(height, targetHeight, filter);
+        final int[] result = new int[width * targetHeight];
+        parallelRows(targetHeight, width * contributions.maxTaps(), (from, to) -> {
+            final float[] sums = new float[width * 4];
+            for (int y = from; y < to; y++) {
+                Arrays.fill(sums, 0);
+                final int[] indices = contributions.indices[y];
+                final float[] weights = contributions.weights[y];
+                for (int i = 0; i < weights.length; i++) {
+                    final int rowOffset = indices[i] * width * 4;
+                    final float weight = weights[i];
+                    for (int j = 0; j < sums.length; j++) {
+                        sums[j] += pixels[rowOffset + j] * weight;
+                    }
+                }
+                for (int x = 0; x < width; x++) {
+                    result[y * width + x] = toArgb(sums, x * 4, hasAlpha);
+                }
+            }
+        });
+        return result;
+    }
+
+    private static int toArgb(float[] sums, int offset, boolean hasAlpha) {
+        final float alpha = hasAlpha ? clamp(sums[offset], 255) : 255;
+        if (alpha <= 0) {
+            return 0;
+        }
+        // premultiplied color channels can't exceed the alpha value
+        final float scale = 255f / alpha;
+        final int r = Math.round(clamp(sums[offset + 1], alpha) * scale);
+        final int g = Math.round(clamp(sums[offset + 2], alpha) * scale);
+        final int b = Math.round(clamp(sums[offset + 3], alpha) * scale);
+        return (Math.round(alpha) << 24) | (Math.min(255, r) << 16) | (Math.min(255, g) << 8) | Math.min(255, b);
+    }
+
+    private static float clamp(float value, float max) {
+        return Math.max(0, Math.min(max, value));
+    }
+
+    /**
+     * Processes the given number of rows, in parallel if there are enough pixels to process.
+     */
+    private static void parallelRows(int rows, int pixelsPerRow, RowAction action) {
+        final int rowsPerTask = Math.max(1, PARALLEL_THRESHOLD / Math.max(1, pixelsPerRow));
+        if (rows <= rowsPerTask) {
+            action.run(0, rows);
+        } else {
+            ForkJoinPool.commonPool().invoke(new RowTask(0, rows, rowsPerTask, action));
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowAction {
+        void run(int from, int to);
+    }
+
+    private static final class RowTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final int rowsPerTask;
+        private final RowAction action;
+
+        RowTask(int from, int to, int rowsPerTask, RowAction action) {
+            this.from = from;
+            this.to = to;
+            this.rowsPerTask = rowsPerTask;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= rowsPerTask) {
+                action.run(from, to);
+            } else {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new RowTask(from, middle, rowsPerTask, action), new RowTask(middle, to, rowsPerTask, action));
+            }
+        }
+    }
+
+    /**
+     * The normalized filter weights of the source pixels contributing to each target pixel in one dimension.
+     * Source positions outside the image are clamped to the edge.
+     */
+    private static final class Contributions {
+
+        private final int[][] indices;
+        private final float[][] weights;
+
+        Contributions(int sourceSize, int targetSize, ResamplingFilter filter) {
+            this.indices = new int[targetSize][];
+            this.weights = new float[targetSize][];
+            final double scale = (double) targetSize / sourceSize;
+            // when downscaling, the filter is stretched to cover all source pixels
+            final double filterScale = Math.max(1.0, 1.0 / scale);
+            final double support = filter.getSupport() * filterScale;
+            for (int i = 0; i < targetSize; i++) {
+                final double center = (i + 0.5) / scale - 0.5;
+                final int left = (int) Math.ceil(center - support);
+                final int right = (int) Math.floor(center + support);
+                final int[] index = new int[right - left + 1];
+                final float[] w = new float[right - left + 1];
+                double sum = 0;
+                for (int j = left; j <= right; j++) {
+                    final double weight = filter.weight((j - center) / filterScale);
+                    index[j - left] = Math.max(0, Math.min(j, sourceSize - 1));
+                    w[j - left] = (float) weight;
+                    sum += weight;
+                }
+                if (sum != 0) {
+                    for (int j = 0; j < w.length; j++) {
+                        w[j] /= (float) sum;
+                    }
+                }
+                indices[i] = index;
+                weights[i] = w;
+            }
+        }
+
+        int maxTaps() {
+            int max = 0;
+            for (float[] w : weights) {
+                max = Math.max(max, w.length);
+            }
+            return max;
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package one.jpro.platform.image.manager.transformer;
 
-import one.jpro.platform.image.manager.JsonConvertible;
+import one.jpro.platform.image.manager.DigestHashable;
 
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 
 /**
@@ -9,8 +10,9 @@ import java.awt.image.BufferedImage;
  * functionality to apply specific transformations to BufferedImage objects.
  *
  * @author Florian Kirmaier
+ * @see DigestHashable
  */
-public interface ImageTransformer extends JsonConvertible {
+public interface ImageTransformer extends DigestHashable {
 
     /**
      * Transforms the given image according to some specific criteria or logic.
@@ -19,4 +21,19 @@ public interface ImageTransformer extends JsonConvertible {
      * @return A new BufferedImage resulting from the applied transformation.
      */
     BufferedImage transform(BufferedImage image);
+
+    /**
+     * Returns the size of the image this transformer produces for a source image of the given size.
+     * Image sources use this information to decode the source image at the smallest resolution
+     * that is still sufficient for the transformation, instead of decoding it at full resolution.
+     * The default implementation returns {@code null}, which means the target size is unknown
+     * and the source image is always decoded at full resolution.
+     *
+     * @param sourceWidth  The width of the source image in pixels.
+     * @param sourceHeight The height of the source image in pixels.
+     * @return The size of the transformed image, or {@code null} if it is unknown.
+     */
+    default Dimension getTargetSize(int sourceWidth, int sourceHeight) {
+        return null;
+    }
 }
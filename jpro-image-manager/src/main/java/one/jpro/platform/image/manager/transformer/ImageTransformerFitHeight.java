@@ -1,9 +1,11 @@
 package one.jpro.platform.image.manager.transformer;
 
+import one.jpro.platform.image.manager.ImageUtils;
 import org.json.JSONObject;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.security.MessageDigest;
 
 /**
  * This class is responsible for transforming images such that they fit a specified height,
@@ -46,13 +48,14 @@ public class ImageTransformerFitHeight implements ImageTransformer {
      */
     @Override
     public BufferedImage transform(BufferedImage original) {
-        double aspectRatio = (double) original.getWidth() / original.getHeight();
-        int newWidth = (int) (targetHeight * aspectRatio);
-        BufferedImage resized = new BufferedImage(newWidth, targetHeight, original.getType());
-        Graphics2D g2d = resized.createGraphics();
-        ImageTransformerHelpers.graphicsDefaultConfiguration(g2d);
-        g2d.drawImage(original, 0, 0, newWidth, targetHeight, null);
-        return resized;
+        int newWidth = getTargetSize(original.getWidth(), original.getHeight()).width;
+        return ImageResampler.resample(original, newWidth, targetHeight, ResamplingFilter.LANCZOS3);
+    }
+
+    @Override
+    public Dimension getTargetSize(int sourceWidth, int sourceHeight) {
+        double aspectRatio = (double) sourceWidth / sourceHeight;
+        return new Dimension((int) (targetHeight * aspectRatio), targetHeight);
     }
 
     @Override
@@ -62,4 +65,10 @@ public class ImageTransformerFitHeight implements ImageTransformer {
         json.put("targetHeight", targetHeight);
         return json;
     }
+
+    @Override
+    public void hashInto(MessageDigest digest) {
+        ImageUtils.hashString(digest, getClass().getSimpleName());
+        ImageUtils.hashInt(digest, targetHeight);
+    }
 }
\ No newline at end of file
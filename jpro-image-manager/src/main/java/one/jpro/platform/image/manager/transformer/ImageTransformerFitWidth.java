@@ -1,9 +1,11 @@
 package one.jpro.platform.image.manager.transformer;
 
+import one.jpro.platform.image.manager.ImageUtils;
 import org.json.JSONObject;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.security.MessageDigest;
 
 /**
  * This class is responsible for transforming images such that they fit a specified width,
@@ -46,17 +48,15 @@ public class ImageTransformerFitWidth implements ImageTransformer {
      */
     @Override
     public BufferedImage transform(BufferedImage inputImage) {
-        int originalWidth = inputImage.getWidth();
-        int originalHeight = inputImage.getHeight();
+        int targetHeight = getTargetSize(inputImage.getWidth(), inputImage.getHeight()).height;
 
-        double aspectRatio = (double) originalHeight / originalWidth;
-        int targetHeight = (int) (targetWidth * aspectRatio);
+        return ImageResampler.resample(inputImage, targetWidth, targetHeight, ResamplingFilter.LANCZOS3);
+    }
 
-        BufferedImage outputImage = new BufferedImage(targetWidth, targetHeight, inputImage.getType());
-        Graphics2D g2d = (Graphics2D) outputImage.getGraphics();
-        ImageTransformerHelpers.graphicsDefaultConfiguration(g2d);
-        g2d.drawImage(inputImage, 0, 0, targetWidth, targetHeight, null);
-        return outputImage;
+    @Override
+    public Dimension getTargetSize(int sourceWidth, int sourceHeight) {
+        double aspectRatio = (double) sourceHeight / sourceWidth;
+        return new Dimension(targetWidth, (int) (targetWidth * aspectRatio));
     }
 
     @Override
@@ -66,4 +66,10 @@ public class ImageTransformerFitWidth implements ImageTransformer {
         json.put("targetWidth", targetWidth);
         return json;
     }
+
+    @Override
+    public void hashInto(MessageDigest digest) {
+        ImageUtils.hashString(digest, getClass().getSimpleName());
+        ImageUtils.hashInt(digest, targetWidth);
+    }
 }
\ No newline at end of file
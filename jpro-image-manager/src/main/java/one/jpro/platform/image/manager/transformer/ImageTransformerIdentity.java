@@ -1,8 +1,10 @@
 package one.jpro.platform.image.manager.transformer;
 
+import one.jpro.platform.image.manager.ImageUtils;
 import org.json.JSONObject;
 
 import java.awt.image.BufferedImage;
+import java.security.MessageDigest;
 
 /**
  * This class implements an identity transformer for images. When applied,
@@ -32,4 +34,8 @@ public class ImageTransformerIdentity implements ImageTransformer {
         return json;
     }
 
+    @Override
+    public void hashInto(MessageDigest digest) {
+        ImageUtils.hashString(digest, getClass().getSimpleName());
+    }
 }
@@ -1,9 +1,11 @@
 package one.jpro.platform.image.manager.transformer;
 
+import one.jpro.platform.image.manager.ImageUtils;
 import org.json.JSONObject;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.security.MessageDigest;
 
 /**
  * This class implements an image transformer that scales images to a target area
@@ -51,15 +53,16 @@ public class ImageTransformerScaleToArea implements ImageTransformer {
      */
     @Override
     public BufferedImage transform(BufferedImage image) {
-        double aspectRatio = (double) image.getWidth() / image.getHeight();
+        Dimension newSize = getTargetSize(image.getWidth(), image.getHeight());
+        return ImageResampler.resample(image, newSize.width, newSize.height, ResamplingFilter.LANCZOS3);
+    }
+
+    @Override
+    public Dimension getTargetSize(int sourceWidth, int sourceHeight) {
+        double aspectRatio = (double) sourceWidth / sourceHeight;
         double newWidth = Math.sqrt(targetArea * aspectRatio);
         double newHeight = newWidth / aspectRatio;
-
-        BufferedImage newImage = new BufferedImage((int) newWidth, (int) newHeight, image.getType());
-        Graphics2D g2d = (Graphics2D) newImage.getGraphics();
-        ImageTransformerHelpers.graphicsDefaultConfiguration(g2d);
-        g2d.drawImage(image, 0, 0, (int) newWidth, (int) newHeight, null);
-        return newImage;
+        return new Dimension((int) newWidth, (int) newHeight);
     }
 
     @Override
@@ -69,4 +72,10 @@ public class ImageTransformerScaleToArea implements ImageTransformer {
         json.put("targetArea", targetArea);
         return json;
     }
+
+    @Override
+    public void hashInto(MessageDigest digest) {
+        ImageUtils.hashString(digest, getClass().getSimpleName());
+        ImageUtils.hashInt(digest, targetArea);
+    }
 }
\ No newline at end of file
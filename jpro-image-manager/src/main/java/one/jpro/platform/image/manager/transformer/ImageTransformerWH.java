@@ -1,8 +1,10 @@
 package one.jpro.platform.image.manager.transformer;
 
+import one.jpro.platform.image.manager.ImageUtils;
 import org.json.JSONObject;
 import java.awt.image.BufferedImage;
-import java.awt.Graphics2D;
+import java.awt.Dimension;
+import java.security.MessageDigest;
 
 /**
  * Implements the ImageTransformer interface to provide functionalities
@@ -49,12 +51,12 @@ public class ImageTransformerWH implements ImageTransformer {
      */
     @Override
     public BufferedImage transform(BufferedImage original) {
-        BufferedImage resizedImage = new BufferedImage(targetWidth, targetHeight, original.getType());
-        Graphics2D g2d = resizedImage.createGraphics();
-        ImageTransformerHelpers.graphicsDefaultConfiguration(g2d);
-        g2d.drawImage(original, 0, 0, targetWidth, targetHeight, null);
-        g2d.dispose();
-        return resizedImage;
+        return ImageResampler.resample(original, targetWidth, targetHeight, ResamplingFilter.LANCZOS3);
+    }
+
+    @Override
+    public Dimension getTargetSize(int sourceWidth, int sourceHeight) {
+        return new Dimension(targetWidth, targetHeight);
     }
 
     @Override
@@ -65,4 +67,11 @@ public class ImageTransformerWH implements ImageTransformer {
         json.put("targetHeight", targetHeight);
         return json;
     }
+
+    @Override
+    public void hashInto(MessageDigest digest) {
+        ImageUtils.hashString(digest, getClass().getSimpleName());
+        ImageUtils.hashInt(digest, targetWidth);
+        ImageUtils.hashInt(digest, targetHeight);
+    }
 }
\ No newline at end of file
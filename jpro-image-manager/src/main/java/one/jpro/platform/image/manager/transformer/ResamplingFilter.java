@@ -0,0 +1,72 @@
+package one.jpro.platform.image.manager.transformer;
+
+/**
+ * The filters supported by the {@link ImageResampler}.
+ *
+ * @author Florian Kirmaier
+ * @see ImageResampler
+ */
+public enum ResamplingFilter {
+
+    /**
+     * A Lanczos filter with three lobes. It produces the sharpest results, with slight ringing at hard edges.
+     */
+    LANCZOS3(3.0) {
+        @Override
+        double weight(double x) {
+            x = Math.abs(x);
+            if (x < 1e-8) {
+                return 1.0;
+            }
+            if (x >= 3.0) {
+                return 0.0;
+            }
+            final double px = Math.PI * x;
+            return 3.0 * Math.sin(px) * Math.sin(px / 3.0) / (px * px);
+        }
+    },
+
+    /**
+     * The Mitchell-Netravali cubic filter (B = C = 1/3). It is a good compromise between sharpness,
+     * ringing and blurring.
+     */
+    MITCHELL(2.0) {
+        @Override
+        double weight(double x) {
+            final double b = 1.0 / 3.0;
+            final double c = 1.0 / 3.0;
+            x = Math.abs(x);
+            if (x < 1.0) {
+                return ((12 - 9 * b - 6 * c) * x * x * x + (-18 + 12 * b + 6 * c) * x * x + (6 - 2 * b)) / 6.0;
+            }
+            if (x < 2.0) {
+                return ((-b - 6 * c) * x * x * x + (6 * b + 30 * c) * x * x + (-12 * b - 48 * c) * x
+                        + (8 * b + 24 * c)) / 6.0;
+            }
+            return 0.0;
+        }
+    };
+
+    private final double support;
+
+    ResamplingFilter(double support) {
+        this.support = support;
+    }
+
+    /**
+     * Returns the radius of the filter, in source pixels when the image is not downscaled.
+     *
+     * @return the support of the filter
+     */
+    double getSupport() {
+        return support;
+    }
+
+    /**
+     * Returns the weight of the filter at the given distance from the center.
+     *
+     * @param x the distance
+     * @return the weight
+     */
+    abstract double weight(double x);
+}
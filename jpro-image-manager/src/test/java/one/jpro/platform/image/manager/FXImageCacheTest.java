@@ -0,0 +1,88 @@
+package one.jpro.platform.image.manager;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FXImageCacheTest {
+
+    private static final File TEST_IMAGE = new File("src/test/resources/testImage.png");
+    private static final File LOGO_IMAGE = new File("src/test/resources/logo.png");
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            Platform.startup(latch::countDown);
+            latch.await();
+        } catch (IllegalStateException ignored) {
+        }
+    }
+
+    @Test
+    public void testImageIsShared() {
+        FXImageCache cache = new FXImageCache(64L * 1024 * 1024, false);
+        Image first = cache.getImage(new ImageResult(TEST_IMAGE, 433, 291));
+        Image second = cache.getImage(new ImageResult(TEST_IMAGE, 433, 291));
+
+        assertSame(first, second);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getImageCount());
+        assertEquals(4L * 433 * 291, cache.getSize());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedImageIsEvicted() {
+        // room for the test image and the logo only
+        FXImageCache cache = new FXImageCache(4L * 433 * 291 + 4L * 413 * 236, false);
+        ImageResult testImage = new ImageResult(TEST_IMAGE, 433, 291);
+        ImageResult logo = new ImageResult(LOGO_IMAGE, 413, 236);
+        ImageResult smallTestImage = new ImageResult(TEST_IMAGE, 100, 67);
+
+        Image first = cache.getImage(testImage);
+        cache.getImage(logo);
+        cache.getImage(testImage);
+        cache.getImage(smallTestImage);
+
+        assertEquals(2, cache.getImageCount());
+        assertSame(first, cache.getImage(testImage));
+        assertEquals(5, cache.getMissCount() + cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        cache.getImage(logo);
+        assertEquals(4, cache.getMissCount(), "Least recently used image was not evicted.");
+    }
+
+    @Test
+    public void testOffHeapImage() throws IOException {
+        FXImageCache cache = new FXImageCache(64L * 1024 * 1024, true);
+        Image image = cache.getImage(new ImageResult(TEST_IMAGE, 433, 291));
+
+        assertEquals(433, image.getWidth());
+        assertEquals(291, image.getHeight());
+        BufferedImage expected = ImageIO.read(TEST_IMAGE);
+        for (int[] point : new int[][]{{0, 0}, {100, 50}, {432, 290}}) {
+            assertEquals(expected.getRGB(point[0], point[1]),
+                    image.getPixelReader().getArgb(point[0], point[1]));
+        }
+    }
+
+    @Test
+    public void testDisabledCache() {
+        FXImageCache cache = new FXImageCache(0, false);
+        Image first = cache.getImage(new ImageResult(TEST_IMAGE, 433, 291));
+        Image second = cache.getImage(new ImageResult(TEST_IMAGE, 433, 291));
+
+        assertNotSame(first, second);
+        assertEquals(0, cache.getImageCount());
+    }
+}
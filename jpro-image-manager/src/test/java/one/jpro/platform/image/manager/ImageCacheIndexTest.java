@@ -0,0 +1,82 @@
+package one.jpro.platform.image.manager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImageCacheIndexTest {
+
+    @TempDir
+    File cacheDir;
+
+    @Test
+    public void testShardedHashDir() {
+        ImageCacheIndex index = new ImageCacheIndex(cacheDir);
+        File hashDir = index.getHashDir("0123456789abcdef");
+        assertEquals(new File(cacheDir, "01/23/0123456789abcdef".replace('/', File.separatorChar)), hashDir);
+    }
+
+    @Test
+    public void testEntriesAreReloadedFromManifest() throws IOException {
+        ImageCacheIndex index = new ImageCacheIndex(cacheDir);
+        File file1 = new File(index.getHashDir("aaaa1111"), "image1.png");
+        File file2 = new File(index.getHashDir("bbbb2222"), "image2.png");
+        index.put("aaaa1111", file1, 100, 50, 1000);
+        index.put("bbbb2222", file2, 20, 10, 200);
+        index.remove("bbbb2222");
+
+        ImageCacheIndex reloaded = new ImageCacheIndex(cacheDir);
+        assertEquals(1, reloaded.size());
+        assertEquals(1000, reloaded.totalSize());
+        ImageCacheIndex.Entry entry = reloaded.get("aaaa1111");
+        assertNotNull(entry);
+        assertEquals(file1, entry.file());
+        assertEquals(100, entry.width());
+        assertEquals(50, entry.height());
+        assertEquals(1000, entry.size());
+        assertNull(reloaded.get("bbbb2222"));
+    }
+
+    @Test
+    public void testManifestIsCompacted() throws IOException {
+        ImageCacheIndex index = new ImageCacheIndex(cacheDir);
+        for (int i = 0; i < 200; i++) {
+            index.put("cccc" + i, new File(index.getHashDir("cccc" + i), "image.png"), i, i, i);
+            index.remove("cccc" + i);
+        }
+        index.put("dddd0000", new File(index.getHashDir("dddd0000"), "image.png"), 1, 1, 1);
+
+        ImageCacheIndex reloaded = new ImageCacheIndex(cacheDir);
+        assertEquals(1, reloaded.size());
+        File manifest = new File(cacheDir, ImageCacheIndex.MANIFEST_FILE_NAME);
+        assertEquals(1, Files.readAllLines(manifest.toPath()).size());
+    }
+
+    @Test
+    public void testEvictionOrder() throws IOException {
+        ImageCacheIndex index = new ImageCacheIndex(cacheDir);
+        for (String hash : List.of("eeee0001", "eeee0002", "eeee0003")) {
+            index.put(hash, new File(index.getHashDir(hash), "image.png"), 1, 1, 1);
+        }
+        index.get("eeee0001");
+        index.get("eeee0001");
+        index.get("eeee0002");
+        index.get("eeee0003");
+        index.get("eeee0003");
+        index.get("eeee0003");
+
+        assertEquals(List.of("eeee0001", "eeee0002", "eeee0003"), hashes(index.evictionOrder(EvictionPolicy.LRU)));
+        assertEquals(List.of("eeee0002", "eeee0001", "eeee0003"), hashes(index.evictionOrder(EvictionPolicy.LFU)));
+    }
+
+    private List<String> hashes(List<ImageCacheIndex.Entry> entries) {
+        return entries.stream().map(ImageCacheIndex.Entry::hash).collect(Collectors.toList());
+    }
+}
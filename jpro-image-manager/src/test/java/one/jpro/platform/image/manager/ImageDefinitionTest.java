@@ -1,16 +1,24 @@
 package one.jpro.platform.image.manager;
 
 import one.jpro.platform.image.manager.encoder.ImageEncoder;
+import one.jpro.platform.image.manager.encoder.ImageEncoderJPG;
 import one.jpro.platform.image.manager.encoder.ImageEncoderPNG;
 import one.jpro.platform.image.manager.source.ImageSource;
 import one.jpro.platform.image.manager.source.ImageSourceFile;
 import one.jpro.platform.image.manager.transformer.ImageTransformer;
+import one.jpro.platform.image.manager.transformer.ImageTransformerFitHeight;
 import one.jpro.platform.image.manager.transformer.ImageTransformerFitWidth;
 import org.json.JSONObject;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ImageDefinitionTest {
@@ -31,4 +39,49 @@ class ImageDefinitionTest {
         assertTrue(definition.toJSON().similar(json));
     }
 
-}
\ No newline at end of file
+    @Test
+    void testHashString() throws Exception {
+        ImageSource source = new ImageSourceFile(new File("path/to/file.png"));
+        ImageDefinition definition = new ImageDefinition(source, new ImageTransformerFitWidth(500), new ImageEncoderPNG());
+
+        MessageDigest digest = MessageDigest.getInstance("MD5");
+        definition.hashInto(digest);
+        String expected = HexFormat.of().formatHex(digest.digest());
+
+        // the memoized digest of the transformer and the encoder must not change the result
+        assertEquals(expected, definition.getHashString());
+        assertEquals(expected, definition.getHashString());
+        assertEquals(32, expected.length());
+        assertEquals(expected, ImageManager.computeImageDefinitionHash(
+                new ImageDefinition(source, new ImageTransformerFitWidth(500), new ImageEncoderPNG())));
+    }
+
+    @Test
+    void testHashStringDiffersForDifferentDefinitions() {
+        ImageSource source = new ImageSourceFile(new File("path/to/file.png"));
+        String hash = new ImageDefinition(source, new ImageTransformerFitWidth(500), new ImageEncoderPNG()).getHashString();
+
+        assertNotEquals(hash, new ImageDefinition(source, new ImageTransformerFitWidth(501),
+                new ImageEncoderPNG()).getHashString());
+        assertNotEquals(hash, new ImageDefinition(source, new ImageTransformerFitHeight(500),
+                new ImageEncoderPNG()).getHashString());
+        assertNotEquals(hash, new ImageDefinition(source, new ImageTransformerFitWidth(500),
+                new ImageEncoderPNG(5)).getHashString());
+        assertNotEquals(hash, new ImageDefinition(source, new ImageTransformerFitWidth(500),
+                new ImageEncoderJPG()).getHashString());
+        assertNotEquals(hash, new ImageDefinition(new ImageSourceFile(new File("path/to/other.png")),
+                new ImageTransformerFitWidth(500), new ImageEncoderPNG()).getHashString());
+    }
+
+    @Test
+    void testHashStringIsUnambiguous() throws Exception {
+        MessageDigest first = MessageDigest.getInstance("MD5");
+        ImageUtils.hashString(first, "ab");
+        ImageUtils.hashString(first, "c");
+        MessageDigest second = MessageDigest.getInstance("MD5");
+        ImageUtils.hashString(second, "a");
+        ImageUtils.hashString(second, "bc");
+
+        assertFalse(Arrays.equals(first.digest(), second.digest()));
+    }
+}
@@ -12,6 +12,7 @@ import one.jpro.platform.image.manager.transformer.ImageTransformer;
 import one.jpro.platform.image.manager.transformer.ImageTransformerFitWidth;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 
 import java.io.IOException;
@@ -22,8 +23,16 @@ import java.io.File;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.FileTime;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,7 +44,8 @@ class ImageManagerTest {
     File imageDef2File;
     ImageDefinition imageDef2;
 
-
+    @TempDir
+    File tempDir;
 
     @BeforeEach
     void setUp() throws InterruptedException {
@@ -54,7 +64,7 @@ class ImageManagerTest {
         ImageEncoder encoder = new ImageEncoderPNG();
         def = new ImageDefinition(source, transformer, encoder);
 
-        imageDef2File = new File("testImage.png");
+        imageDef2File = new File(tempDir, "testImage.png");
         ImageSource source2 = new ImageSourceFile(imageDef2File);
         ImageTransformer transformer2 = new ImageTransformerFitWidth(200);
         ImageEncoder encoder2 = new ImageEncoderPNG();
@@ -189,6 +199,163 @@ class ImageManagerTest {
         verify(encoderSpy, times(2)).saveImage(any(BufferedImage.class), any(File.class));
     }
 
+    @Test
+    void testConcurrentLoadCreatesImageOnce(@TempDir File cacheDir) throws Exception {
+        ImageManager isolatedManager = new ImageManager(cacheDir);
+        AtomicInteger saveCount = new AtomicInteger();
+        ImageEncoder countingEncoder = new ImageEncoderPNG() {
+            @Override
+            public void saveImage(BufferedImage image, File target) {
+                saveCount.incrementAndGet();
+                super.saveImage(image, target);
+            }
+        };
+        ImageDefinition definition = new ImageDefinition(new ImageSourceFile("src/test/resources/testImage.png"),
+                new ImageTransformerFitWidth(120), countingEncoder);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ImageResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> isolatedManager.loadImage(definition)));
+            }
+            for (Future<ImageResult> future : futures) {
+                ImageResult result = future.get();
+                assertTrue(result.getFile().exists());
+                assertEquals(120, result.getWidth());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, saveCount.get(), "Image was created more than once.");
+        File[] files = isolatedManager.loadImage(definition).getFile().getParentFile().listFiles();
+        assertNotNull(files);
+        assertEquals(1, files.length, "Temporary files were left in the cache directory.");
+    }
+
+    @Test
+    void testEvictionAndStatistics(@TempDir File cacheDir) {
+        ImageManager isolatedManager = new ImageManager(cacheDir);
+        isolatedManager.setMaxCacheEntries(10);
+
+        List<ImageResult> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(isolatedManager.loadImage(createDefinition(20 + i)));
+        }
+        // access the first image again, so it becomes the most recently used one
+        isolatedManager.loadImage(createDefinition(20));
+        isolatedManager.loadImage(createDefinition(30));
+        isolatedManager.evict();
+
+        ImageCacheStatistics statistics = isolatedManager.getCacheStatistics();
+        assertEquals(1, statistics.getHitCount());
+        assertEquals(11, statistics.getMissCount());
+        assertEquals(2, statistics.getEvictionCount());
+        assertEquals(9, statistics.getEntryCount());
+        assertTrue(statistics.getSize() > 0);
+        assertTrue(statistics.getAverageTransformTime().toNanos() > 0);
+
+        assertTrue(results.get(0).getFile().exists(), "Recently used image was evicted.");
+        assertFalse(results.get(1).getFile().exists(), "Least recently used image was not evicted.");
+        assertFalse(results.get(2).getFile().exists(), "Least recently used image was not evicted.");
+        assertTrue(results.get(3).getFile().exists());
+    }
+
+    @Test
+    void testEvictionBySize(@TempDir File cacheDir) {
+        ImageManager isolatedManager = new ImageManager(cacheDir);
+        for (int i = 0; i < 5; i++) {
+            isolatedManager.loadImage(createDefinition(40 + i));
+        }
+        long size = isolatedManager.getCacheStatistics().getSize();
+        isolatedManager.setMaxCacheSize(size / 2);
+        isolatedManager.evict();
+
+        ImageCacheStatistics statistics = isolatedManager.getCacheStatistics();
+        assertTrue(statistics.getSize() <= size / 2);
+        assertEquals(5 - statistics.getEvictionCount(), statistics.getEntryCount());
+    }
+
+    @Test
+    void testLegacyCacheDirsAreDeleted(@TempDir File cacheDir) throws IOException {
+        File legacyDir = new File(cacheDir, "0123456789abcdef0123456789abcdef");
+        assertTrue(legacyDir.mkdirs());
+        Files.writeString(new File(legacyDir, "key").toPath(), "{}");
+        File remoteDir = new File(cacheDir, "remote");
+        assertTrue(remoteDir.mkdirs());
+
+        ImageManager isolatedManager = new ImageManager(cacheDir);
+        isolatedManager.loadImage(createDefinition(60));
+        isolatedManager.deleteLegacyCacheDirs();
+
+        assertFalse(legacyDir.exists(), "Legacy cache directory was not deleted.");
+        assertTrue(remoteDir.exists());
+        assertEquals(1, isolatedManager.getCacheStatistics().getEntryCount());
+        assertTrue(isolatedManager.loadImage(createDefinition(60)).getFile().exists());
+    }
+
+    @Test
+    void testPrewarm(@TempDir File cacheDir) {
+        ImageManager isolatedManager = new ImageManager(cacheDir);
+        isolatedManager.setExecutor(Executors.newFixedThreadPool(2));
+
+        List<ImageDefinition> definitions = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            definitions.add(createDefinition(50 + i));
+        }
+        List<Integer> progress = new CopyOnWriteArrayList<>();
+        isolatedManager.prewarm(definitions, (processed, total) -> {
+            assertEquals(6, total);
+            progress.add(processed);
+        }).join();
+
+        assertEquals(6, progress.size());
+        assertTrue(progress.contains(6));
+        ImageCacheStatistics statistics = isolatedManager.getCacheStatistics();
+        assertEquals(6, statistics.getMissCount());
+        assertEquals(6, statistics.getEntryCount());
+
+        // all images are served from the cache now
+        isolatedManager.loadImage(createDefinition(53));
+        assertEquals(1, isolatedManager.getCacheStatistics().getHitCount());
+    }
+
+    @Test
+    void testLoadImageVariants(@TempDir File cacheDir) {
+        ImageManager isolatedManager = new ImageManager(cacheDir);
+        AtomicInteger loadCount = new AtomicInteger();
+        ImageSource countingSource = new ImageSourceFile("src/test/resources/testImage.png") {
+            @Override
+            public BufferedImage loadImage(ImageTransformer transformer) {
+                loadCount.incrementAndGet();
+                return super.loadImage(transformer);
+            }
+        };
+        ImageVariantSet variantSet = new ImageVariantSet(countingSource, new ImageEncoderPNG(), 100, 50, 200);
+
+        ImageResult result = isolatedManager.loadImageVariants(variantSet);
+        assertEquals(1, loadCount.get(), "Source was decoded more than once.");
+        assertEquals(List.of(50, 100, 200),
+                result.getVariants().stream().map(ImageResult::getWidth).collect(Collectors.toList()));
+        assertEquals(200, result.getWidth());
+        result.getVariants().forEach(variant -> assertTrue(variant.getFile().exists()));
+        assertEquals(3, isolatedManager.getCacheStatistics().getMissCount());
+
+        // the variants share the cache with single image definitions
+        ImageResult single = isolatedManager.loadImage(new ImageDefinition(countingSource,
+                new ImageTransformerFitWidth(100), new ImageEncoderPNG()));
+        assertEquals(result.getVariants().get(1).getFile(), single.getFile());
+        isolatedManager.loadImageVariants(variantSet);
+        assertEquals(1, loadCount.get());
+        assertEquals(4, isolatedManager.getCacheStatistics().getHitCount());
+    }
+
+    private ImageDefinition createDefinition(int width) {
+        return new ImageDefinition(new ImageSourceFile("src/test/resources/testImage.png"),
+                new ImageTransformerFitWidth(width), new ImageEncoderPNG());
+    }
+
     // Test changing image format
     @Test
     void testChangingFormat() {
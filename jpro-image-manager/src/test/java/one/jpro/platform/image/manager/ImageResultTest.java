@@ -2,13 +2,16 @@ package one.jpro.platform.image.manager;
 
 import javafx.application.Platform;
 import javafx.scene.image.Image;
+import javafx.scene.layout.Pane;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class ImageResultTest {
 
@@ -32,4 +35,38 @@ public class ImageResultTest {
         assertEquals(100, fxImage.getWidth());
         assertEquals(100, fxImage.getHeight());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSelectVariant() {
+        File testFile = new File("src/test/resources/testImage.png");
+        ImageResult small = new ImageResult(testFile, 100, 67);
+        ImageResult medium = new ImageResult(testFile, 200, 134);
+        ImageResult large = new ImageResult(testFile, 400, 268);
+        ImageResult result = new ImageResult(List.of(large, small, medium));
+
+        assertEquals(List.of(small, medium, large), result.getVariants());
+        assertEquals(400, result.getWidth());
+        assertSame(small, result.selectVariant(100, 1));
+        assertSame(medium, result.selectVariant(100, 2));
+        assertSame(medium, result.selectVariant(150, 1));
+        assertSame(large, result.selectVariant(150, 2));
+        assertSame(large, result.selectVariant(300, 3));
+        assertEquals(200, result.toFXImage(100, 2).getWidth());
+        // the widest variant is used without a node to select the variant for
+        assertEquals(400, result.toFXImage().getWidth());
+    }
+
+    @Test
+    public void testPixelRatioWithoutWindow() {
+        assertEquals(1.0, ImageResult.getPixelRatio(new Pane()));
+    }
+
+    @Test
+    public void testParsePixelRatio() {
+        assertEquals(2.0, ImageResult.parsePixelRatio("2"));
+        assertEquals(1.5, ImageResult.parsePixelRatio("1.5"));
+        assertEquals(1.0, ImageResult.parsePixelRatio("undefined"));
+        assertEquals(1.0, ImageResult.parsePixelRatio("0"));
+        assertEquals(1.0, ImageResult.parsePixelRatio(null));
+    }
+}
@@ -2,10 +2,12 @@ package one.jpro.platform.image.manager.encoder;
 
 import org.json.JSONObject;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.nio.file.Files;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -60,7 +62,48 @@ public class ImageEncoderJPGTest {
         JSONObject json = new JSONObject();
         json.put("type", ImageEncoderJPG.class.getSimpleName());
         json.put("quality", 0.5);
+        json.put("progressive", false);
         json.put("fileExtension", "jpg");
         assertTrue(encoder.toJSON().similar(json));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testQualityAffectsFileSize(@TempDir File tempDir) throws Exception {
+        BufferedImage testImage = ImageIO.read(new File("src/test/resources/testImage.png"));
+        File lowQualityFile = new File(tempDir, "low.jpg");
+        File highQualityFile = new File(tempDir, "high.jpg");
+
+        new ImageEncoderJPG(0.3).saveImage(testImage, lowQualityFile);
+        new ImageEncoderJPG(0.95).saveImage(testImage, highQualityFile);
+
+        assertTrue(lowQualityFile.length() < highQualityFile.length(), "Quality setting is ignored.");
+        BufferedImage loadedOutput = ImageIO.read(lowQualityFile);
+        assertEquals(testImage.getWidth(), loadedOutput.getWidth());
+        assertEquals(testImage.getHeight(), loadedOutput.getHeight());
+    }
+
+    @Test
+    public void testSaveProgressiveImageWithAlpha(@TempDir File tempDir) throws Exception {
+        BufferedImage image = new BufferedImage(64, 32, BufferedImage.TYPE_INT_ARGB);
+        File outputFile = new File(tempDir, "progressive.jpg");
+
+        new ImageEncoderJPG(0.8, true).saveImage(image, outputFile);
+
+        BufferedImage loadedOutput = ImageIO.read(outputFile);
+        assertEquals(64, loadedOutput.getWidth());
+        assertEquals(32, loadedOutput.getHeight());
+        // a progressive JPEG starts its first scan with an SOF2 marker instead of SOF0
+        byte[] bytes = Files.readAllBytes(outputFile.toPath());
+        assertTrue(containsMarker(bytes, (byte) 0xC2), "Image is not progressive.");
+        assertFalse(containsMarker(bytes, (byte) 0xC0));
+    }
+
+    private boolean containsMarker(byte[] bytes, byte marker) {
+        for (int i = 0; i < bytes.length - 1; i++) {
+            if (bytes[i] == (byte) 0xFF && bytes[i + 1] == marker) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -2,6 +2,7 @@ package one.jpro.platform.image.manager.encoder;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
@@ -38,4 +39,23 @@ public class ImageEncoderPNGTest {
     public void testFileExtension() {
         assertEquals("png", encoder.getFileExtension());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCompressionLevel(@TempDir File tempDir) throws Exception {
+        BufferedImage testImage = ImageIO.read(new File("src/test/resources/testImage.png"));
+        File uncompressedFile = new File(tempDir, "uncompressed.png");
+        File compressedFile = new File(tempDir, "compressed.png");
+
+        new ImageEncoderPNG(0).saveImage(testImage, uncompressedFile);
+        new ImageEncoderPNG(9).saveImage(testImage, compressedFile);
+
+        assertTrue(compressedFile.length() < uncompressedFile.length(), "Compression level is ignored.");
+        BufferedImage loadedOutput = ImageIO.read(compressedFile);
+        assertEquals(testImage.getRGB(10, 10), loadedOutput.getRGB(10, 10));
+    }
+
+    @Test
+    public void testInvalidCompressionLevel() {
+        assertThrows(IllegalArgumentException.class, () -> new ImageEncoderPNG(10));
+    }
+}
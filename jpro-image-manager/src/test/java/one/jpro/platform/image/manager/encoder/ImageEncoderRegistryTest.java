@@ -0,0 +1,24 @@
+package one.jpro.platform.image.manager.encoder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImageEncoderRegistryTest {
+
+    @Test
+    public void testBuiltInEncoders() {
+        assertInstanceOf(ImageEncoderPNG.class, ImageEncoderRegistry.getEncoder("png"));
+        assertInstanceOf(ImageEncoderJPG.class, ImageEncoderRegistry.getEncoder("JPG"));
+        assertInstanceOf(ImageEncoderJPG.class, ImageEncoderRegistry.getEncoder("jpeg"));
+        assertTrue(ImageEncoderRegistry.getFileExtensions().containsAll(Set.of("png", "jpg", "jpeg")));
+    }
+
+    @Test
+    public void testUnsupportedFileExtension() {
+        assertFalse(ImageEncoderRegistry.isSupported("xyz"));
+        assertThrows(ImageEncoderException.class, () -> ImageEncoderRegistry.getEncoder("xyz"));
+    }
+}
@@ -0,0 +1,45 @@
+package one.jpro.platform.image.manager.source;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileFingerprintTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testFingerprint() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("image.png"), "content");
+
+        FileFingerprint fingerprint = FileFingerprint.of(file);
+        assertEquals(7, fingerprint.size());
+        assertEquals(Files.getLastModifiedTime(file).toMillis(), fingerprint.lastModified());
+        assertEquals(fingerprint, FileFingerprint.of(file));
+    }
+
+    @Test
+    public void testFingerprintChangesOnChange() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("image.png"), "content");
+        FileFingerprint fingerprint = FileFingerprint.of(file);
+
+        Files.writeString(file, "changed content");
+
+        FileFingerprint changedFingerprint = FileFingerprint.of(file);
+        assertEquals(15, changedFingerprint.size());
+        assertNotEquals(fingerprint.hashValue(), changedFingerprint.hashValue());
+    }
+
+    @Test
+    public void testMissingFile() {
+        FileFingerprint fingerprint = FileFingerprint.of(tempDir.resolve("missing.png"));
+        assertEquals(0, fingerprint.size());
+        assertEquals(0, fingerprint.lastModified());
+    }
+}
@@ -1,15 +1,28 @@
 package one.jpro.platform.image.manager.source;
 
 import one.jpro.platform.image.manager.ImageUtils;
+import one.jpro.platform.image.manager.transformer.ImageTransformerFitWidth;
+import one.jpro.platform.image.manager.transformer.ImageTransformerIdentity;
 import org.json.JSONObject;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 public class ImageSourceFileTest {
 
+    @TempDir
+    Path tempDir;
+
     @Test
     public void testLoadImage() {
         File testImageFile = new File("src/test/resources/testImage.png");
@@ -19,6 +32,21 @@ public class ImageSourceFileTest {
         assertNotNull(image);
     }
 
+    @Test
+    public void testLoadImageSubsampled() {
+        File testImageFile = new File("src/test/resources/testImage.png");
+        ImageSourceFile imageSource = new ImageSourceFile(testImageFile);
+
+        BufferedImage fullImage = imageSource.loadImage(new ImageTransformerIdentity());
+        assertEquals(433, fullImage.getWidth());
+        assertEquals(291, fullImage.getHeight());
+
+        // a 433px wide image only needs to be decoded at 109px for a 50px wide thumbnail
+        BufferedImage subsampledImage = imageSource.loadImage(new ImageTransformerFitWidth(50));
+        assertEquals(109, subsampledImage.getWidth());
+        assertEquals(73, subsampledImage.getHeight());
+    }
+
     @Test
     public void testIdentityHashValue() {
         File testImageFile = new File("src/test/resources/testImage.png");
@@ -40,4 +68,24 @@ public class ImageSourceFileTest {
 
         assertTrue(imageSource.toJSON().similar(json));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testHashChangesWithSameModificationTime() throws IOException, NoSuchAlgorithmException {
+        Path file = Files.writeString(tempDir.resolve("image.png"), "content");
+        FileTime lastModified = Files.getLastModifiedTime(file);
+        ImageSourceFile imageSource = new ImageSourceFile(file.toFile());
+        String hash = digest(imageSource);
+
+        // a replaced file with a preserved modification time, like after "cp -p" or "rsync -t"
+        Files.writeString(file, "other content");
+        Files.setLastModifiedTime(file, lastModified);
+
+        assertNotEquals(hash, digest(imageSource));
+    }
+
+    private static String digest(ImageSource source) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        source.hashInto(digest);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,39 @@
+package one.jpro.platform.image.manager.source;
+
+import one.jpro.platform.image.manager.transformer.ImageTransformerFitHeight;
+import one.jpro.platform.image.manager.transformer.ImageTransformerFitWidth;
+import one.jpro.platform.image.manager.transformer.ImageTransformerIdentity;
+import one.jpro.platform.image.manager.transformer.ImageTransformerWH;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Dimension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ImageSourceHelpersTest {
+
+    @Test
+    public void testComputeSubsampling() {
+        assertEquals(1, ImageSourceHelpers.computeSubsampling(6000, 4000, new ImageTransformerIdentity()));
+        assertEquals(1, ImageSourceHelpers.computeSubsampling(6000, 4000, new ImageTransformerFitWidth(4000)));
+        assertEquals(10, ImageSourceHelpers.computeSubsampling(6000, 4000, new ImageTransformerFitWidth(300)));
+        assertEquals(10, ImageSourceHelpers.computeSubsampling(6000, 4000, new ImageTransformerFitHeight(200)));
+        // the dimension that needs the most pixels determines the subsampling
+        assertEquals(2, ImageSourceHelpers.computeSubsampling(6000, 4000, new ImageTransformerWH(300, 1000)));
+    }
+
+    @Test
+    public void testGetTiledTargetSize() {
+        long threshold = 4096L * 4096;
+        // small enough to be decoded as a whole
+        assertNull(ImageSourceHelpers.getTiledTargetSize(4000, 3000, 1, new ImageTransformerFitWidth(300), threshold));
+        assertEquals(new Dimension(300, 300),
+                ImageSourceHelpers.getTiledTargetSize(20000, 20000, 1, new ImageTransformerFitWidth(300), threshold));
+        // subsampling reduces the decoded pixels below the threshold
+        assertNull(ImageSourceHelpers.getTiledTargetSize(20000, 20000, 5, new ImageTransformerFitWidth(300), threshold));
+        // transformers without target size and upscaling transformers are not tiled
+        assertNull(ImageSourceHelpers.getTiledTargetSize(20000, 20000, 1, new ImageTransformerIdentity(), threshold));
+        assertNull(ImageSourceHelpers.getTiledTargetSize(20000, 20000, 1, new ImageTransformerWH(30000, 100), threshold));
+    }
+}
@@ -0,0 +1,202 @@
+package one.jpro.platform.image.manager.source;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RemoteImageFetcherTest {
+
+    private volatile String etag = "\"test-etag\"";
+
+    @TempDir
+    Path directory;
+
+    private ServerSocket serverSocket;
+    private byte[] imageBytes;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        try (InputStream is = getClass().getResourceAsStream("/testImage.png")) {
+            imageBytes = is.readAllBytes();
+        }
+        serverSocket = new ServerSocket(0);
+        Thread thread = new Thread(this::serve, "test-http-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @AfterEach
+    public void stopServer() throws IOException {
+        serverSocket.close();
+    }
+
+    @Test
+    public void testConditionalRequest() {
+        RemoteImageFetcher fetcher = createFetcher(10 * 1024 * 1024);
+        URI uri = URI.create("http://localhost:" + serverSocket.getLocalPort() + "/testImage.png");
+
+        RemoteImageFetcher.RemoteImage first = fetcher.fetch(uri);
+        assertEquals(etag, first.etag());
+        assertEquals(1, fullResponses.get());
+        assertEquals(0, notModifiedResponses.get());
+
+        RemoteImageFetcher.RemoteImage second = fetcher.fetch(uri);
+        assertEquals(first, second);
+        assertEquals(1, fullResponses.get());
+        assertEquals(1, notModifiedResponses.get());
+
+        // the validators are persisted, so a new fetcher revalidates as well
+        RemoteImageFetcher.RemoteImage third = createFetcher(10 * 1024 * 1024).fetch(uri);
+        assertEquals(first, third);
+        assertEquals(1, fullResponses.get());
+        assertEquals(2, notModifiedResponses.get());
+    }
+
+    @Test
+    public void testHashChangesWithETag() throws IOException, NoSuchAlgorithmException {
+        RemoteImageFetcher fetcher = createFetcher(10 * 1024 * 1024);
+        URI uri = URI.create("http://localhost:" + serverSocket.getLocalPort() + "/changing.png");
+        ImageSourceURL source = new ImageSourceURL(uri.toURL(), fetcher);
+
+        ImageSourceURL.expireVersions();
+        long identityHash = source.identityHashValue();
+        String hash = digest(source);
+        assertEquals(identityHash, source.identityHashValue());
+        assertEquals(hash, digest(source));
+
+        etag = "\"changed-etag\"";
+        ImageSourceURL.expireVersions();
+        assertNotEquals(identityHash, source.identityHashValue());
+        assertNotEquals(hash, digest(source));
+        assertEquals(2, fullResponses.get());
+    }
+
+    private static String digest(ImageSource source) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        source.hashInto(digest);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @Test
+    public void testMaxDownloadSize() throws IOException {
+        RemoteImageFetcher fetcher = createFetcher(100);
+        URI uri = URI.create("http://localhost:" + serverSocket.getLocalPort() + "/testImage.png");
+
+        assertThrows(ImageSourceException.class, () -> fetcher.fetch(uri));
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count(), "No partial download should be left behind");
+        }
+    }
+
+    @Test
+    public void testStalledDownloadTimesOut() throws IOException {
+        RemoteImageFetcher fetcher = new RemoteImageFetcher(directory, Duration.ofSeconds(5), Duration.ofSeconds(1),
+                10 * 1024 * 1024);
+        URI uri = URI.create("http://localhost:" + serverSocket.getLocalPort() + "/stalled.png");
+
+        final long start = System.nanoTime();
+        assertThrows(ImageSourceException.class, () -> fetcher.fetch(uri));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(5)) < 0,
+                "The request timeout must cover the download of the body");
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count(), "No partial download should be left behind");
+        }
+    }
+
+    @Test
+    public void testStorageIsBounded() throws IOException {
+        RemoteImageFetcher fetcher = createFetcher(10 * 1024 * 1024);
+        fetcher.setMaxStorageSize(imageBytes.length * 3L / 2);
+        String base = "http://localhost:" + serverSocket.getLocalPort();
+
+        RemoteImageFetcher.RemoteImage first = fetcher.fetch(URI.create(base + "/first.png"));
+        Files.setLastModifiedTime(first.file(), FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        RemoteImageFetcher.RemoteImage second = fetcher.fetch(URI.create(base + "/second.png"));
+
+        // the least recently fetched image is deleted together with its metadata
+        assertFalse(Files.exists(first.file()));
+        assertTrue(Files.exists(second.file()));
+        try (var files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    public void testImageSourceURL() throws IOException {
+        RemoteImageFetcher fetcher = createFetcher(10 * 1024 * 1024);
+        URI uri = URI.create("http://localhost:" + serverSocket.getLocalPort() + "/testImage.png");
+        ImageSourceURL source = new ImageSourceURL(uri.toURL(), fetcher);
+
+        assertNotEquals(0, source.identityHashValue());
+        BufferedImage image = source.loadImage();
+        assertNotNull(image);
+        assertEquals(433, image.getWidth());
+        assertEquals(1, fullResponses.get());
+    }
+
+    private RemoteImageFetcher createFetcher(long maxDownloadSize) {
+        return new RemoteImageFetcher(directory, Duration.ofSeconds(5), Duration.ofSeconds(5), maxDownloadSize);
+    }
+
+    private void serve() {
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+                boolean notModified = false;
+                String requestLine = reader.readLine();
+                String line;
+                while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                    if (line.toLowerCase().startsWith("if-none-match:")) {
+                        notModified = line.substring(line.indexOf(':') + 1).trim().equals(etag);
+                    }
+                }
+                OutputStream out = socket.getOutputStream();
+                if (requestLine != null && requestLine.contains("/stalled.png")) {
+                    // send the headers and half of the body, then stall until the client gives up
+                    out.write(("HTTP/1.1 200 OK\r\nContent-Type: image/png\r\nContent-Length: " + imageBytes.length
+                            + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+                    out.write(imageBytes, 0, imageBytes.length / 2);
+                    out.flush();
+                    socket.setSoTimeout(10_000);
+                    while (socket.getInputStream().read() != -1) {
+                        // wait until the client closes the connection
+                    }
+                } else if (notModified) {
+                    notModifiedResponses.incrementAndGet();
+                    out.write(("HTTP/1.1 304 Not Modified\r\nETag: " + etag
+                            + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+                } else {
+                    fullResponses.incrementAndGet();
+                    out.write(("HTTP/1.1 200 OK\r\nContent-Type: image/png\r\nETag: " + etag
+                            + "\r\nContent-Length: " + imageBytes.length
+                            + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+                    out.write(imageBytes);
+                }
+                out.flush();
+            } catch (IOException ex) {
+                // the server socket has been closed or the client disconnected
+            }
+        }
+    }
+}
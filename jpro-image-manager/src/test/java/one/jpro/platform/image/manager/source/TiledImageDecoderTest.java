@@ -0,0 +1,153 @@
+package one.jpro.platform.image.manager.source;
+
+import one.jpro.platform.image.manager.transformer.ImageTransformer;
+import one.jpro.platform.image.manager.transformer.ImageTransformerFitWidth;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TiledImageDecoderTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void testDecodeInTiles() throws IOException {
+        // left half red, right half blue, with a transparent bottom quarter
+        BufferedImage source = new BufferedImage(1200, 800, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = source.createGraphics();
+        g2d.setColor(Color.RED);
+        g2d.fillRect(0, 0, 600, 600);
+        g2d.setColor(Color.BLUE);
+        g2d.fillRect(600, 0, 600, 600);
+        g2d.dispose();
+        File file = new File(tempDir, "large.png");
+        ImageIO.write(source, "png", file);
+
+        // about 40 rows per tile, so the image is decoded in 20 tiles
+        BufferedImage result = decode(file, 1, new Dimension(120, 80), 50_000);
+
+        assertEquals(120, result.getWidth());
+        assertEquals(80, result.getHeight());
+        // the filter blends the rows next to the transparent edge, but there are no seams between the tiles
+        for (int y = 0; y < 58; y++) {
+            assertEquals(Color.RED.getRGB(), result.getRGB(10, y), "Unexpected color in row " + y);
+            assertEquals(Color.BLUE.getRGB(), result.getRGB(110, y), "Unexpected color in row " + y);
+        }
+        for (int y = 62; y < 80; y++) {
+            assertEquals(0, result.getRGB(10, y) >>> 24, "Pixel should be transparent in row " + y);
+        }
+    }
+
+    @Test
+    public void testDecodeInTilesWithSubsampling() throws IOException {
+        BufferedImage testImage = ImageIO.read(new File("src/test/resources/testImage.png"));
+        File file = new File("src/test/resources/testImage.png");
+
+        BufferedImage result = decode(file, 2, new Dimension(50, 33), 5_000);
+
+        assertEquals(50, result.getWidth());
+        assertEquals(33, result.getHeight());
+        // the average color of the whole image must be preserved
+        assertEquals(averageRed(testImage), averageRed(result), 3.0);
+    }
+
+    @Test
+    public void testReadTiledImageInTiles() throws IOException {
+        File file = new File(tempDir, "tiled.tiff");
+        writeTiledTiff(createImage(1200, 800), file, 128);
+
+        // a tiled image is decoded tile by tile and downscaled to the target size right away
+        BufferedImage result = readImage(file, new ImageTransformerFitWidth(120), 20_000);
+
+        assertEquals(120, result.getWidth());
+        assertEquals(80, result.getHeight());
+        assertEquals(Color.RED.getRGB(), result.getRGB(10, 10));
+        assertEquals(Color.BLUE.getRGB(), result.getRGB(110, 10));
+    }
+
+    @Test
+    public void testReadUntiledImageInSinglePass() throws IOException {
+        File file = new File(tempDir, "large.png");
+        ImageIO.write(createImage(1200, 800), "png", file);
+
+        // a PNG can't seek to a region, so it is decoded once, at least twice as large as the target size
+        BufferedImage result = readImage(file, new ImageTransformerFitWidth(120), 20_000);
+
+        assertEquals(240, result.getWidth());
+        assertEquals(160, result.getHeight());
+        assertEquals(Color.RED.getRGB(), result.getRGB(10, 10));
+        assertEquals(Color.BLUE.getRGB(), result.getRGB(230, 10));
+    }
+
+    private BufferedImage createImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(Color.RED);
+        g2d.fillRect(0, 0, width / 2, height);
+        g2d.setColor(Color.BLUE);
+        g2d.fillRect(width / 2, 0, width - width / 2, height);
+        g2d.dispose();
+        return image;
+    }
+
+    private void writeTiledTiff(BufferedImage image, File file, int tileSize) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("tiff").next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setTilingMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setTiling(tileSize, tileSize, 0, 0);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private BufferedImage readImage(File file, ImageTransformer transformer, long threshold) throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(file)) {
+            return ImageSourceHelpers.readImage(stream, transformer, threshold, 50_000);
+        }
+    }
+
+    private BufferedImage decode(File file, int subsampling, Dimension targetSize, long tilePixels)
+            throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(file)) {
+            ImageReader reader = ImageIO.getImageReaders(stream).next();
+            try {
+                reader.setInput(stream, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return TiledImageDecoder.decode(reader, param, targetSize, tilePixels);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private double averageRed(BufferedImage image) {
+        long sum = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                sum += (image.getRGB(x, y) >> 16) & 0xFF;
+            }
+        }
+        return (double) sum / (image.getWidth() * image.getHeight());
+    }
+}
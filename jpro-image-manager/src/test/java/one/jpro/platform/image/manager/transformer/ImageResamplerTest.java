@@ -0,0 +1,104 @@
+package one.jpro.platform.image.manager.transformer;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImageResamplerTest {
+
+    @Test
+    public void testSolidColorIsPreserved() {
+        BufferedImage image = new BufferedImage(1000, 600, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(new Color(30, 120, 200));
+        g2d.fillRect(0, 0, 1000, 600);
+        g2d.dispose();
+
+        for (ResamplingFilter filter : ResamplingFilter.values()) {
+            BufferedImage result = ImageResampler.resample(image, 100, 60, filter);
+            assertEquals(100, result.getWidth());
+            assertEquals(60, result.getHeight());
+            assertEquals(BufferedImage.TYPE_INT_RGB, result.getType());
+            for (int[] point : new int[][]{{0, 0}, {50, 30}, {99, 59}}) {
+                assertEquals(new Color(30, 120, 200).getRGB(), result.getRGB(point[0], point[1]), filter.name());
+            }
+        }
+    }
+
+    @Test
+    public void testTransparentPixelsDontBleed() {
+        // opaque red left half, fully transparent (black) right half
+        BufferedImage image = new BufferedImage(400, 100, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(Color.RED);
+        g2d.fillRect(0, 0, 200, 100);
+        g2d.dispose();
+
+        BufferedImage result = ImageResampler.resample(image, 40, 10, ResamplingFilter.LANCZOS3);
+        assertEquals(BufferedImage.TYPE_INT_ARGB, result.getType());
+        for (int x = 0; x < 40; x++) {
+            int argb = result.getRGB(x, 5);
+            if ((argb >>> 24) > 0) {
+                assertEquals(0xFF0000, argb & 0xFFFFFF, "Color of partially transparent pixel " + x);
+            }
+        }
+        assertEquals(0xFF, result.getRGB(5, 5) >>> 24);
+        assertEquals(0, result.getRGB(35, 5) >>> 24);
+    }
+
+    @Test
+    public void testDownscaleMatchesAreaAverage() throws IOException {
+        BufferedImage image = ImageIO.read(new File("src/test/resources/testImage.png"));
+        int targetWidth = 43;
+        int targetHeight = 29;
+
+        BufferedImage result = ImageResampler.resample(image, targetWidth, targetHeight, ResamplingFilter.MITCHELL);
+        BufferedImage reference = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = reference.createGraphics();
+        g2d.drawImage(image.getScaledInstance(targetWidth, targetHeight, java.awt.Image.SCALE_AREA_AVERAGING),
+                0, 0, null);
+        g2d.dispose();
+
+        double error = 0;
+        for (int y = 0; y < targetHeight; y++) {
+            for (int x = 0; x < targetWidth; x++) {
+                int expected = reference.getRGB(x, y);
+                int actual = result.getRGB(x, y);
+                for (int shift = 0; shift < 24; shift += 8) {
+                    error += Math.abs(((expected >> shift) & 0xFF) - ((actual >> shift) & 0xFF));
+                }
+            }
+        }
+        double meanError = error / (targetWidth * targetHeight * 3);
+        assertTrue(meanError < 10, "Mean error compared to area averaging: " + meanError);
+    }
+
+    @Test
+    public void testUpscale() {
+        BufferedImage image = new BufferedImage(2, 1, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, Color.BLACK.getRGB());
+        image.setRGB(1, 0, Color.WHITE.getRGB());
+
+        BufferedImage result = ImageResampler.resample(image, 20, 10, ResamplingFilter.MITCHELL);
+        assertEquals(20, result.getWidth());
+        assertEquals(10, result.getHeight());
+        int left = result.getRGB(0, 5) & 0xFF;
+        int middle = result.getRGB(10, 5) & 0xFF;
+        int right = result.getRGB(19, 5) & 0xFF;
+        assertTrue(left < middle && middle < right, left + " < " + middle + " < " + right);
+    }
+
+    @Test
+    public void testInvalidTargetSize() {
+        BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        assertThrows(IllegalArgumentException.class,
+                () -> ImageResampler.resample(image, 0, 10, ResamplingFilter.LANCZOS3));
+    }
+}
@@ -3,6 +3,7 @@ package one.jpro.platform.image.manager.transformer;
 import org.junit.jupiter.api.Test;
 
 import javax.imageio.ImageIO;
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 import java.io.File;
 
@@ -20,4 +21,10 @@ public class ImageTransformerFitWidthTest {
         assertEquals(100, transformedImage.getWidth());
         assertEquals((originalImage.getHeight() * 100) / originalImage.getWidth(), transformedImage.getHeight());
     }
+
+    @Test
+    public void testTargetSize() {
+        ImageTransformerFitWidth transformer = new ImageTransformerFitWidth(100, 2);
+        assertEquals(new Dimension(200, 100), transformer.getTargetSize(1000, 500));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package one.jpro.platform.routing
+
+import javafx.scene.layout.Pane
+import org.junit.jupiter.api.Test
+import simplefx.core._
+import simplefx.experimental._
+
+class TestResponse {
+
+  @Test
+  def synchronousRoutesStayCompleted(): Unit = inFX {
+    val route = Route.empty()
+      .and(Route.get("/a", r => Response.redirect("/1")))
+      .and(Route.get("/b", r => Response.redirect("/2")))
+
+    val response = route.apply(Request.fromString("http://localhost/b"))
+    assert(response.isCompleted())
+    assert(response.getResult() == Redirect("/2"))
+
+    val notFound = route.apply(Request.fromString("http://localhost/c"))
+    assert(notFound.isCompleted())
+    assert(notFound.getResult() == null)
+  }
+
+  @Test
+  def filtersStayCompleted(): Unit = inFX {
+    val route = Route.get("/", r => Response.node(new Pane()))
+      .filter(Filters.title("Title"))
+      .filter(Filters.FullscreenFilter(true))
+      .filter(Filters.errorPage())
+
+    val response = route.apply(Request.fromString("http://localhost/"))
+    assert(response.isCompleted())
+    val view = response.getResult().asInstanceOf[View]
+    assert(view.title == "Title")
+    assert(view.fullscreen)
+  }
+
+  @Test
+  def errorsAreRecoveredSynchronously(): Unit = inFX {
+    val route = Route.get("/", r => Response.error(new Exception("Error")))
+      .and(Route.get("/", r => Response.redirect("/not-reached")))
+      .filter(Filters.errorPage((request, ex) => Response.redirect("/error:" + ex.getMessage)))
+
+    val response = route.apply(Request.fromString("http://localhost/"))
+    assert(response.isCompleted())
+    assert(response.getResult() == Redirect("/error:Error"))
+  }
+
+  @Test
+  def asynchronousResponses(): Unit = {
+    val route = Route.get("/a", r => Response.fromFutureResult(FXFuture.unit(null)))
+      .and(Route.get("/a", r => Response.redirect("/1")))
+
+    val response = inFX(route.apply(Request.fromString("http://localhost/a")))
+    assert(!response.isCompleted())
+    assert(inFX(response.future).await == Redirect("/1"))
+    assert(inFX(Response.redirect("/2").future).await == Redirect("/2"))
+  }
+
+  @Test
+  def caseClassMembers(): Unit = {
+    assert(Response.redirect("/a") == Response.redirect("/a"))
+    assert(Response.redirect("/a").hashCode() == Response.redirect("/a").hashCode())
+    assert(Response.redirect("/a") != Response.redirect("/b"))
+    val future = FXFuture.unit[ResponseResult](null)
+    assert(Response(future) == Response(future))
+    assert(Response(future) != Response.empty())
+    val Response(extracted) = Response(future)
+    assert(extracted eq future)
+    assert(Response(future).copy().future eq future)
+  }
+}
@@ -0,0 +1,85 @@
+package one.jpro.platform.routing
+
+import org.junit.jupiter.api.Test
+import simplefx.core._
+import simplefx.util.Predef.intercept
+
+class TestRouteTable {
+
+  def result(route: Route, url: String): ResponseResult = {
+    inFX(route.apply(Request.fromString(url)).future).await
+  }
+
+  @Test
+  def exactPaths(): Unit = {
+    val table = RouteTable.builder()
+      .redirect("/", "/home")
+      .redirect("/a", "/1")
+      .redirect("/a/b", "/2")
+      .redirect("/a/b/", "/3")
+      .build()
+
+    assert(result(table, "http://localhost/") == Redirect("/home"))
+    assert(result(table, "http://localhost/a") == Redirect("/1"))
+    assert(result(table, "http://localhost/a/b") == Redirect("/2"))
+    assert(result(table, "http://localhost/a/b/") == Redirect("/3"))
+    assert(result(table, "http://localhost/a/c") == null)
+    assert(result(table, "http://localhost/b") == null)
+  }
+
+  @Test
+  def pathParameters(): Unit = {
+    val table = RouteTable.builder()
+      .get("/user/:id", r => Response.redirect("/user-" + r.getPathParameter("id").get))
+      .get("/user/:id/posts/:post", r => Response.redirect("/" + r.getPathParameter("id").get + "-" + r.getPathParameter("post").get))
+      .get("/files/*", r => Response.redirect("/file-" + r.getPathParameter("*").get))
+      .build()
+
+    assert(result(table, "http://localhost/user/42") == Redirect("/user-42"))
+    assert(result(table, "http://localhost/user/42/posts/7") == Redirect("/42-7"))
+    assert(result(table, "http://localhost/user/") == null)
+    assert(result(table, "http://localhost/files/a/b.txt") == Redirect("/file-a/b.txt"))
+    assert(result(table, "http://localhost/files/") == Redirect("/file-"))
+    assert(result(table, "http://localhost/files") == null)
+  }
+
+  @Test
+  def declarationOrder(): Unit = {
+    val table = RouteTable.builder()
+      .get("/user/:id", r => if(r.getPathParameter("id").get == "me") Response.empty() else Response.redirect("/param"))
+      .get("/user/me", r => Response.redirect("/exact"))
+      .get("/user/*", r => Response.redirect("/wildcard"))
+      .build()
+
+    assert(result(table, "http://localhost/user/42") == Redirect("/param"))
+    assert(result(table, "http://localhost/user/me") == Redirect("/exact"))
+    assert(result(table, "http://localhost/user/a/b") == Redirect("/wildcard"))
+  }
+
+  @Test
+  def nestedPathsAndDomains(): Unit = {
+    val docs = RouteTable.builder()
+      .get("/", r => Response.redirect("/docs-index:" + r.getDirectory()))
+      .get("/:page", r => Response.redirect("/docs:" + r.getPathParameter("page").get + ":" + r.getPathParameter("version").get))
+      .build()
+    val table = RouteTable.builder()
+      .domain("example.com", Route.get("/", r => Response.redirect("/example")))
+      .path("/docs/:version", docs)
+      .build()
+      .and(Route.get("/fallback", r => Response.redirect("/fallback")))
+
+    assert(result(table, "http://localhost/docs/v1/") == Redirect("/docs-index:/docs/v1"))
+    assert(result(table, "http://localhost/docs/v1/intro") == Redirect("/docs:intro:v1"))
+    assert(result(table, "http://example.com/") == Redirect("/example"))
+    assert(result(table, "http://localhost/") == null)
+    assert(result(table, "http://localhost/fallback") == Redirect("/fallback"))
+  }
+
+  @Test
+  def invalidPatterns(): Unit = {
+    intercept[IllegalArgumentException](RouteTable.builder().get("a", r => Response.empty()))
+    intercept[IllegalArgumentException](RouteTable.builder().get("/*/a", r => Response.empty()))
+    intercept[IllegalArgumentException](RouteTable.builder().get("/:a/:a", r => Response.empty()))
+    intercept[IllegalArgumentException](RouteTable.builder().path("/a/", Route.empty()))
+  }
+}
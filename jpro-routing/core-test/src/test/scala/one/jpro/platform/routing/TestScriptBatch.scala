@@ -0,0 +1,37 @@
+package one.jpro.platform.routing
+
+import javafx.scene.layout.Pane
+import one.jpro.platform.routing.sessionmanager.NavigationScript
+import org.junit.jupiter.api.Test
+
+class TestScriptBatch {
+
+  @Test
+  def quote(): Unit = {
+    assert(ScriptBatch.quote("a") == "\"a\"")
+    assert(ScriptBatch.quote("a\"b\\c") == "\"a\\\"b\\\\c\"")
+    assert(ScriptBatch.quote("a\nb</script>") == "\"a\\nb\\u003c/script>\"")
+    assert(ScriptBatch.quote("a" + 0x2028.toChar + "b") == "\"a\\u2028b\"")
+  }
+
+  @Test
+  def batch(): Unit = {
+    val batch = new ScriptBatch()
+    assert(batch.isEmpty)
+    batch.add("a();").add("b();")
+    assert(batch.size() == 2)
+    assert(batch.getScript() ==
+      "try {\na();\n} catch(e) { console.error(e); }\ntry {\nb();\n} catch(e) { console.error(e); }\n")
+  }
+
+  @Test
+  def navigationScript(): Unit = {
+    val view = View.fromNode(new Pane())
+    view.url = "/a\"b"
+    val pushed = NavigationScript.create(view, true)
+    assert(pushed.size() == 6)
+    assert(pushed.getScript().contains("history.pushState(null, null, \"/a\\\"b\");"), pushed.getScript())
+    assert(pushed.getScript().indexOf("pushState") < pushed.getScript().indexOf("replaceState"))
+    assert(NavigationScript.create(view, false).size() == 5)
+  }
+}
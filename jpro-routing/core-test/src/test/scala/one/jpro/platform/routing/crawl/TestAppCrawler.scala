@@ -44,6 +44,25 @@ class TestAppCrawler {
     assert(result.deadLinks.contains("/page3"), result.pages)
   }
 
+  @Test
+  def testParallelCrawl(): Unit = {
+    def route = Route.empty()
+      .and(Route.redirect("/", "/page/0"))
+      .and(r => {
+        val n = r.getPath().stripPrefix("/page/").toInt
+        if(n < 20) Response.view(pageWithLink(List("/page/" + (n + 1), "/page/" + (n + 2), "/"))) else Response.empty()
+      })
+    val result = AppCrawler.crawlRoute("http://localhost", () => route, 4, Int.MaxValue, null)
+
+    assert(result.pages.toSet == (0 to 20).map("/page/" + _).toSet, result.pages)
+    assert(result.pages.length == 21, result.pages)
+    assert(result.reports.map(_.path) == result.pages)
+    assert(result.deadLinks.toSet == Set("/page/21", "/page/22"), result.deadLinks)
+
+    val limited = AppCrawler.crawlRoute("http://localhost", () => route, 4, 5, null)
+    assert(limited.pages.length + limited.deadLinks.length == 4, limited.pages)
+  }
+
   @Test
   def testEmptyImage(): Unit = {
     def route = Route.empty()
@@ -0,0 +1,92 @@
+package one.jpro.platform.routing.crawl
+
+import one.jpro.platform.routing.crawl.AppCrawler.{CrawlReportApp, CrawlReportPage, ImageInfo, LinkInfo}
+import org.junit.jupiter.api.Test
+
+import java.io.File
+import java.nio.file.Files
+import java.time.Duration
+
+class TestCrawlHistory {
+
+  def page(path: String, fingerprint: String): CrawlReportPage = {
+    CrawlReportPage(path, List(LinkInfo("/b", "desc")), List(ImageInfo("/img.png", null)), "title", null, fingerprint)
+  }
+
+  @Test
+  def lastModifiedFollowsFingerprint(): Unit = {
+    val history = new CrawlHistory()
+    assert(history.update(page("/a", "1"), 100).lastModified == 100)
+    assert(history.update(page("/a", "1"), 200).lastModified == 100)
+    assert(history.get("/a").lastCrawled == 200)
+    assert(history.update(page("/a", "2"), 300).lastModified == 300)
+  }
+
+  @Test
+  def freshPages(): Unit = {
+    val history = new CrawlHistory()
+    val now = System.currentTimeMillis()
+    history.update(page("/a", "1"), now)
+    history.update(page("/b", "1"), now - Duration.ofHours(2).toMillis)
+    assert(history.getFresh("/a", Duration.ofHours(1)) != null)
+    assert(history.getFresh("/b", Duration.ofHours(1)) == null)
+    assert(history.getFresh("/a", null) == null)
+    assert(history.getFresh("/c", Duration.ofHours(1)) == null)
+
+    history.retain(CrawlReportApp(List("/b"), List(page("/b", "1")), Nil))
+    assert(history.size() == 1)
+    assert(history.toReport().pages == List("/b"))
+  }
+
+  @Test
+  def saveAndLoad(): Unit = {
+    val dir = Files.createTempDirectory("crawl-history").toFile
+    val file = new File(dir, "history.bin")
+    assert(CrawlHistory.load(file).size() == 0)
+
+    val history = new CrawlHistory()
+    history.update(page("/a", "1"), 100)
+    history.update(page("/b", "2"), 200)
+    history.save(file)
+
+    val loaded = CrawlHistory.load(file)
+    assert(loaded.size() == 2)
+    assert(loaded.get("/a").page == page("/a", "1").copy(description = "", lastModified = 100,
+      pictures = List(ImageInfo("/img.png", ""))))
+    assert(loaded.get("/b").lastCrawled == 200)
+
+    Files.write(file.toPath, Array[Byte](1, 2, 3))
+    assert(CrawlHistory.load(file).size() == 0)
+  }
+
+  @Test
+  def saveLongStrings(): Unit = {
+    val dir = Files.createTempDirectory("crawl-history").toFile
+    val file = new File(dir, "history.bin")
+    val description = "\u00e4" * 100000
+
+    val history = new CrawlHistory()
+    history.update(page("/a", "1").copy(description = description), 100)
+    history.save(file)
+
+    assert(CrawlHistory.load(file).get("/a").page.description == description)
+  }
+
+  @Test
+  def failedSaveRemovesTemporaryFile(): Unit = {
+    val dir = Files.createTempDirectory("crawl-history").toFile
+    val file = new File(dir, "history.bin")
+    // a non-empty directory can't be replaced by the history file
+    Files.createDirectories(new File(file, "content").toPath)
+
+    val history = new CrawlHistory()
+    history.update(page("/a", "1"), 100)
+    try {
+      history.save(file)
+      assert(false, "saving should fail")
+    } catch {
+      case _: java.io.IOException =>
+    }
+    assert(!new File(dir, "history.bin.tmp").exists())
+  }
+}
@@ -0,0 +1,43 @@
+package one.jpro.platform.routing.crawl
+
+import one.jpro.platform.routing.crawl.AppCrawler.{CrawlReportApp, CrawlReportPage, ImageInfo, LinkInfo}
+import org.junit.jupiter.api.Test
+
+class TestHtmlSnapshots {
+
+  val report = CrawlReportApp(List("/", "/a"), List(
+    CrawlReportPage("/", List(LinkInfo("/a?x=1&y=2", "Page <A>"), LinkInfo("/b", "")),
+      List(ImageInfo("/img.png", "An \"image\""), ImageInfo("http://cdn/img.png", null)), "Home", "The home page"),
+    CrawlReportPage("/a", Nil, Nil, "A", "")), Nil)
+
+  @Test
+  def render(): Unit = {
+    val html = new String(new HtmlSnapshots("http://localhost", report).get("/"), "UTF-8")
+    assert(html.contains("<title>Home</title>"), html)
+    assert(html.contains("<meta name=\"description\" content=\"The home page\">"), html)
+    assert(html.contains("<link rel=\"canonical\" href=\"http://localhost/\">"), html)
+    assert(html.contains("<a href=\"/a?x=1&amp;y=2\">Page &lt;A&gt;</a>"), html)
+    assert(html.contains("<a href=\"/b\">/b</a>"), html)
+    assert(html.contains("<img src=\"http://localhost/img.png\" alt=\"An &quot;image&quot;\">"), html)
+    assert(html.contains("<img src=\"http://cdn/img.png\" alt=\"\">"), html)
+  }
+
+  @Test
+  def boundedCache(): Unit = {
+    val snapshots = new HtmlSnapshots("http://localhost", report, 1)
+    assert(snapshots.get("/missing") == null)
+    val home = snapshots.get("/")
+    assert(snapshots.get("/") eq home)
+    assert(snapshots.get("/a") != null)
+    assert(snapshots.cacheSize() == 1)
+    assert(snapshots.get("/") ne home)
+  }
+
+  @Test
+  def bots(): Unit = {
+    assert(HtmlSnapshots.isBot("Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)"))
+    assert(HtmlSnapshots.isBot("Mozilla/5.0 (compatible; bingbot/2.0; +http://www.bing.com/bingbot.htm)"))
+    assert(!HtmlSnapshots.isBot("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 Chrome/120.0 Safari/537.36"))
+    assert(!HtmlSnapshots.isBot(null))
+  }
+}
@@ -1,11 +1,16 @@
 package one.jpro.platform.routing.crawl
 
 import one.jpro.platform.routing.Route._
+import one.jpro.platform.routing.crawl.AppCrawler.{CrawlReportApp, CrawlReportPage, ImageInfo}
 import one.jpro.platform.routing.crawl.TestUtils._
 import one.jpro.platform.routing.{Redirect, Response, Route, RouteNode}
 import org.junit.jupiter.api.Test
 import simplefx.experimental._
 
+import java.io.ByteArrayInputStream
+import java.util.zip.GZIPInputStream
+import scala.collection.JavaConverters._
+
 class TestSitemapGenerator {
   @Test
   def test(): Unit = {
@@ -35,4 +40,52 @@ class TestSitemapGenerator {
     println("SiteMap2: " + sm)
     assert(!sm.contains("mailto"), "sitemap contained mailto!")
   }
+
+  @Test
+  def testLastModified(): Unit = {
+    val report = CrawlReportApp(List("/", "/a"), List(
+      CrawlReportPage("/", Nil, Nil, "title", "desc", "1", 1700000000123L),
+      CrawlReportPage("/a", Nil, Nil, "title", "desc")), Nil)
+    val sm = SitemapGenerator.createSitemap("http://localhost", report)
+    assert(sm.contains("<lastmod>2023-11-14T22:13:20Z</lastmod>"), sm)
+    assert(sm.split("<lastmod>").length == 2, sm)
+  }
+
+  @Test
+  def testImages(): Unit = {
+    val report = CrawlReportApp(List("/"), List(
+      CrawlReportPage("/", Nil, List(ImageInfo("/a.png", ""), ImageInfo("http://external/b.png", "")), "title", "desc")), Nil)
+    val sm = SitemapGenerator.createSitemap("http://localhost", report)
+    assert(sm.contains("<image:image><image:loc>http://localhost/a.png</image:loc></image:image>"), sm)
+    assert(sm.contains("<image:image><image:loc>http://external/b.png</image:loc></image:image>"), sm)
+    assert(sm.split("xmlns:image").length == 2, sm)
+  }
+
+  @Test
+  def testSplitAndGzip(): Unit = {
+    val report = CrawlReportApp(Nil, (1 to 5).map(i => CrawlReportPage("/page" + i + "?a=1&b=2", Nil, Nil, "title", "desc", "", i * 1000000000000L)).toList, Nil)
+
+    val single = SitemapGenerator.createSitemaps("http://localhost", report, false)
+    assert(single.getPaths().asScala == Set("/sitemap.xml"))
+    assert(new String(single.get("/sitemap.xml"), "UTF-8") == SitemapGenerator.createSitemap("http://localhost", report))
+    assert(SitemapGenerator.createSitemap("http://localhost", report).contains("<loc>http://localhost/page1?a=1&amp;b=2</loc>"))
+
+    val split = SitemapGenerator.createSitemaps("http://localhost", report, false, 2, SitemapGenerator.MAX_BYTES)
+    assert(split.getPaths().asScala == Set("/sitemap.xml", "/sitemap-1.xml", "/sitemap-2.xml", "/sitemap-3.xml"))
+    val index = new String(split.get("/sitemap.xml"), "UTF-8")
+    assert(index.contains("<sitemapindex"), index)
+    assert(index.contains("<loc>http://localhost/sitemap-3.xml</loc><lastmod>" + SitemapGenerator.formatLastModified(5000000000000L)), index)
+    assert(new String(split.get("/sitemap-3.xml"), "UTF-8").split("<url>").length == 2)
+
+    val bySize = SitemapGenerator.createSitemaps("http://localhost", report, false, 100, 400)
+    bySize.getPaths().asScala.filter(_ != "/sitemap.xml").foreach { path =>
+      assert(bySize.get(path).length <= 400, path)
+    }
+    assert(bySize.getPaths().size() > 2)
+
+    val gzip = SitemapGenerator.createSitemaps("http://localhost", report, true)
+    assert(gzip.getPaths().asScala == Set("/sitemap.xml", "/sitemap-1.xml.gz"))
+    val unzipped = new GZIPInputStream(new ByteArrayInputStream(gzip.get("/sitemap-1.xml.gz")))
+    assert(new String(unzipped.readAllBytes(), "UTF-8") == SitemapGenerator.createSitemap("http://localhost", report))
+  }
 }
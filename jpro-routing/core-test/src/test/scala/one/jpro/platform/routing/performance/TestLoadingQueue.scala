@@ -0,0 +1,64 @@
+package one.jpro.platform.routing.performance
+
+import javafx.scene.layout.Pane
+import org.junit.jupiter.api.Test
+
+class TestLoadingQueue {
+
+  def hidden(id: String): Pane = {
+    val pane = new Pane()
+    pane.setId(id)
+    pane.setVisible(false)
+    pane
+  }
+
+  @Test
+  def priorities(): Unit = {
+    val queue = new LoadingQueue()
+    val nodes = List(hidden("a"), hidden("b"), hidden("c"), hidden("d"))
+    queue.add(nodes(0), 0)
+    queue.add(nodes(1), 10)
+    queue.add(nodes(2), 0)
+    queue.add(nodes(3), 10)
+
+    var order = List.empty[String]
+    while(!queue.isEmpty) {
+      assert(queue.nextBatch(Long.MaxValue) == 1)
+      order ++= nodes.filter(x => x.isVisible && !order.contains(x.getId)).map(_.getId)
+    }
+    assert(order == List("b", "d", "a", "c"), order)
+  }
+
+  @Test
+  def batchSize(): Unit = {
+    val queue = new LoadingQueue()
+    (1 to 100).foreach(i => queue.add(hidden(i.toString), 0))
+    assert(queue.getBatchSize() == 1)
+    queue.adapt(10, 50)
+    queue.adapt(10, 50)
+    assert(queue.getBatchSize() == 4)
+    assert(queue.nextBatch(Long.MaxValue) == 4)
+    assert(queue.size() == 96)
+    queue.adapt(100, 50)
+    assert(queue.getBatchSize() == 2)
+    (1 to 20).foreach(_ => queue.adapt(10, 50))
+    assert(queue.getBatchSize() == LoadingQueue.MAX_BATCH_SIZE)
+    (1 to 20).foreach(_ => queue.adapt(100, 50))
+    assert(queue.getBatchSize() == 1)
+
+    queue.adapt(10, 50)
+    assert(queue.nextBatch(0) == 1)
+  }
+
+  @Test
+  def networkLatencyIsNotCounted(): Unit = {
+    val queue = new LoadingQueue()
+    // a round trip of 200 with a budget of 50 is mostly latency, so the batches still grow
+    (1 to 4).foreach(_ => queue.adapt(200, 50))
+    assert(queue.getBatchSize() == 16)
+    queue.adapt(240, 50)
+    assert(queue.getBatchSize() == 32)
+    queue.adapt(300, 50)
+    assert(queue.getBatchSize() == 16)
+  }
+}
@@ -0,0 +1,93 @@
+package one.jpro.platform.routing.sessionmanager
+
+import javafx.scene.Node
+import javafx.scene.layout.Pane
+import one.jpro.platform.routing.{Response, View}
+import org.junit.jupiter.api.Test
+
+import scala.collection.mutable
+
+class TestPrefetchCache {
+
+  var time = 0L
+  val closed = mutable.ArrayBuffer.empty[String]
+
+  def cache(maxAge: Long, maxEntries: Int): PrefetchCache = new PrefetchCache(maxAge, maxEntries) {
+    override protected def currentTime(): Long = time
+  }
+
+  @Test
+  def responsesAreUsedOnce(): Unit = {
+    val prefetched = cache(1000, 10)
+    val response = Response.redirect("/b")
+    prefetched.put("/a", response)
+    assert(prefetched.contains("/a"))
+    assert(prefetched.take("/a") eq response)
+    assert(prefetched.take("/a") == null)
+  }
+
+  @Test
+  def responsesExpire(): Unit = {
+    val prefetched = cache(1000, 10)
+    prefetched.put("/a", Response.empty())
+    time = 600
+    prefetched.put("/b", Response.empty())
+    time = 1200
+    assert(!prefetched.contains("/a"))
+    assert(prefetched.contains("/b"))
+    assert(prefetched.size() == 1)
+    time = 1700
+    assert(prefetched.take("/b") == null)
+  }
+
+  @Test
+  def oldestResponsesAreRemoved(): Unit = {
+    val prefetched = cache(1000, 2)
+    prefetched.put("/a", Response.empty())
+    prefetched.put("/b", Response.empty())
+    prefetched.put("/c", Response.empty())
+    assert(prefetched.size() == 2)
+    assert(!prefetched.contains("/a"))
+    val disabled = cache(1000, 0)
+    disabled.put("/a", Response.empty())
+    assert(disabled.size() == 0)
+  }
+
+  def view(name: String): View = new View {
+    override def title: String = name
+    override def description: String = ""
+    override def content: Node = new Pane()
+    override def onClose(): Unit = closed += name
+  }
+
+  @Test
+  def droppedViewsAreClosed(): Unit = {
+    val evicted = mutable.ArrayBuffer.empty[View]
+    val prefetched = cache(1000, 2)
+    prefetched.setOnEvicted(v => evicted += v)
+    prefetched.put("/a", Response.view(view("/a")))
+    prefetched.put("/a", Response.view(view("/a2")))
+    assert(closed == List("/a"))
+    prefetched.put("/b", Response.view(view("/b")))
+    prefetched.put("/c", Response.view(view("/c")))
+    assert(closed == List("/a", "/a2"))
+    time = 1500
+    assert(prefetched.size() == 0)
+    assert(closed == List("/a", "/a2", "/b", "/c"))
+
+    val taken = view("/d")
+    prefetched.put("/d", Response.view(taken))
+    prefetched.put("/e", Response.view(view("/e")))
+    prefetched.take("/d")
+    prefetched.clear()
+    assert(closed == List("/a", "/a2", "/b", "/c", "/e"))
+    assert(evicted.map(_.title) == closed)
+  }
+
+  @Test
+  def failedResponsesAreNotUsed(): Unit = {
+    val prefetched = cache(1000, 10)
+    prefetched.put("/a", Response.error(new Exception("Error")))
+    assert(prefetched.take("/a") == null)
+  }
+}
@@ -85,4 +85,63 @@ class TestSessionManager {
       println("Label Text: " + view.realContent.asInstanceOf[Label].getText)
     }
   }
+
+  @Test
+  def testPrefetch(): Unit = {
+    var resolved = 0
+    val route = Route.empty()
+      .and(Route.get("/",r => Response.node(new Label("Empty"))))
+      .and(Route.get("/data", r => {
+        resolved += 1
+        Response.node(new Label("Data"))
+      }))
+
+    val app = new RouteApp {
+      override def createRoute(): Route = route
+    }
+    val stage = inFX(new javafx.stage.Stage())
+    inFX(app.startFuture(stage)).future.await
+
+    inFX {
+      app.getSessionManager().setPrefetchCache(new PrefetchCache())
+      app.getSessionManager().prefetch("/data")
+      app.getSessionManager().prefetch("/data")
+      assert(resolved == 1)
+    }
+    inFX(app.getSessionManager().gotoURL("/data").future).await
+    inFX {
+      assert(resolved == 1)
+      assert(app.getSessionManager().view.realContent.asInstanceOf[Label].getText == "Data")
+      assert(app.getSessionManager().getPrefetchCache().size() == 0)
+    }
+  }
+
+  @Test
+  def testPrefetchIsLimitedPerPage(): Unit = {
+    var resolved = 0
+    val route = Route.empty()
+      .and(Route.get("/",r => Response.node(new Label("Empty"))))
+      .and(Route.get("/other",r => Response.node(new Label("Other"))))
+      .and(r => {
+        resolved += 1
+        Response.node(new Label("Data"))
+      })
+
+    val app = new RouteApp {
+      override def createRoute(): Route = route
+    }
+    val stage = inFX(new javafx.stage.Stage())
+    inFX(app.startFuture(stage)).future.await
+
+    inFX {
+      app.getSessionManager().setPrefetchCache(new PrefetchCache(10000, 2))
+      (1 to 5).foreach(i => app.getSessionManager().prefetch("/data" + i))
+      assert(resolved == 2)
+    }
+    inFX(app.getSessionManager().gotoURL("/other").future).await
+    inFX {
+      app.getSessionManager().prefetch("/data3")
+      assert(resolved == 3)
+    }
+  }
 }
@@ -0,0 +1,95 @@
+package one.jpro.platform.routing.sessionmanager
+
+import javafx.scene.Node
+import javafx.scene.layout.{Pane, VBox}
+import one.jpro.platform.routing.View
+import org.junit.jupiter.api.Test
+
+import scala.collection.mutable
+
+class TestViewCache {
+
+  val closed = mutable.ArrayBuffer.empty[String]
+
+  def view(url: String, node: Node = new Pane(), isCacheable: Boolean = true): View = {
+    val v = new View {
+      override def title: String = url
+      override def description: String = ""
+      override def content: Node = node
+      override def cacheable: Boolean = isCacheable
+      override def onClose(): Unit = closed += url
+    }
+    v.url = url
+    v
+  }
+
+  def nodes(n: Int): Node = {
+    val box = new VBox()
+    (1 until n).foreach(_ => box.getChildren.add(new Pane()))
+    box
+  }
+
+  @Test
+  def evictsLeastRecentViews(): Unit = {
+    val evicted = mutable.ArrayBuffer.empty[View]
+    val cache = new ViewCache(2, 1000)
+    cache.setOnEvicted(v => evicted += v)
+    val a = view("/a")
+    assert(cache.put(a, null))
+    assert(cache.put(view("/b"), null))
+    assert(cache.put(view("/c"), null))
+    assert(cache.size() == 2)
+    assert(closed == Seq("/a"))
+    assert(evicted == Seq(a))
+    assert(cache.take("/a") == null)
+    assert(cache.take("/b").url == "/b")
+    assert(cache.size() == 1)
+
+    cache.clear()
+    assert(closed == Seq("/a", "/c"))
+    assert(cache.size() == 0 && cache.getNodeCount() == 0)
+  }
+
+  @Test
+  def evictsByNodeCount(): Unit = {
+    val cache = new ViewCache(10, 10)
+    assert(ViewCache.countNodes(nodes(4)) == 4)
+    assert(cache.put(view("/a", nodes(4)), null))
+    assert(cache.put(view("/b", nodes(4)), null))
+    assert(cache.getNodeCount() == 8)
+    assert(cache.put(view("/c", nodes(4)), null))
+    assert(cache.getNodeCount() == 8)
+    assert(closed == Seq("/a"))
+    assert(!cache.put(view("/d", nodes(11)), null))
+    assert(cache.take("/c") != null)
+    assert(cache.getNodeCount() == 4)
+  }
+
+  @Test
+  def rejectsViews(): Unit = {
+    val cache = new ViewCache()
+    assert(!cache.put(view(null), null))
+    assert(!cache.put(view("/a", isCacheable = false), null))
+    assert(!new ViewCache(0, 1000).put(view("/a"), null))
+
+    val shared = new Pane()
+    val old = view("/a", shared)
+    val newView = view("/b", shared).mapContent(x => x)
+    assert(!cache.put(old, newView))
+    assert(cache.size() == 0)
+    assert(closed.isEmpty)
+  }
+
+  @Test
+  def replacesViewsWithTheSameUrl(): Unit = {
+    val cache = new ViewCache()
+    val a1 = view("/a")
+    val a2 = view("/a")
+    assert(cache.put(a1, null))
+    assert(cache.put(a1, null))
+    assert(closed.isEmpty)
+    assert(cache.put(a2, null))
+    assert(closed == Seq("/a"))
+    assert(cache.take("/a") eq a2)
+  }
+}
@@ -9,7 +9,7 @@ object Filters {
   def FullscreenFilter(fullscreenValue: Boolean): Filter = { route => { request =>
       val r = route.apply(request)
 
-      Response(r.future.map {
+      r.map {
         case x: View =>
           new View {
             override def title: String = x.title
@@ -17,16 +17,17 @@ object Filters {
             override def content: all.Node = x.realContent
 
             override def fullscreen: Boolean = fullscreenValue
+            override def cacheable: Boolean = x.cacheable
           }
         case x => x
-      })
+      }
     }
   }
   def title(title: String): Filter = { route => { request =>
       val r = route.apply(request)
       val _title = title
 
-      Response(r.future.map {
+      r.map {
         case x: View =>
           new View {
             override def title: String = _title
@@ -34,9 +35,10 @@ object Filters {
             override def content: all.Node = x.realContent
 
             override def fullscreen: Boolean = x.fullscreen
+            override def cacheable: Boolean = x.cacheable
           }
         case x => x
-      })
+      }
     }
   }
 
@@ -45,9 +47,9 @@ object Filters {
     route => { request =>
       try {
         val r = route.apply(request)
-        Response.fromFuture(r.future.map(x => Response.fromResult(x)).exceptionally { ex =>
+        r.recover { ex =>
           biFunction.apply(request, ex)
-        })
+        }
       } catch {
         case ex: Throwable =>
           biFunction.apply(request, ex)
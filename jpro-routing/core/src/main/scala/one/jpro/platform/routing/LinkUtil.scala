@@ -7,6 +7,7 @@ import simplefx.util.Predef._
 
 import java.net.URI
 import one.jpro.platform.routing.sessionmanager.SessionManager
+import one.jpro.platform.utils.TreeShowing
 import org.slf4j.{Logger, LoggerFactory}
 
 object LinkUtil {
@@ -69,6 +70,52 @@ object LinkUtil {
     setLinkSimple(url, text, false, external)(node)
   }
 
+  /**
+   * The time in milliseconds the mouse must stay on a link, before it's prefetched by `setPrefetchOnHover`.
+   */
+  val PREFETCH_HOVER_DELAY = 100.0
+
+  /**
+   * Prefetches the link of the node, when the mouse stays on it for `PREFETCH_HOVER_DELAY`,
+   * so moving the mouse across a page doesn't prefetch every link it passes.
+   * Requires a `PrefetchCache` on the `SessionManager`.
+   * The route of the link runs before it's clicked, so it must only be used for links
+   * whose route has no side effects, for example not for a logout link.
+   * See `SessionManager.prefetch` for which routes profit from prefetching.
+   */
+  def setPrefetchOnHover(node: Node): Unit = {
+    val delay = new javafx.animation.PauseTransition(javafx.util.Duration.millis(PREFETCH_HOVER_DELAY))
+    delay.setOnFinished((_: javafx.event.ActionEvent) => prefetch(node))
+    node.addEventHandler(javafx.scene.input.MouseEvent.MOUSE_ENTERED, (_: javafx.scene.input.MouseEvent) => delay.playFromStart())
+    node.addEventHandler(javafx.scene.input.MouseEvent.MOUSE_EXITED, (_: javafx.scene.input.MouseEvent) => delay.stop())
+  }
+
+  /**
+   * Prefetches the link of the node, when it's shown.
+   * Requires a `PrefetchCache` on the `SessionManager`.
+   * The route of the link runs even if it's never clicked, so it must only be used for links
+   * whose route has no side effects, for example not for a logout link.
+   * Only the first `PrefetchCache.getMaxEntries()` links shown on a page are prefetched,
+   * so it should be used for a few important links with asynchronous routes, not for every link of a page.
+   */
+  def setPrefetchOnShowing(node: Node): Unit = {
+    val showing = TreeShowing.treeShowing(node)
+    showing.addListener((_, _, isShowing) => if(isShowing) prefetch(node))
+    if(showing.get()) prefetch(node)
+  }
+
+  /**
+   * Resolves the route of the link of the node with `SessionManager.prefetch`. Only internal links are prefetched.
+   */
+  def prefetch(node: Node): Unit = {
+    node.getProperties.get("link") match {
+      case url: String if url.startsWith("/") || url.startsWith("./") || url.startsWith("../") =>
+        val sm = SessionManagerContext.getContext(node)
+        if(sm != null) sm.prefetch(url)
+      case _ =>
+    }
+  }
+
   def goBack(node: Node): Unit = {
     SessionManagerContext.getContext(node).goBack()
   }
@@ -18,7 +18,8 @@ case class Request (
   private val directory: String,
   private val queryParameters: Map[String,String],
   private val origOldContent: WeakReference[Node],
-  private val oldContent: WeakReference[Node]
+  private val oldContent: WeakReference[Node],
+  private val pathParameters: Map[String,String] = Map()
 ) {
 
   assert(resolve(path) == origPath, s"resolve path: ${resolve(path)} != origPath: ${origPath}")
@@ -43,6 +44,17 @@ case class Request (
 
   def getQueryParametersScala(): Map[String,String] = queryParameters
 
+  def getPathParameter(key: String): Option[String] = pathParameters.get(key)
+  def getPathParameterOrElse(key: String, default: String): String = pathParameters.getOrElse(key, default)
+  def getPathParameters(): JMap[String,String] = {
+    import scala.collection.JavaConverters._
+    pathParameters.asJava
+  }
+  def getPathParametersScala(): Map[String,String] = pathParameters
+  def withPathParameters(parameters: Map[String,String]): Request = {
+    if(parameters.isEmpty) this else this.copy(pathParameters = pathParameters ++ parameters)
+  }
+
   def resolve(path: String): String = {
     assert(path.startsWith("/") || path.startsWith("./") || path.startsWith("../"), s"Path must start with / or ./ or ../ but was: ${path}")
 
@@ -2,17 +2,104 @@ package one.jpro.platform.routing
 
 import simplefx.experimental.FXFuture
 
-case class Response(future: FXFuture[ResponseResult]) {
-  assert(future != null, "future must not be null - but it's value can be null")
+import java.util.function.Function
+
+/**
+ * The response of a route. Synchronous responses carry their result inline, so combining them with
+ * `map`, `flatMap`, `recover`, filters and `Route.and` doesn't allocate any futures.
+ * Only responses created from a future are asynchronous.
+ *
+ * For compatibility, a response still behaves like a case class of its `future`. Completed responses are equal,
+ * when they carry equal results.
+ */
+class Response private(private val value: ResponseResult, private val failure: Throwable,
+                       private var _future: FXFuture[ResponseResult], private val completed: Boolean)
+  extends Product with Serializable {
+
+  def this(future: FXFuture[ResponseResult]) = {
+    this(null, null, future, false)
+    assert(future != null, "future must not be null - but it's value can be null")
+  }
+
+  def future: FXFuture[ResponseResult] = {
+    if(_future == null) {
+      _future = if(failure != null) FXFuture.error(failure) else FXFuture.unit(value)
+    }
+    _future
+  }
+
+  def isCompleted(): Boolean = completed
+  def isError(): Boolean = failure != null
+
+  def getResult(): ResponseResult = {
+    if(!completed) throw new IllegalStateException("Response is not completed yet")
+    if(failure != null) throw failure
+    value
+  }
+
+  def map(f: Function[ResponseResult, ResponseResult]): Response = {
+    if(!completed) Response(future.map(x => f.apply(x)))
+    else if(failure != null) this
+    else try {
+      Response.fromResult(f.apply(value))
+    } catch {
+      case ex: Throwable => Response.failed(ex)
+    }
+  }
+
+  def flatMap(f: Function[ResponseResult, Response]): Response = {
+    if(!completed) Response(future.flatMap(x => f.apply(x).future))
+    else if(failure != null) this
+    else try {
+      f.apply(value)
+    } catch {
+      case ex: Throwable => Response.failed(ex)
+    }
+  }
+
+  def recover(f: Function[Throwable, Response]): Response = {
+    if(!completed) Response.fromFuture(future.map(x => Response.fromResult(x)).exceptionally(ex => f.apply(ex)))
+    else if(failure == null) this
+    else f.apply(failure)
+  }
+
+  def copy(future: FXFuture[ResponseResult] = future): Response = Response(future)
+
+  override def productArity: Int = 1
+  override def productElement(n: Int): Any = if(n == 0) future else throw new IndexOutOfBoundsException(n.toString)
+  override def productPrefix: String = "Response"
+  override def canEqual(that: Any): Boolean = that.isInstanceOf[Response]
+
+  override def equals(obj: Any): Boolean = obj match {
+    case that: Response if that eq this => true
+    case that: Response if completed && that.completed => value == that.value && failure == that.failure
+    case that: Response if !completed && !that.completed => future == that.future
+    case _ => false
+  }
+
+  override def hashCode(): Int = if(completed) (value, failure).## else future.##
+
+  override def toString: String = {
+    if(!completed) s"Response($future)"
+    else if(failure != null) s"Response(failed: $failure)"
+    else s"Response($value)"
+  }
 }
-object Response {
-  def empty(): Response = Response(FXFuture.unit(null))
-  def redirect(to: String): Response = Response(FXFuture.unit(Redirect(to)))
-  def error(ex: Exception): Response = Response(FXFuture.error(ex))
+object Response extends (FXFuture[ResponseResult] => Response) {
+  private val emptyResponse = fromResult(null)
+
+  def apply(future: FXFuture[ResponseResult]): Response = new Response(future)
+  def unapply(response: Response): Option[FXFuture[ResponseResult]] = Some(response.future)
 
-  def view(view: View): Response = Response(FXFuture.unit(view))
-  def node(node: javafx.scene.Node): Response = Response(FXFuture.unit(View.fromNode(node)))
+  def empty(): Response = emptyResponse
+  def redirect(to: String): Response = fromResult(Redirect(to))
+  def error(ex: Exception): Response = failed(ex)
+
+  def view(view: View): Response = fromResult(view)
+  def node(node: javafx.scene.Node): Response = fromResult(View.fromNode(node))
   def fromFuture(future: FXFuture[Response]): Response = Response(future.flatMap(_.future))
-  def fromResult(result: ResponseResult): Response = Response(FXFuture.unit(result))
+  def fromResult(result: ResponseResult): Response = new Response(result, null, null, true)
   def fromFutureResult(future: FXFuture[ResponseResult]): Response = Response(future)
+
+  private def failed(ex: Throwable): Response = new Response(null, ex, null, true)
 }
@@ -21,13 +21,14 @@ trait Route {
   def and(x: Route): Route = { request =>
     val r = apply(request)
     assert(r != null, "Route returned null: " + this + " for " + request)
-    Response(r.future.flatMap{ r =>
-      if(r == null) {
+    if(r.isCompleted() && (r.isError() || r.getResult() != null)) r
+    else r.flatMap { result =>
+      if(result == null) {
         val r2 = x.apply(request)
         assert(r2 != null, "Route returned null: " + x + " for " + request)
-        r2.future
-      } else FXFuture.unit(r)
-    })
+        r2
+      } else Response.fromResult(result)
+    }
   }
   def domain(domain: String, route: Route): Route = and((r: Request) => {
     if(r.getDomain() == domain) {
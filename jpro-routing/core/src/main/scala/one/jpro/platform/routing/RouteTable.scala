@@ -0,0 +1,164 @@
+package one.jpro.platform.routing
+
+import java.util.function.Function
+import scala.collection.mutable
+
+/**
+ * A route, which dispatches requests through a trie of path segments instead of trying each route in turn.
+ * The declarations are matched in the order they were added, like routes combined with `Route.and`.
+ * A segment `:name` matches any non-empty segment and is available as path parameter `name`,
+ * a trailing segment `*` matches the rest of the path, which is available as path parameter `*`.
+ *
+ * {{{
+ * RouteTable.builder()
+ *   .get("/", r => Response.node(new Label("Home")))
+ *   .get("/user/:id", r => Response.node(new Label(r.getPathParameterOrElse("id", ""))))
+ *   .redirect("/home", "/")
+ *   .path("/docs", docsRoute)
+ *   .build()
+ * }}}
+ */
+object RouteTable {
+  def builder(): Builder = new Builder()
+
+  class Builder private[RouteTable]() {
+    private val root = new Node()
+    private val domains = mutable.ArrayBuffer.empty[(String, Entry)]
+    private var entryCount = 0
+    private var built = false
+
+    def get(path: String, f: Function[Request, Response]): Builder = {
+      val pattern = parse(path)
+      val wildcard = pattern.lastOption.contains("*")
+      val segments = if(wildcard) pattern.dropRight(1) else pattern
+      add(segments, wildcard, (request, parameters, depth, pathSegments) => {
+        val allParameters = if(wildcard) parameters + ("*" -> pathSegments.drop(depth).mkString("/")) else parameters
+        f.apply(request.withPathParameters(allParameters))
+      })
+    }
+
+    def redirect(path: String, to: String): Builder = get(path, (r: Request) => Response.redirect(to))
+
+    def path(path: String, route: Route): Builder = {
+      val segments = parse(path)
+      if(segments.last.isEmpty || segments.last == "*") {
+        throw new IllegalArgumentException("Path prefix must not end with / or *: " + path)
+      }
+      add(segments, true, (request, parameters, depth, pathSegments) => {
+        val prefix = pathSegments.take(depth).mkString("/", "/", "")
+        val r = request.withPathParameters(parameters)
+        route.apply(r.copy(path = r.getPath().drop(prefix.length), directory = r.resolve(prefix)))
+      })
+    }
+
+    def domain(domain: String, route: Route): Builder = {
+      checkNotBuilt()
+      domains += domain -> Entry(nextIndex(), Array(), false, (request, _, _, _) => route.apply(request))
+      this
+    }
+
+    def build(): RouteTable = {
+      checkNotBuilt()
+      built = true
+      new RouteTable(root, domains.toArray)
+    }
+
+    private def parse(path: String): Array[String] = {
+      if(!path.startsWith("/")) {
+        throw new IllegalArgumentException("Path must start with /: " + path)
+      }
+      val segments = path.substring(1).split("/", -1)
+      if(segments.dropRight(1).contains("*")) {
+        throw new IllegalArgumentException("Wildcard * is only allowed as last segment: " + path)
+      }
+      val names = segments.filter(_.startsWith(":")).map(_.substring(1))
+      if(names.exists(_.isEmpty) || names.distinct.length != names.length) {
+        throw new IllegalArgumentException("Path parameters must have distinct non-empty names: " + path)
+      }
+      segments
+    }
+
+    private def add(segments: Array[String], rest: Boolean, handler: Handler): Builder = {
+      checkNotBuilt()
+      var node = root
+      segments.foreach { segment =>
+        node = if(segment.startsWith(":")) {
+          if(node.param == null) node.param = new Node()
+          node.param
+        } else node.children.getOrElseUpdate(segment, new Node())
+      }
+      val entry = Entry(nextIndex(), segments.filter(_.startsWith(":")).map(_.substring(1)), rest, handler)
+      if(rest) node.rest += entry else node.exact += entry
+      this
+    }
+
+    private def nextIndex(): Int = {
+      entryCount += 1
+      entryCount
+    }
+
+    private def checkNotBuilt(): Unit = {
+      if(built) throw new IllegalStateException("RouteTable was already built")
+    }
+  }
+
+  private type Handler = (Request, Map[String,String], Int, Array[String]) => Response
+
+  private case class Entry(index: Int, parameterNames: Array[String], rest: Boolean, handler: Handler)
+
+  private final class Node {
+    val children = mutable.HashMap.empty[String, Node]
+    var param: Node = null
+    val exact = mutable.ArrayBuffer.empty[Entry]
+    val rest = mutable.ArrayBuffer.empty[Entry]
+  }
+
+  private case class Candidate(entry: Entry, values: List[String], depth: Int) {
+    def apply(request: Request, segments: Array[String]): Response = {
+      val parameters = entry.parameterNames.iterator.zip(values.reverseIterator).toMap
+      entry.handler(request, parameters, depth, segments)
+    }
+  }
+}
+
+class RouteTable private(root: RouteTable.Node, domains: Array[(String, RouteTable.Entry)]) extends Route {
+  import RouteTable._
+
+  def apply(request: Request): Response = {
+    val path = request.getPath()
+    if(path == null || !path.startsWith("/")) return Response.empty()
+    val segments = path.substring(1).split("/", -1)
+    val candidates = mutable.ArrayBuffer.empty[Candidate]
+    domains.foreach { case (domain, entry) =>
+      if(request.getDomain() == domain) candidates += Candidate(entry, Nil, 0)
+    }
+    collect(root, segments, 0, Nil, candidates)
+    val sorted = if(candidates.length > 1) candidates.sortBy(_.entry.index) else candidates
+    dispatch(request, segments, sorted, 0)
+  }
+
+  private def collect(node: Node, segments: Array[String], depth: Int, values: List[String],
+                      candidates: mutable.ArrayBuffer[Candidate]): Unit = {
+    if(depth < segments.length) {
+      node.rest.foreach(entry => candidates += Candidate(entry, values, depth))
+      val segment = segments(depth)
+      node.children.get(segment).foreach(child => collect(child, segments, depth + 1, values, candidates))
+      if(node.param != null && segment.nonEmpty) {
+        collect(node.param, segments, depth + 1, segment :: values, candidates)
+      }
+    } else {
+      node.exact.foreach(entry => candidates += Candidate(entry, values, depth))
+    }
+  }
+
+  private def dispatch(request: Request, segments: Array[String], candidates: mutable.ArrayBuffer[Candidate], i: Int): Response = {
+    if(i == candidates.length) return Response.empty()
+    val response = candidates(i).apply(request, segments)
+    assert(response != null, "Route returned null for " + request)
+    if(i + 1 == candidates.length) response
+    else if(response.isCompleted() && (response.isError() || response.getResult() != null)) response
+    else response.flatMap { r =>
+      if(r == null) dispatch(request, segments, candidates, i + 1) else Response.fromResult(r)
+    }
+  }
+}
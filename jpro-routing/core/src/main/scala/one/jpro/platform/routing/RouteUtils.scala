@@ -10,7 +10,7 @@ import java.util.function.Function
 object RouteUtils {
 
   def transitionFilter(seconds: Double): Filter = route => { request => {
-    Response(route.apply(request).future.map{
+    route.apply(request).map {
       case x: View =>
         val oldNode = request.getOldContent().get()
         val newNode = x.realContent
@@ -27,10 +27,10 @@ object RouteUtils {
           x.mapContent(x => res)
         }
       case x => x
-    })
+    }
   }}
   def sideTransitionFilter(seconds: Double): Filter = route => { request => {
-    Response(route.apply(request).future.map{
+    route.apply(request).map {
       case x: View =>
         val oldNode = request.getOldContent().get()
         val newNode = x.realContent
@@ -56,7 +56,7 @@ object RouteUtils {
           x.mapContent(x => res)
         }
       case x => x
-    })
+    }
   }}
 
   def viewFromNode(x: Node): View = new View {
@@ -0,0 +1,67 @@
+package one.jpro.platform.routing
+
+import com.jpro.webapi.WebAPI
+
+/**
+ * Collects scripts for the browser, so they are sent to the client as one message instead of one message per script.
+ * Each script runs in its own `try` block, so a failing script doesn't prevent the following scripts from running.
+ *
+ * {{{
+ * new ScriptBatch()
+ *   .add("document.title = " + ScriptBatch.quote(title) + ";")
+ *   .add("scroll(0,0);")
+ *   .execute(webAPI)
+ * }}}
+ */
+class ScriptBatch {
+  private val scripts = new java.util.ArrayList[String]()
+
+  def add(script: String): ScriptBatch = {
+    assert(script != null, "script must not be null")
+    scripts.add(script)
+    this
+  }
+
+  def isEmpty: Boolean = scripts.isEmpty
+  def size(): Int = scripts.size()
+
+  def getScript(): String = {
+    val result = new StringBuilder()
+    scripts.forEach { script =>
+      result.append("try {\n").append(script).append("\n} catch(e) { console.error(e); }\n")
+    }
+    result.toString
+  }
+
+  /**
+   * Executes all collected scripts with one call and clears the batch.
+   */
+  def execute(webAPI: WebAPI): Unit = {
+    if(!scripts.isEmpty) {
+      webAPI.executeScript(getScript())
+      scripts.clear()
+    }
+  }
+}
+
+object ScriptBatch {
+
+  /**
+   * @return the string as a double quoted JavaScript string literal
+   */
+  def quote(x: String): String = {
+    val result = new StringBuilder(x.length + 2)
+    result.append('"')
+    x.foreach {
+      case '"' => result.append("\\\"")
+      case '\\' => result.append("\\\\")
+      case '\n' => result.append("\\n")
+      case '\r' => result.append("\\r")
+      case c if c == 0x2028 || c == 0x2029 => result.append("\\u%04x".format(c.toInt))
+      case '<' => result.append("\\u003c")
+      case c => result.append(c)
+    }
+    result.append('"')
+    result.toString
+  }
+}
@@ -23,6 +23,10 @@ abstract class View extends ResponseResult { THIS =>
   protected def content: Node
   def saveScrollPosition = true
   def fullscreen = false
+  /**
+   * Whether the view may be kept in the back/forward cache of the session manager, after another view is shown.
+   */
+  def cacheable = true
   def onClose(): Unit = {}
   def subView(): View = null
 
@@ -43,6 +47,8 @@ abstract class View extends ResponseResult { THIS =>
 
     override def fullscreen: Boolean = THIS.fullscreen
 
+    override def cacheable: Boolean = THIS.cacheable
+
     override def setSessionManager(x: SessionManager): Unit = {
       super.setSessionManager(x)
       THIS.setSessionManager(x)
@@ -9,6 +9,11 @@ import simplefx.core._
 import simplefx.experimental._
 
 import java.io.File
+import java.math.BigInteger
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.security.MessageDigest
+import java.time.Duration
 import java.util.function.Supplier
 import scala.collection.JavaConverters._
 
@@ -20,7 +25,12 @@ object AppCrawler {
 
   case class ImageInfo(url: String, description: String)
 
-  case class CrawlReportPage(path: String, links: List[LinkInfo], pictures: List[ImageInfo], title: String, description: String)
+  /**
+   * @param fingerprint a hash of the crawled content of the page
+   * @param lastModified the time, when the fingerprint of the page last changed, or 0 if unknown
+   */
+  case class CrawlReportPage(path: String, links: List[LinkInfo], pictures: List[ImageInfo], title: String, description: String,
+                             fingerprint: String = "", lastModified: Long = 0L)
 
   case class CrawlReportApp(pages: List[String], reports: List[CrawlReportPage], deadLinks: List[String])
 
@@ -28,6 +38,7 @@ object AppCrawler {
   def crawlPage(page: View): CrawlReportPage = {
     var foundLinks: List[LinkInfo] = Nil
     var images: List[ImageInfo] = Nil
+    var texts: List[String] = Nil
 
     var visitedNodes: Set[Node] = Set()
 
@@ -48,8 +59,12 @@ object AppCrawler {
         x.asInstanceOf[Parent].childrenUnmodifiable.map(x => crawlNode(x))
       }
       if (x.isInstanceOf[Labeled]) {
+        texts ::= x.asInstanceOf[Labeled].getText
         crawlNode(x.asInstanceOf[Labeled].graphic)
       }
+      if (x.isInstanceOf[javafx.scene.text.Text]) {
+        texts ::= x.asInstanceOf[javafx.scene.text.Text].getText
+      }
       if (x.isInstanceOf[ScrollPane]) {
         crawlNode(x.asInstanceOf[ScrollPane].content)
       }
@@ -96,10 +111,37 @@ object AppCrawler {
     val node = page.realContent
     crawlNode(page.realContent)
 
-    CrawlReportPage(page.url, foundLinks.reverse, images.reverse, page.title, page.description)
+    val report = CrawlReportPage(page.url, foundLinks.reverse, images.reverse, page.title, page.description)
+    report.copy(fingerprint = fingerprint(report, texts.reverse))
   }
 
+  /**
+   * Hashes the title, description, links, images and texts of a page, to detect changed content between crawls.
+   */
+  def fingerprint(page: CrawlReportPage, texts: List[String]): String = {
+    val digest = MessageDigest.getInstance("SHA-256")
+    def add(x: String): Unit = {
+      val bytes = (if(x == null) "" else x).getBytes(StandardCharsets.UTF_8)
+      digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array())
+      digest.update(bytes)
+    }
+    add(page.title)
+    add(page.description)
+    add(page.links.length.toString)
+    page.links.foreach { link => add(link.url); add(link.description) }
+    add(page.pictures.length.toString)
+    page.pictures.foreach { image => add(image.url); add(image.description) }
+    texts.foreach(add)
+    String.format("%064x", new BigInteger(1, digest.digest()))
+  }
+
+  val DEFAULT_PARALLELISM = 4
+
   def crawlRoute(prefix: String, createRoute: () => Route): CrawlReportApp = {
+    crawlRoute(prefix, createRoute, DEFAULT_PARALLELISM, Int.MaxValue, null)
+  }
+
+  def crawlRoute(prefix: String, createRoute: () => Route, parallelism: Int, maxPages: Int, maxTime: Duration): CrawlReportApp = {
     val crawler = new AppCrawler(prefix, () => {
       val stage = new Stage
       val routeNode = new RouteNode(stage)
@@ -108,7 +150,7 @@ object AppCrawler {
       routeNode.setRoute(createRoute())
       routeNode.start(sm)
       routeNode
-    })
+    }, parallelism, maxPages, maxTime)
     crawler.crawlAll()
   }
 
@@ -175,39 +217,104 @@ object AppCrawler {
   }
 }
 
-class AppCrawler(prefix: String, createApp: Supplier[RouteNode]) {
+/**
+ * Crawls an application, starting with `/`, by following the links of its pages.
+ * The urls are dispatched from a shared frontier to `parallelism` workers.
+ * Every url is crawled with a fresh app from `createApp`, so no session state leaks from one page into the next.
+ * The route functions and the layout of the pages still run on the application thread (see `inFX`),
+ * so the parallelism only helps when the routes are asynchronous, for example when they wait for a database or a service.
+ * The crawl stops early, when `maxPages` pages were crawled or `maxTime` has passed.
+ */
+class AppCrawler(prefix: String, createApp: Supplier[RouteNode], parallelism: Int, maxPages: Int, maxTime: Duration) {
   import AppCrawler.logger
 
+  def this(prefix: String, createApp: Supplier[RouteNode]) = this(prefix, createApp, 1, Int.MaxValue, null)
+
   assert(!isApplicationThread, "This method must not be called on the application thread")
-  var toIndex = Set[String]("/")
-  var indexed = Set[String]()
-  var redirects = Set[String]()
-  var deadLinks = Set[String]()
-  var reports: List[CrawlReportPage] = List()
+  assert(parallelism > 0, "parallelism must be positive")
+
+  private val discovered = new java.util.HashMap[String, Integer]()
+  private val toIndex = new java.util.ArrayDeque[String]()
+  private val indexed = new java.util.ArrayList[String]()
+  private val redirects = new java.util.HashSet[String]()
+  private val deadLinks = new java.util.HashSet[String]()
+  private val reports = new java.util.ArrayList[CrawlReportPage]()
+  private var inProgress = 0
+  private var deadline = Long.MaxValue
+  private var history: CrawlHistory = null
+  private var maxAge: Duration = null
+
+  /**
+   * Reuses the pages of the history, which were crawled within `maxAge`, instead of crawling them again,
+   * and records all crawled pages in the history.
+   */
+  def setHistory(history: CrawlHistory, maxAge: Duration): Unit = {
+    this.history = history
+    this.maxAge = maxAge
+  }
 
   def isOwnLink(x: String): Boolean = x.startsWith(prefix) || x.startsWith("/")
 
-  def doStep(): Unit = {
-    val crawlNext = toIndex.head
-    toIndex -= crawlNext
-    indexed += crawlNext
+  private def simplifyLink(x: String): String = {
+    if(x.startsWith(prefix)) x.drop(prefix.length) else x
+  }
+
+  private def addURL(url: String): Unit = this.synchronized {
+    if(!discovered.containsKey(url)) {
+      discovered.put(url, discovered.size())
+      toIndex.add(url)
+      this.notifyAll()
+    }
+  }
+
+  /**
+   * @return the next url to crawl or `null`, if the crawl is finished
+   */
+  private def nextURL(): String = this.synchronized {
+    while(toIndex.isEmpty && inProgress > 0) {
+      this.wait()
+    }
+    if(toIndex.isEmpty || indexed.size() >= maxPages || System.currentTimeMillis() > deadline) {
+      this.notifyAll()
+      null
+    } else {
+      inProgress += 1
+      val url = toIndex.poll()
+      indexed.add(url)
+      url
+    }
+  }
+
+  private def finishedURL(): Unit = this.synchronized {
+    inProgress -= 1
+    this.notifyAll()
+  }
+
+  private def addReport(report: CrawlReportPage): Unit = {
+    this.synchronized(reports.add(report))
+    report.links.filter(x => isOwnLink(x.url)).foreach { link =>
+      addURL(simplifyLink(link.url))
+    }
+  }
 
+  private def crawlURL(crawlNext: String): Unit = {
+    val freshReport = if(history == null) null else history.getFresh(crawlNext, maxAge)
+    if(freshReport != null) {
+      addReport(freshReport)
+      return
+    }
     val app: RouteNode = inFX(createApp.get())
     val result = inFX {
-      LinkUtil.getSessionManager(app)
-      val request = Request.fromString(crawlNext)
       app.getRoute()(Request.fromString(crawlNext))
     }.future.await
     result match {
       case Redirect(url) =>
-        redirects += crawlNext
-        if (!indexed.contains(url) && !toIndex.contains(url)) {
-          if (isOwnLink(url)) {
-            toIndex += url
-          }
+        this.synchronized(redirects.add(crawlNext))
+        if (isOwnLink(url)) {
+          addURL(simplifyLink(url))
         }
       case view: View =>
-        println(s"View: ${view.url} crawlNext: $crawlNext")
+        logger.debug(s"View: ${view.url} crawlNext: $crawlNext")
         try {
           val newReport = inFX{
             runScheduler{
@@ -217,44 +324,59 @@ class AppCrawler(prefix: String, createApp: Supplier[RouteNode]) {
             assert(app.scene.root != null, s"Root is null for $crawlNext")
             }
             app.scene.root.applyCss()
-            //app.scene.root.layout()
-            //println(SceneGraphSerializer.serialize(app.scene.root))
             assert(view.realContent.parent != null, s"Parent is null for $crawlNext")
             assert(view.realContent.scene != null, s"Scene is null for $crawlNext")
-            println("SCENE WH: " + view.realContent.scene.getWidth + " " + view.realContent.scene.getHeight)
             AppCrawler.crawlPage(view)
           }
-          reports = newReport :: reports
-          def simplifyLink(x: String) = {
-            if(x.startsWith(prefix)) x.drop(prefix.length) else x
-          }
-          newReport.links.filter(x => isOwnLink(x.url)).foreach { link =>
-            val url = simplifyLink(link.url)
-            if (!indexed.contains(url) && !toIndex.contains(url)) {
-              toIndex += url
-            }
-          }
+          addReport(if(history == null) newReport else history.update(newReport, System.currentTimeMillis()))
         } catch {
           case ex: Throwable =>
             logger.error(s"Error crawling page: $crawlNext", ex)
-            deadLinks += crawlNext
+            this.synchronized(deadLinks.add(crawlNext))
         }
       case null =>
-        deadLinks += crawlNext
+        this.synchronized(deadLinks.add(crawlNext))
     }
   }
-  def crawlAll(): CrawlReportApp = {
 
-    while (toIndex.nonEmpty) {
+  private def crawlWorker(): Unit = {
+    var crawlNext = nextURL()
+    while (crawlNext != null) {
       try {
-        doStep()
+        crawlURL(crawlNext)
       } catch {
         case ex: Throwable =>
-          logger.error("Error in crawlAll", ex)
+          logger.error(s"Error crawling url: $crawlNext", ex)
+          this.synchronized(deadLinks.add(crawlNext))
+      } finally {
+        finishedURL()
       }
+      crawlNext = nextURL()
+    }
+  }
+
+  def crawlAll(): CrawlReportApp = {
+    if(maxTime != null) {
+      deadline = System.currentTimeMillis() + maxTime.toMillis
+    }
+    addURL("/")
+
+    val workers = (1 to parallelism).map { i =>
+      val thread = new Thread(() => crawlWorker(), "AppCrawler-" + i)
+      thread.setDaemon(true)
+      thread.start()
+      thread
     }
+    workers.foreach(_.join())
 
-    CrawlReportApp((indexed -- redirects -- deadLinks).toList, reports.reverse, deadLinks.toList)
+    this.synchronized {
+      if(!toIndex.isEmpty) {
+        logger.warn(s"Crawl budget exhausted after ${indexed.size()} pages, ${toIndex.size()} urls were not crawled")
+      }
+      def order(x: String): Int = discovered.get(x)
+      val pages = indexed.asScala.filter(x => !redirects.contains(x) && !deadLinks.contains(x)).toList.sortBy(order)
+      CrawlReportApp(pages, reports.asScala.toList.sortBy(x => order(x.path)), deadLinks.asScala.toList.sortBy(order))
+    }
   }
 
 }
@@ -0,0 +1,186 @@
+package one.jpro.platform.routing.crawl
+
+import one.jpro.platform.routing.crawl.AppCrawler.{CrawlReportApp, CrawlReportPage, ImageInfo, LinkInfo}
+import org.slf4j.{Logger, LoggerFactory}
+
+import java.io.{BufferedInputStream, BufferedOutputStream, DataInputStream, DataOutputStream, File, IOException}
+import java.nio.charset.StandardCharsets
+import java.nio.file.{AtomicMoveNotSupportedException, Files, StandardCopyOption}
+import java.time.Duration
+import java.util.concurrent.ConcurrentHashMap
+import scala.collection.JavaConverters._
+
+/**
+ * The crawled pages of an application with the time they were crawled, so a crawler can skip pages,
+ * which were crawled recently, and the sitemap can report when the content of a page last changed.
+ * The history can be saved to and loaded from a file, to keep it between restarts of the server.
+ */
+class CrawlHistory {
+  import CrawlHistory._
+
+  private val records = new ConcurrentHashMap[String, CrawlRecord]()
+
+  def size(): Int = records.size()
+
+  def get(path: String): CrawlRecord = records.get(path)
+
+  /**
+   * @return the report of the page, if it was crawled within `maxAge`, otherwise `null`
+   */
+  def getFresh(path: String, maxAge: Duration): CrawlReportPage = {
+    val record = records.get(path)
+    if(record == null || maxAge == null) null
+    else if(System.currentTimeMillis() - record.lastCrawled > maxAge.toMillis) null
+    else record.page
+  }
+
+  /**
+   * Records a crawled page. The last modification time of the page is kept, if its fingerprint didn't change.
+   *
+   * @return the page with its last modification time
+   */
+  def update(page: CrawlReportPage, time: Long): CrawlReportPage = {
+    val previous = records.get(page.path)
+    val lastModified = if(previous != null && previous.page.fingerprint == page.fingerprint && previous.page.lastModified != 0) {
+      previous.page.lastModified
+    } else time
+    val newPage = page.copy(lastModified = lastModified)
+    records.put(page.path, CrawlRecord(newPage, time))
+    newPage
+  }
+
+  /**
+   * Removes all pages, which are not in the given report, for example because they are not linked anymore.
+   */
+  def retain(report: CrawlReportApp): Unit = {
+    val paths = report.reports.map(_.path).toSet
+    records.keySet().removeIf(x => !paths.contains(x))
+  }
+
+  /**
+   * @return a report of all recorded pages, ordered by their path
+   */
+  def toReport(): CrawlReportApp = {
+    val pages = records.values().asScala.map(_.page).toList.sortBy(_.path)
+    CrawlReportApp(pages.map(_.path), pages, Nil)
+  }
+
+  /**
+   * Saves the history. The file is replaced atomically where the file system supports it, so a crash never
+   * leaves a partially written history. The temporary file is removed, if writing fails.
+   */
+  def save(file: File): Unit = {
+    val tmp = new File(file.getAbsoluteFile.getParentFile, file.getName + ".tmp")
+    try {
+      write(tmp)
+      moveAtomically(tmp, file)
+    } finally {
+      Files.deleteIfExists(tmp.toPath)
+    }
+  }
+
+  private def write(file: File): Unit = {
+    val out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath)))
+    try {
+      val values = records.values().asScala.toList.sortBy(_.page.path)
+      out.writeInt(MAGIC)
+      out.writeInt(VERSION)
+      out.writeInt(values.length)
+      values.foreach { record =>
+        val page = record.page
+        writeString(out, page.path)
+        writeString(out, page.title)
+        writeString(out, page.description)
+        writeString(out, page.fingerprint)
+        out.writeLong(page.lastModified)
+        out.writeLong(record.lastCrawled)
+        out.writeInt(page.links.length)
+        page.links.foreach { link => writeString(out, link.url); writeString(out, link.description) }
+        out.writeInt(page.pictures.length)
+        page.pictures.foreach { image => writeString(out, image.url); writeString(out, image.description) }
+      }
+    } finally {
+      out.close()
+    }
+  }
+
+  private def moveAtomically(source: File, target: File): Unit = {
+    try {
+      Files.move(source.toPath, target.toPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+    } catch {
+      case _: AtomicMoveNotSupportedException =>
+        Files.move(source.toPath, target.toPath, StandardCopyOption.REPLACE_EXISTING)
+    }
+  }
+}
+
+object CrawlHistory {
+
+  private lazy val logger: Logger = LoggerFactory.getLogger(getClass.getName)
+
+  private val MAGIC = 0x4a50434b
+  private val VERSION = 2
+  private val MAX_STRING_LENGTH = 16 * 1024 * 1024
+
+  case class CrawlRecord(page: CrawlReportPage, lastCrawled: Long)
+
+  /**
+   * Loads a history saved with `save`.
+   *
+   * @return the history, or an empty history if the file doesn't exist or can't be read
+   */
+  def load(file: File): CrawlHistory = {
+    val history = new CrawlHistory()
+    if(!file.exists()) return history
+    val in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath)))
+    try {
+      if(in.readInt() != MAGIC || in.readInt() != VERSION) {
+        logger.warn(s"Ignoring crawl history with unknown format: $file")
+        return history
+      }
+      val count = readCount(in)
+      (0 until count).foreach { _ =>
+        val path = readString(in)
+        val title = readString(in)
+        val description = readString(in)
+        val fingerprint = readString(in)
+        val lastModified = in.readLong()
+        val lastCrawled = in.readLong()
+        val links = List.fill(readCount(in))(LinkInfo(readString(in), readString(in)))
+        val pictures = List.fill(readCount(in))(ImageInfo(readString(in), readString(in)))
+        val page = CrawlReportPage(path, links, pictures, title, description, fingerprint, lastModified)
+        history.records.put(path, CrawlRecord(page, lastCrawled))
+      }
+    } catch {
+      case ex: IOException =>
+        logger.warn(s"Ignoring unreadable crawl history: $file", ex)
+        history.records.clear()
+    } finally {
+      in.close()
+    }
+    history
+  }
+
+  /**
+   * Strings are written as length prefixed UTF-8, because `writeUTF` is limited to 64 KB.
+   */
+  private def writeString(out: DataOutputStream, x: String): Unit = {
+    val bytes = (if(x == null) "" else x).getBytes(StandardCharsets.UTF_8)
+    out.writeInt(bytes.length)
+    out.write(bytes)
+  }
+
+  private def readString(in: DataInputStream): String = {
+    val length = in.readInt()
+    if(length < 0 || length > MAX_STRING_LENGTH) throw new IOException(s"Invalid string length: $length")
+    val bytes = new Array[Byte](length)
+    in.readFully(bytes)
+    new String(bytes, StandardCharsets.UTF_8)
+  }
+
+  private def readCount(in: DataInputStream): Int = {
+    val count = in.readInt()
+    if(count < 0) throw new IOException(s"Invalid count: $count")
+    count
+  }
+}
@@ -0,0 +1,86 @@
+package one.jpro.platform.routing.crawl
+
+import one.jpro.platform.routing.crawl.AppCrawler.{CrawlReportApp, CrawlReportPage}
+
+import java.nio.charset.StandardCharsets
+
+/**
+ * Static HTML snapshots of crawled pages with their title, description, links and images,
+ * which can be served to search engine bots instead of starting a session for them.
+ * Snapshots are rendered on first use and kept in a cache bounded by `maxEntries`, which evicts the least recently used ones.
+ */
+class HtmlSnapshots(prefix: String, report: CrawlReportApp, maxEntries: Int) {
+
+  private val pages: Map[String, CrawlReportPage] = report.reports.map(x => x.path -> x).toMap
+  private val cache = new java.util.LinkedHashMap[String, Array[Byte]](16, 0.75f, true) {
+    override def removeEldestEntry(eldest: java.util.Map.Entry[String, Array[Byte]]): Boolean = size() > maxEntries
+  }
+
+  def this(prefix: String, report: CrawlReportApp) = this(prefix, report, HtmlSnapshots.DEFAULT_MAX_ENTRIES)
+
+  /**
+   * @return the snapshot of the page or `null`, if the page wasn't crawled
+   */
+  def get(path: String): Array[Byte] = {
+    val page = pages.getOrElse(path, null)
+    if(page == null) return null
+    cache.synchronized {
+      var snapshot = cache.get(path)
+      if(snapshot == null) {
+        snapshot = HtmlSnapshots.render(prefix, page).getBytes(StandardCharsets.UTF_8)
+        if(maxEntries > 0) cache.put(path, snapshot)
+      }
+      snapshot
+    }
+  }
+
+  def cacheSize(): Int = cache.synchronized(cache.size())
+}
+
+object HtmlSnapshots {
+  val DEFAULT_MAX_ENTRIES = 1000
+
+  private val KNOWN_BOTS = List("googlebot", "bingbot", "yandex", "baiduspider", "duckduckbot", "slurp", "applebot",
+    "facebookexternalhit", "twitterbot", "linkedinbot", "petalbot", "ahrefsbot", "semrushbot")
+
+  def isBot(userAgent: String): Boolean = {
+    if(userAgent == null) return false
+    val lowerCase = userAgent.toLowerCase
+    KNOWN_BOTS.exists(lowerCase.contains)
+  }
+
+  def render(prefix: String, page: CrawlReportPage): String = {
+    val html = new StringBuilder()
+    html.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n")
+    html.append("<title>").append(escape(page.title)).append("</title>\n")
+    html.append("<meta name=\"description\" content=\"").append(escape(page.description)).append("\">\n")
+    html.append("<link rel=\"canonical\" href=\"").append(escape(prefix + page.path)).append("\">\n")
+    html.append("</head>\n<body>\n")
+    html.append("<h1>").append(escape(page.title)).append("</h1>\n")
+    html.append("<p>").append(escape(page.description)).append("</p>\n")
+    page.links.foreach { link =>
+      val text = if(link.description == null || link.description.isEmpty) link.url else link.description
+      html.append("<a href=\"").append(escape(link.url)).append("\">").append(escape(text)).append("</a>\n")
+    }
+    page.pictures.foreach { image =>
+      val src = if(image.url.startsWith("http")) image.url else prefix + image.url
+      html.append("<img src=\"").append(escape(src)).append("\" alt=\"").append(escape(image.description)).append("\">\n")
+    }
+    html.append("</body>\n</html>\n")
+    html.toString
+  }
+
+  private def escape(x: String): String = {
+    if(x == null) return ""
+    val result = new StringBuilder(x.length)
+    x.foreach {
+      case '&' => result.append("&amp;")
+      case '<' => result.append("&lt;")
+      case '>' => result.append("&gt;")
+      case '"' => result.append("&quot;")
+      case '\'' => result.append("&#39;")
+      case c => result.append(c)
+    }
+    result.toString
+  }
+}
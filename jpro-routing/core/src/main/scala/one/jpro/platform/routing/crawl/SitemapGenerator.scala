@@ -1,56 +1,204 @@
 package one.jpro.platform.routing.crawl
 
-import one.jpro.platform.routing.crawl.AppCrawler.CrawlReportApp
+import one.jpro.platform.routing.crawl.AppCrawler.{CrawlReportApp, CrawlReportPage}
 
-import javax.xml.transform.OutputKeys
+import java.io.{ByteArrayOutputStream, OutputStream}
+import java.nio.charset.StandardCharsets
+import java.time.Instant
+import java.time.format.DateTimeFormatter
+import java.time.temporal.ChronoUnit
+import java.util.zip.GZIPOutputStream
+import javax.xml.stream.{XMLOutputFactory, XMLStreamWriter}
 
+/**
+ * Writes sitemaps with a streaming `XMLStreamWriter` per sitemap, one url entry at a time.
+ * Large sites are split into numbered sitemaps and a sitemap index, following the limits of the sitemap protocol.
+ */
 object SitemapGenerator {
+  val MAX_URLS = 50000
+  val MAX_BYTES: Int = 50 * 1024 * 1024
+
+  private val SITEMAP_NS = "http://www.sitemaps.org/schemas/sitemap/0.9"
+  private val IMAGE_NS = "http://www.google.com/schemas/sitemap-image/1.1"
+  private val HEADER = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+    s"""<urlset xmlns="$SITEMAP_NS" xmlns:image="$IMAGE_NS">\n""").getBytes(StandardCharsets.UTF_8)
+  private val FOOTER = "</urlset>\n".getBytes(StandardCharsets.UTF_8)
+
+  private lazy val outputFactory = XMLOutputFactory.newInstance()
+
   def createSitemap(prefix: String, report: CrawlReportApp): String = {
-    import javax.xml.parsers.DocumentBuilderFactory
-    import javax.xml.transform.TransformerFactory
-    import javax.xml.transform.dom.DOMSource
-    import javax.xml.transform.stream.StreamResult
-
-    val docFactory = DocumentBuilderFactory.newInstance
-    val docBuilder = docFactory.newDocumentBuilder
-    val doc = docBuilder.newDocument
-    val urlset = doc.createElement("urlset")
-    urlset.setAttribute("xmlns","http://www.sitemaps.org/schemas/sitemap/0.9")
-    urlset.setAttribute("xmlns:image","http://www.google.com/schemas/sitemap-image/1.1")
-    doc.appendChild(urlset)
-
-    report.reports.map { page =>
-      val child1 = doc.createElement("url")
-      val loc = doc.createElement("loc")
-      loc.setTextContent(prefix + page.path)
-
-      child1.appendChild(loc)
-
-      page.pictures/*.filter(_.url.startsWith("http"))*/.map { img =>
-        val image = doc.createElement("image:image")
-        val imageloc = doc.createElement("image:loc")
-        if(img.url.startsWith("http")) {
-          imageloc.setTextContent(img.url)
-        } else {
-          imageloc.setTextContent(prefix + img.url)
-        }
-        image.appendChild(imageloc)
-        child1.appendChild(image)
+    val out = new ByteArrayOutputStream()
+    writeSitemap(prefix, report.reports, out)
+    new String(out.toByteArray, StandardCharsets.UTF_8)
+  }
+
+  /**
+   * Writes a single sitemap with all pages to the stream, without applying the limits of the sitemap protocol.
+   */
+  def writeSitemap(prefix: String, pages: Iterable[CrawlReportPage], out: OutputStream): Unit = {
+    out.write(HEADER)
+    val writer = new UrlWriter(out)
+    pages.foreach(page => writer.write(prefix, page))
+    writer.close()
+    out.write(FOOTER)
+    out.flush()
+  }
+
+  def createSitemaps(prefix: String, report: CrawlReportApp, gzip: Boolean): Sitemaps = {
+    createSitemaps(prefix, report, gzip, MAX_URLS, MAX_BYTES)
+  }
+
+  /**
+   * Creates the sitemaps of a report. If all pages fit into one sitemap and `gzip` is false, it's served as
+   * `/sitemap.xml`. Otherwise `/sitemap.xml` is a sitemap index of the numbered sitemaps `/sitemap-1.xml`,
+   * `/sitemap-2.xml`, ... or `/sitemap-1.xml.gz`, ... if `gzip` is true.
+   *
+   * @param maxUrls the maximum number of urls per sitemap
+   * @param maxBytes the maximum uncompressed size of a sitemap
+   */
+  def createSitemaps(prefix: String, report: CrawlReportApp, gzip: Boolean, maxUrls: Int, maxBytes: Int): Sitemaps = {
+    val sitemaps = new java.util.ArrayList[SitemapFile]()
+    var current: SitemapFile = null
+    report.reports.foreach { page =>
+      if(current == null) {
+        current = new SitemapFile(gzip)
+        sitemaps.add(current)
       }
-      urlset.appendChild(child1)
+      if(!current.write(prefix, page, maxUrls, maxBytes)) {
+        current.finish()
+        current = new SitemapFile(gzip)
+        sitemaps.add(current)
+        current.write(prefix, page, maxUrls, maxBytes)
+      }
+    }
+    if(current == null) {
+      current = new SitemapFile(gzip)
+      sitemaps.add(current)
     }
+    current.finish()
 
-    val transformerFactory = TransformerFactory.newInstance
-    val transformer = transformerFactory.newTransformer
-    transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-    transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
-    val source = new DOMSource(doc)
+    val files = new java.util.LinkedHashMap[String, Array[Byte]]()
+    if(sitemaps.size() == 1 && !gzip) {
+      files.put("/sitemap.xml", current.toByteArray)
+    } else {
+      val extension = if(gzip) ".xml.gz" else ".xml"
+      val numbered = (0 until sitemaps.size()).map(i => ("/sitemap-" + (i + 1) + extension, sitemaps.get(i)))
+      numbered.foreach { case (path, sitemap) => files.put(path, sitemap.toByteArray) }
+      val index = new ByteArrayOutputStream()
+      writeIndex(prefix, numbered.map { case (path, sitemap) => (path, sitemap.lastModified) }, index)
+      files.put("/sitemap.xml", index.toByteArray)
+    }
+    new Sitemaps(files)
+  }
 
-    import java.io.StringWriter
-    val writer = new StringWriter
-    val result = new StreamResult(writer)
-    transformer.transform(source, result)
-    writer.toString
+  private def writeIndex(prefix: String, sitemaps: Seq[(String, Long)], out: OutputStream): Unit = {
+    val writer = outputFactory.createXMLStreamWriter(out, "UTF-8")
+    writer.writeStartDocument("UTF-8", "1.0")
+    writer.writeCharacters("\n")
+    writer.writeStartElement("sitemapindex")
+    writer.writeDefaultNamespace(SITEMAP_NS)
+    writer.writeCharacters("\n")
+    sitemaps.foreach { case (path, time) =>
+      writer.writeCharacters("  ")
+      writer.writeStartElement("sitemap")
+      writeElement(writer, "loc", prefix + path)
+      if(time > 0) writeElement(writer, "lastmod", formatLastModified(time))
+      writer.writeEndElement()
+      writer.writeCharacters("\n")
+    }
+    writer.writeEndElement()
+    writer.writeCharacters("\n")
+    writer.writeEndDocument()
+    writer.close()
+    out.flush()
   }
 
+  private def writeElement(writer: XMLStreamWriter, name: String, text: String): Unit = {
+    writer.writeStartElement(name)
+    writer.writeCharacters(text)
+    writer.writeEndElement()
+  }
+
+  /**
+   * Writes the url entries of a sitemap into a stream, which already contains the `urlset` start tag.
+   * The namespaces of the start tag are registered with the writer, so it uses the declared prefixes.
+   */
+  private class UrlWriter(out: OutputStream) {
+    private val writer = outputFactory.createXMLStreamWriter(out, "UTF-8")
+    writer.setDefaultNamespace(SITEMAP_NS)
+    writer.setPrefix("image", IMAGE_NS)
+
+    def write(prefix: String, page: CrawlReportPage): Unit = {
+      writer.writeCharacters("  ")
+      writer.writeStartElement("url")
+      writeElement(writer, "loc", prefix + page.path)
+      if(page.lastModified > 0) {
+        writeElement(writer, "lastmod", formatLastModified(page.lastModified))
+      }
+      page.pictures.foreach { img =>
+        writer.writeStartElement("image", "image", IMAGE_NS)
+        writer.writeStartElement("image", "loc", IMAGE_NS)
+        writer.writeCharacters(if(img.url.startsWith("http")) img.url else prefix + img.url)
+        writer.writeEndElement()
+        writer.writeEndElement()
+      }
+      writer.writeEndElement()
+      writer.writeCharacters("\n")
+      writer.flush()
+    }
+
+    def close(): Unit = writer.close()
+  }
+
+  def formatLastModified(time: Long): String = {
+    DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(time).truncatedTo(ChronoUnit.SECONDS))
+  }
+
+  private class SitemapFile(gzip: Boolean) {
+    private val bytes = new ByteArrayOutputStream()
+    private val out: OutputStream = if(gzip) new GZIPOutputStream(bytes) else bytes
+    // each entry is written into this buffer first, so it can be checked against the limits
+    private val entry = new ByteArrayOutputStream(256)
+    private val writer = new UrlWriter(entry)
+    var size: Int = HEADER.length
+    var urls: Int = 0
+    var lastModified: Long = 0L
+
+    out.write(HEADER)
+
+    /**
+     * Writes the url entry of a page, unless it would exceed the limits. The first entry is always written.
+     *
+     * @return true, if the entry was written
+     */
+    def write(prefix: String, page: CrawlReportPage, maxUrls: Int, maxBytes: Int): Boolean = {
+      entry.reset()
+      writer.write(prefix, page)
+      if(urls > 0 && (urls >= maxUrls || size + entry.size() + FOOTER.length > maxBytes)) {
+        false
+      } else {
+        entry.writeTo(out)
+        size += entry.size()
+        urls += 1
+        lastModified = Math.max(lastModified, page.lastModified)
+        true
+      }
+    }
+
+    def finish(): Unit = {
+      writer.close()
+      out.write(FOOTER)
+      out.close()
+    }
+
+    def toByteArray: Array[Byte] = bytes.toByteArray
+  }
+
+  /**
+   * The encoded sitemap files, by their path.
+   */
+  class Sitemaps private[SitemapGenerator](files: java.util.Map[String, Array[Byte]]) {
+    def get(path: String): Array[Byte] = files.get(path)
+    def getPaths(): java.util.Set[String] = java.util.Collections.unmodifiableSet(files.keySet())
+  }
 }
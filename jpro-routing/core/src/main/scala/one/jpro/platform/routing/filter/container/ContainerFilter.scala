@@ -48,7 +48,7 @@ object ContainerFilter {
       }
     }
     val r = route(request2)
-    Response(r.future.map {
+    r.map {
       case view: View =>
         if (container == null) {
           container = containerLogic.createContainer()
@@ -59,6 +59,6 @@ object ContainerFilter {
           container
         })
       case x => x
-    })
+    }
   }
 }
@@ -8,16 +8,42 @@ import simplefx.experimental._
 import simplefx.core._
 import simplefx.all._
 
+import java.time.Duration
+
 object IncrementalLoading {
 
+  val DEFAULT_PRIORITY = 0
+  val DEFAULT_FRAME_BUDGET: Duration = Duration.ofMillis(50)
+
+  /**
+   * Sets the time, which is spent per frame on making the nodes of the page of the node visible.
+   * Nodes are revealed in batches, which grow while the client applies the updates within this time,
+   * and shrink otherwise. The network latency isn't part of this time.
+   * The budget applies to the current page of the session and defaults to `DEFAULT_FRAME_BUDGET`.
+   */
+  def setFrameBudget(node: Node, budget: Duration): Unit = {
+    assert(!budget.isNegative && !budget.isZero, "frameBudget must be positive")
+    if(WebAPI.isBrowser) {
+      getContext(node).map { ctx =>
+        ctx.frameBudget = budget
+      }
+    }
+  }
+
+  /**
+   * This should be called, before the node is added to the scene.
+   */
+  def loadNode(node: Node): Node = loadNode(node, DEFAULT_PRIORITY)
+
   /**
    * This should be called, before the node is added to the scene.
+   * Nodes with a higher priority, like the content above the fold, are made visible first.
    */
-  def loadNode(node: Node): Node = {
+  def loadNode(node: Node, priority: Int): Node = {
     if(WebAPI.isBrowser) {
       node.setVisible(false)
       getContext(node).map { ctx =>
-        ctx.enqueueNode(node)
+        ctx.enqueueNode(node, priority)
       }
     }
     node
@@ -25,22 +51,29 @@ object IncrementalLoading {
 
 
   private class IncrementalLoader(node: Node) {
-    var toMakeVisible: List[Node] = Nil
+    val toMakeVisible = new LoadingQueue()
+    var running = false
+    var frameBudget: Duration = DEFAULT_FRAME_BUDGET
 
-    def enqueueNode(node: Node): Unit = {
-      toMakeVisible ::= node
-      if(toMakeVisible.size == 1) startIncrementalLoading()
+    def enqueueNode(node: Node, priority: Int): Unit = {
+      toMakeVisible.add(node, priority)
+      if(!running) startIncrementalLoading()
     }
     def startIncrementalLoading(): Unit = {
+      running = true
       // We are sure the node is in the scene
       val webAPI = WebAPI.getWebAPI(node.scene)
 
       def makeNextVisible(): Unit = {
+        val requested = System.nanoTime()
         webAPI.runAfterUpdate(new Runnable {
           override def run(): Unit = {
-            if (!toMakeVisible.isEmpty) {
-              toMakeVisible.reverse.head.setVisible(true)
-              toMakeVisible = toMakeVisible.reverse.tail.reverse
+            val budget = frameBudget.toNanos
+            toMakeVisible.adapt(System.nanoTime() - requested, budget)
+            toMakeVisible.nextBatch(budget)
+            if (toMakeVisible.isEmpty) {
+              running = false
+            } else {
               nextFrame --> {
                 makeNextVisible()
               }
@@ -72,3 +105,62 @@ object IncrementalLoading {
   }
 
 }
+
+/**
+ * The nodes, which are not visible yet, ordered by priority and then by the order they were added.
+ */
+private[performance] class LoadingQueue {
+  import LoadingQueue._
+
+  private val queue = new java.util.PriorityQueue[Entry]()
+  private var counter = 0L
+  private var batchSize = 1
+  private var minRoundTrip = Long.MaxValue
+
+  def isEmpty: Boolean = queue.isEmpty
+  def size(): Int = queue.size()
+  def getBatchSize(): Int = batchSize
+
+  def add(node: Node, priority: Int): Unit = {
+    counter += 1
+    queue.add(Entry(node, priority, counter))
+  }
+
+  /**
+   * Adapts the batch size to the time the client needed for the last update.
+   * The round trip includes the network latency, which is estimated by the fastest round trip so far,
+   * so only the remaining time is compared with the budget.
+   */
+  def adapt(roundTrip: Long, budget: Long): Unit = {
+    minRoundTrip = Math.min(minRoundTrip, roundTrip)
+    val updateTime = roundTrip - minRoundTrip
+    if(updateTime <= budget) batchSize = Math.min(batchSize * 2, MAX_BATCH_SIZE)
+    else batchSize = Math.max(batchSize / 2, 1)
+  }
+
+  /**
+   * Makes the next nodes visible, at most the batch size and as long as the budget isn't used up.
+   *
+   * @return the number of nodes made visible
+   */
+  def nextBatch(budget: Long): Int = {
+    val start = System.nanoTime()
+    var count = 0
+    while(!queue.isEmpty && count < batchSize && (count == 0 || System.nanoTime() - start < budget)) {
+      queue.poll().node.setVisible(true)
+      count += 1
+    }
+    count
+  }
+}
+
+private[performance] object LoadingQueue {
+  val MAX_BATCH_SIZE = 256
+
+  private case class Entry(node: Node, priority: Int, index: Long) extends Comparable[Entry] {
+    override def compareTo(o: Entry): Int = {
+      if(priority != o.priority) Integer.compare(o.priority, priority)
+      else java.lang.Long.compare(index, o.index)
+    }
+  }
+}
@@ -2,11 +2,82 @@ package one.jpro.platform.routing.server
 
 import com.jpro.webapi.server.{Response, ServerAPI}
 import one.jpro.platform.routing.{Route, RouteApp}
-import one.jpro.platform.routing.crawl.{AppCrawler, SitemapGenerator}
+import one.jpro.platform.routing.crawl.{AppCrawler, CrawlHistory, HtmlSnapshots, SitemapGenerator}
+import one.jpro.platform.routing.crawl.AppCrawler.CrawlReportApp
+import one.jpro.platform.routing.crawl.SitemapGenerator.Sitemaps
+
+import org.slf4j.{Logger, LoggerFactory}
+
+import java.io.File
+import java.lang.reflect.{Method, Modifier}
+import java.time.Duration
+import java.util.concurrent.ConcurrentHashMap
+import scala.collection.JavaConverters._
 
 object RouteHTTP {
   var initialized = false
 
+  private lazy val logger: Logger = LoggerFactory.getLogger(getClass.getName)
+
+  private val headerAccessors = new ConcurrentHashMap[Class[_], Option[Method]]()
+
+  /**
+   * The factory for responses with a content type, or `null` if this version of the ServerAPI doesn't provide it.
+   */
+  private lazy val contentTypeFactory: Method = {
+    try {
+      classOf[Response].getMethod("of", classOf[Array[Byte]], classOf[String])
+    } catch {
+      case _: NoSuchMethodException =>
+        logger.warn("This version of the ServerAPI can't set the content type of a response, HTML snapshots are not served")
+        null
+    }
+  }
+
+  /**
+   * The header accessor of the request is looked up at runtime, because it isn't available in all versions of the ServerAPI.
+   * It's looked up on a public type, because the class of the request may be an inaccessible implementation class.
+   */
+  private def getUserAgent(request: AnyRef): String = {
+    val accessor = headerAccessors.computeIfAbsent(request.getClass, clazz => {
+      val method = findPublicMethod(clazz, "getHeaders")
+      if(method == null) {
+        logger.warn(s"The request $clazz has no accessible getHeaders method, bots can't be detected")
+      }
+      Option(method)
+    })
+    accessor.map { method =>
+      try {
+        method.invoke(request) match {
+          case headers: java.util.Map[_, _] =>
+            headers.asScala.collectFirst {
+              case (key: String, value) if key.equalsIgnoreCase("User-Agent") => String.valueOf(value)
+            }.orNull
+          case _ => null
+        }
+      } catch {
+        case ex: ReflectiveOperationException =>
+          logger.warn(s"Could not read the headers of the request $request, bots can't be detected", ex)
+          headerAccessors.put(request.getClass, None)
+          null
+      }
+    }.orNull
+  }
+
+  private def findPublicMethod(clazz: Class[_], name: String): Method = {
+    if(clazz == null) return null
+    if(Modifier.isPublic(clazz.getModifiers)) {
+      val method = clazz.getMethods.find(x => x.getName == name && x.getParameterCount == 0).orNull
+      if(method != null && Modifier.isPublic(method.getDeclaringClass.getModifiers)) return method
+    }
+    (clazz.getInterfaces.iterator ++ Iterator(clazz.getSuperclass))
+      .map(x => findPublicMethod(x, name)).find(_ != null).orNull
+  }
+
+  private def htmlResponse(html: Array[Byte]): Response = {
+    contentTypeFactory.invoke(null, html, "text/html; charset=utf-8").asInstanceOf[Response]
+  }
+
   def main(args: Array[String]): Unit = {
   //  System.out.println("Hello, world!");
   //  val route = getRoute();
@@ -17,6 +88,9 @@ object RouteHTTP {
 
 abstract class RouteHTTP {
 
+  @volatile private var sitemaps: Sitemaps = null
+  @volatile private var snapshots: HtmlSnapshots = null
+
   def start(): Unit = {
 
     new Thread(() => {
@@ -26,24 +100,81 @@ abstract class RouteHTTP {
         throw new IllegalStateException("RouteHTTP already initialized")
       }
 
-      //val appCrawler = new AppCrawler(prefix, () => AppCrawler.routeToRouteNode(getRoute()))
-
-      val report = AppCrawler.crawlRoute(prefix, () => getRoute())
+      // The sitemap of the last crawl is served, until the new crawl is finished.
+      val historyFile = getCrawlHistoryFile()
+      val history = if(historyFile == null) new CrawlHistory() else CrawlHistory.load(historyFile)
+      if(history.size() > 0) {
+        setReport(prefix, history.toReport())
+      }
 
       ServerAPI.getServerAPI().addRequestHandler(
         r => {
-          println("RouteHTTP> request: " + r.getPath())
-          r.getPath() match {
-            case "/sitemap.xml" =>
-              Response.of(SitemapGenerator.createSitemap(prefix, report).getBytes())
-            case _ =>
-              Response.empty()
+          RouteHTTP.logger.debug("Request: {}", r.getPath())
+          val currentSitemaps = sitemaps
+          val currentSnapshots = snapshots
+          val sitemap = if(currentSitemaps == null) null else currentSitemaps.get(r.getPath())
+          val snapshot = if(sitemap != null || currentSnapshots == null || !isBot(RouteHTTP.getUserAgent(r))) null
+            else currentSnapshots.get(r.getPath())
+          if(sitemap != null) {
+            Response.of(sitemap)
+          } else if(snapshot != null) {
+            RouteHTTP.htmlResponse(snapshot)
+          } else {
+            Response.empty()
           }
         }
       )
+
+      val appCrawler = new AppCrawler(prefix, () => AppCrawler.routeToRouteNode(getRoute()),
+        AppCrawler.DEFAULT_PARALLELISM, Int.MaxValue, null)
+      appCrawler.setHistory(history, getCrawlMaxAge())
+      val newReport = appCrawler.crawlAll()
+      history.retain(newReport)
+      setReport(prefix, newReport)
+      if(historyFile != null) {
+        try {
+          history.save(historyFile)
+        } catch {
+          case ex: Exception => RouteHTTP.logger.warn(s"Could not save the crawl history: $historyFile", ex)
+        }
+      }
     }).start()
 
 
   }
+
+  private def setReport(prefix: String, newReport: CrawlReportApp): Unit = {
+    sitemaps = SitemapGenerator.createSitemaps(prefix, newReport, isSitemapGzip())
+    snapshots = if(getSnapshotCacheSize() > 0 && RouteHTTP.contentTypeFactory != null) {
+      new HtmlSnapshots(prefix, newReport, getSnapshotCacheSize())
+    } else null
+  }
+
   def getRoute(): Route
+
+  /**
+   * Whether the sitemaps are served gzip compressed, as `/sitemap-1.xml.gz`, ... listed in the sitemap index `/sitemap.xml`.
+   */
+  def isSitemapGzip(): Boolean = false
+
+  /**
+   * The number of static HTML snapshots of crawled pages, which are kept for bots. If it's 0, no snapshots are served.
+   * Snapshots are disabled by default, override it, for example with `HtmlSnapshots.DEFAULT_MAX_ENTRIES`, to serve them.
+   */
+  def getSnapshotCacheSize(): Int = 0
+
+  /**
+   * Whether a request with the given user agent gets a static HTML snapshot of the page instead of the application.
+   */
+  def isBot(userAgent: String): Boolean = HtmlSnapshots.isBot(userAgent)
+
+  /**
+   * The file, in which the crawled pages are kept between restarts. If it's `null`, the whole app is crawled at every start.
+   */
+  def getCrawlHistoryFile(): File = null
+
+  /**
+   * Pages of the crawl history, which are younger than this, are not crawled again.
+   */
+  def getCrawlMaxAge(): Duration = Duration.ofDays(1)
 }
@@ -0,0 +1,30 @@
+package one.jpro.platform.routing.sessionmanager
+
+import one.jpro.platform.routing.{ScriptBatch, View}
+import one.jpro.platform.routing.ScriptBatch.quote
+
+/**
+ * The scripts, which update the browser after navigating to a view, combined into one batch.
+ */
+object NavigationScript {
+
+  def create(view: View, pushState: Boolean): ScriptBatch = {
+    val batch = new ScriptBatch()
+    if(pushState) {
+      batch.add(s"""history.pushState(null, null, ${quote(view.url)});""")
+    }
+    val initialState = if(view.saveScrollPosition) "{saveScroll: true}" else "{saveScroll: false}"
+
+    batch.add(
+      """var scrollY = 0;
+        |if(history.state != null) {
+        |  scrollY = history.state.scrollTop || 0;
+        |}
+        |scroll(0,scrollY)""".stripMargin)
+    batch.add(s"""document.getElementsByTagName("jpro-app")[0].sfxelem.setFXHeight(${!view.fullscreen})""")
+    batch.add(s"""document.title = ${quote(view.title)};""")
+    batch.add(s"""document.querySelector('meta[name="description"]').setAttribute("content", ${quote(view.description)});""")
+    batch.add(s"history.replaceState($initialState, null, null)")
+    batch
+  }
+}
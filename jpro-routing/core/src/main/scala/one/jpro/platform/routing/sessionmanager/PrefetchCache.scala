@@ -0,0 +1,119 @@
+package one.jpro.platform.routing.sessionmanager
+
+import one.jpro.platform.routing.{Response, View}
+
+import java.util.function.Consumer
+
+/**
+ * A short-lived cache of speculatively resolved responses of one session, keyed by their url.
+ * Links can resolve their route before they are clicked, for example when they are hovered,
+ * so the data of the next page is already loading when the user navigates to it.
+ * Responses are only used once and only while they are younger than `maxAge` milliseconds.
+ * Views of responses, which are dropped without being used, are closed with `View.onClose()`.
+ */
+class PrefetchCache(maxAge: Long, maxEntries: Int) {
+  assert(maxAge >= 0, "maxAge must not be negative")
+  assert(maxEntries >= 0, "maxEntries must not be negative")
+
+  private val responses = new java.util.LinkedHashMap[String, Prefetched]()
+  private var onEvicted: Consumer[View] = null
+
+  def this() = this(PrefetchCache.DEFAULT_MAX_AGE, PrefetchCache.DEFAULT_MAX_ENTRIES)
+
+  def getMaxAge(): Long = maxAge
+  def getMaxEntries(): Int = maxEntries
+  def size(): Int = {
+    removeExpired()
+    responses.size()
+  }
+
+  /**
+   * Sets a listener, which is called for the view of every dropped response after it was closed.
+   */
+  def setOnEvicted(listener: Consumer[View]): Unit = onEvicted = listener
+
+  /**
+   * @return whether there is a fresh response for the url
+   */
+  def contains(url: String): Boolean = {
+    removeExpired()
+    responses.containsKey(url)
+  }
+
+  /**
+   * Adds the response for the url. If the cache is full, the oldest response is removed.
+   */
+  def put(url: String, response: Response): Unit = {
+    removeExpired()
+    if(maxEntries == 0) {
+      evict(response)
+      return
+    }
+    val previous = responses.remove(url)
+    if(previous != null && (previous.response ne response)) evict(previous.response)
+    responses.put(url, Prefetched(response, currentTime()))
+    val iterator = responses.values().iterator()
+    while(responses.size() > maxEntries && iterator.hasNext) {
+      val prefetched = iterator.next()
+      iterator.remove()
+      evict(prefetched.response)
+    }
+  }
+
+  /**
+   * Removes and returns the response for the url.
+   *
+   * @return the response or `null`, if there is no fresh response for the url or the response failed
+   */
+  def take(url: String): Response = {
+    removeExpired()
+    val prefetched = responses.remove(url)
+    if(prefetched == null || (prefetched.response.isCompleted() && prefetched.response.isError())) null
+    else prefetched.response
+  }
+
+  /**
+   * Removes all responses and closes their views.
+   */
+  def clear(): Unit = {
+    val prefetched = new java.util.ArrayList(responses.values())
+    responses.clear()
+    prefetched.forEach(x => evict(x.response))
+  }
+
+  protected def currentTime(): Long = System.currentTimeMillis()
+
+  private def removeExpired(): Unit = {
+    val now = currentTime()
+    val iterator = responses.values().iterator()
+    while(iterator.hasNext) {
+      val prefetched = iterator.next()
+      if(now - prefetched.time > maxAge) {
+        iterator.remove()
+        evict(prefetched.response)
+      }
+    }
+  }
+
+  /**
+   * Closes the view of a dropped response, after it's completed.
+   */
+  private def evict(response: Response): Unit = {
+    response.map { result =>
+      result match {
+        case view: View =>
+          view.onClose()
+          if(onEvicted != null) onEvicted.accept(view)
+        case _ =>
+      }
+      result
+    }
+  }
+
+  private case class Prefetched(response: Response, time: Long)
+}
+
+object PrefetchCache {
+  val DEFAULT_MAX_AGE = 10000L
+  val DEFAULT_MAX_ENTRIES = 10
+}
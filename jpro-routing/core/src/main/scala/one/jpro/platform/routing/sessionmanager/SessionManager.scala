@@ -54,14 +54,18 @@ trait SessionManager { THIS =>
     try {
       logger.debug(s"goto: $url2")
       val request = getRequest(url2)
-      val newView = if(view != null && view.handleRequest(request)) Response(FXFuture(view)) else {
-        webApp.getRoute()(request)
+      val newView = if(view != null && view.handleRequest(request)) Response.view(view) else {
+        val prefetched = if(prefetchCache == null) null else prefetchCache.take(url2)
+        if(prefetched != null) {
+          logger.debug(s"using prefetched response: $url2")
+          prefetched
+        } else webApp.getRoute()(request)
       }
-      Response.fromFuture(newView.future.map { response =>
+      newView.flatMap { response =>
         assert(response != null, s"Response for $url2 was null")
         this.url = url2
         gotoURL(url2, response, pushState)
-      })
+      }
     } catch {
       case ex: Exception =>
         logger.error(s"Error while loading the path $url2", ex)
@@ -70,6 +74,96 @@ trait SessionManager { THIS =>
   }
   def gotoURL(_url: String, x: ResponseResult, pushState: Boolean): Response
 
+  private var viewCache: ViewCache = null
+  def getViewCache(): ViewCache = viewCache
+  def setViewCache(cache: ViewCache): Unit = {
+    if(viewCache != null && viewCache != cache) {
+      viewCache.clear()
+    }
+    viewCache = cache
+    if(cache != null) {
+      cache.setOnEvicted(view => {
+        view.setSessionManager(null)
+        markViewCollectable(view)
+      })
+    }
+  }
+
+  /**
+   * Goes to an url of the history. If the view for the url is in the view cache, it's shown again
+   * without running the route.
+   */
+  def gotoHistoryURL(url: String, pushState: Boolean): Response = {
+    val url2 = SessionManager.mergeURLs(THIS.url, url)
+    val cachedView = if(viewCache == null) null else viewCache.take(url2)
+    if(cachedView == null) {
+      gotoURL(url, pushState)
+    } else {
+      logger.debug(s"goto cached view: $url2")
+      this.url = url2
+      gotoURL(url2, cachedView, pushState)
+    }
+  }
+
+  /**
+   * Called when the old view is replaced by the new view. The old view is either kept in the view cache,
+   * or closed and marked as collectable.
+   */
+  def closeView(oldView: View, newView: View): Unit = {
+    if(viewCache == null || !viewCache.put(oldView, newView)) {
+      oldView.onClose()
+      oldView.setSessionManager(null)
+      markViewCollectable(oldView, newView)
+    }
+  }
+
+  private var prefetchCache: PrefetchCache = null
+  private var prefetchPage: String = null
+  private var prefetchCount = 0
+  def getPrefetchCache(): PrefetchCache = prefetchCache
+  def setPrefetchCache(cache: PrefetchCache): Unit = {
+    if(prefetchCache != null && prefetchCache != cache) {
+      prefetchCache.clear()
+    }
+    prefetchCache = cache
+    if(cache != null) {
+      cache.setOnEvicted(view => {
+        view.setSessionManager(null)
+        markViewCollectable(view)
+      })
+    }
+  }
+
+  /**
+   * Resolves the route of the url and keeps the response in the prefetch cache,
+   * so a following `gotoURL` can use it. Does nothing, if no prefetch cache is set.
+   * The route runs before the user navigates, so its side effects happen even if the link is never clicked.
+   *
+   * The route function runs right away on the application thread, only an asynchronous `Response`
+   * resolves in the background. So prefetching only pays off for routes with asynchronous responses,
+   * for example routes loading data. A synchronous route builds its view immediately.
+   * At most `PrefetchCache.getMaxEntries()` urls are prefetched per page, since further responses
+   * would drop the earlier ones right away.
+   */
+  def prefetch(url: String): Unit = {
+    if(prefetchCache == null || isExternal(url)) return
+    val url2 = SessionManager.mergeURLs(THIS.url, url)
+    if(url2 == THIS.url || prefetchCache.contains(url2)) return
+    if(prefetchPage != THIS.url) {
+      prefetchPage = THIS.url
+      prefetchCount = 0
+    }
+    if(prefetchCount >= prefetchCache.getMaxEntries()) return
+    prefetchCount += 1
+    try {
+      logger.debug(s"prefetch: $url2")
+      prefetchCache.put(url2, webApp.getRoute()(getRequest(url2)))
+    } catch {
+      case ex: Exception =>
+        logger.debug(s"Error while prefetching the path $url2", ex)
+    }
+  }
+
   def getRequest(url: String): Request = {
     val node = if(view == null) null else view.realContent
     Request.fromString(url, node)
@@ -15,7 +15,7 @@ class SessionManagerDesktop(val webApp: RouteNode) extends SessionManager { THIS
     historyForward = historyCurrent :: historyForward
     historyCurrent = historyBackward.head
     historyBackward = historyBackward.tail
-    gotoURL(historyCurrent.path, false)
+    gotoHistoryURL(historyCurrent.path, false)
   }
 
   def goForward(): Unit = {
@@ -23,7 +23,7 @@ class SessionManagerDesktop(val webApp: RouteNode) extends SessionManager { THIS
     historyBackward = historyCurrent :: historyBackward
     historyCurrent = historyForward.head
     historyForward = historyForward.tail
-    gotoURL(historyCurrent.path, false)
+    gotoHistoryURL(historyCurrent.path, false)
   }
 
   def gotoURL(_url: String, x: ResponseResult, pushState: Boolean): Response = {
@@ -41,9 +41,7 @@ class SessionManagerDesktop(val webApp: RouteNode) extends SessionManager { THIS
         container.children = List(view.realContent)
         scrollpane.vvalue = 0.0
         if(oldView != null && oldView != view) {
-          oldView.onClose()
-          oldView.setSessionManager(null)
-          markViewCollectable(oldView, view)
+          closeView(oldView, view)
         }
         THIS.view = view
 
@@ -24,6 +24,12 @@ class SessionManagerWeb(val webApp: RouteNode, val webAPI: WebAPI) extends Sessi
 
   if(webAPI != null) { // somtetimes webAPI is null, for example when crawling
     webAPI.addInstanceCloseListener(() => {
+      if (getViewCache() != null) {
+        getViewCache().clear()
+      }
+      if (getPrefetchCache() != null) {
+        getPrefetchCache().clear()
+      }
       // if the session only has redirects, the view is null
       if (THIS.view != null) {
         THIS.view.onClose()
@@ -53,35 +59,12 @@ class SessionManagerWeb(val webApp: RouteNode, val webAPI: WebAPI) extends Sessi
 
         container.children = List(view.realContent)
         if(THIS.view != null && THIS.view != view) {
-          THIS.view.onClose()
-          THIS.view.setSessionManager(null)
-          markViewCollectable(THIS.view, view)
+          closeView(THIS.view, view)
         }
         THIS.view = view
 
 
-        if(pushState) {
-          //webAPI.executeScript(s"""var doc = document.documentElement;
-          //                        |history.replaceState({
-          //                        |marker: "goto",
-          //                        |scrollTop: (window.pageYOffset || doc.scrollTop)  - (doc.clientTop || 0)
-          //                        |}, null, null);
-          //                        |""".stripMargin)
-          webAPI.executeScript(s"""history.pushState(null, null, "${view.url.replace("\"","\\\"")}");""")
-        }
-        val initialState = if(view.saveScrollPosition) "{saveScroll: true}" else "{saveScroll: false}"
-
-        webAPI.executeScript(
-          """var scrollY = 0;
-            |if(history.state != null) {
-            |  scrollY = history.state.scrollTop || 0;
-            |}
-            |scroll(0,scrollY)
-          """.stripMargin)
-        webAPI.executeScript(s"""document.getElementsByTagName("jpro-app")[0].sfxelem.setFXHeight(${!view.fullscreen})""")
-        webAPI.executeScript(s"""document.title = "${view.title.replace("\"","\\\"")}";""")
-        webAPI.executeScript(s"""document.querySelector('meta[name="description"]').setAttribute("content", "${view.description.replace("\"","\\\"")}");""")
-        webAPI.executeScript(s"history.replaceState($initialState, null, null)")
+        NavigationScript.create(view, pushState).execute(webAPI)
         Response.fromResult(x)
     }
   }
@@ -95,7 +78,7 @@ class SessionManagerWeb(val webApp: RouteNode, val webAPI: WebAPI) extends Sessi
   def start(): Response = {
     logger.debug("registering popstate")
     webAPI.registerJavaFunction("popstatejava", (s: String) => {
-      gotoFullEncodedURL(s.drop(1).dropRight(1).replace("\\\"", "\""))
+      gotoHistoryURL(s.drop(1).dropRight(1).replace("\\\"", "\""), true)
     })
     webAPI.registerJavaFunction("jproGotoURL", (s: String) => {
       gotoURL(s.drop(1).dropRight(1).replace("\\\"", "\""))
@@ -0,0 +1,119 @@
+package one.jpro.platform.routing.sessionmanager
+
+import javafx.scene.{Node, Parent}
+import one.jpro.platform.routing.View
+
+import java.util.function.Consumer
+
+/**
+ * A cache of recently visited views of one session, keyed by their url, so going back and forward
+ * shows the previous view again instead of running the route and creating a new scene graph.
+ * The cache is bounded by the number of views and by the estimated number of nodes of all cached views.
+ * The least recently cached views are evicted first, and evicted views are closed with `View.onClose()`.
+ * Views can opt out by overriding `View.cacheable`.
+ */
+class ViewCache(maxViews: Int, maxNodes: Int) {
+  assert(maxViews >= 0, "maxViews must not be negative")
+  assert(maxNodes >= 0, "maxNodes must not be negative")
+
+  private val views = new java.util.LinkedHashMap[String, CachedView]()
+  private var nodeCount = 0
+  private var onEvicted: Consumer[View] = null
+
+  def this() = this(ViewCache.DEFAULT_MAX_VIEWS, ViewCache.DEFAULT_MAX_NODES)
+
+  def getMaxViews(): Int = maxViews
+  def getMaxNodes(): Int = maxNodes
+  def size(): Int = views.size()
+  def getNodeCount(): Int = nodeCount
+
+  /**
+   * Sets a listener, which is called for every evicted view after it was closed.
+   */
+  def setOnEvicted(listener: Consumer[View]): Unit = onEvicted = listener
+
+  /**
+   * Adds a view, which was replaced by the given new view, to the cache.
+   *
+   * @return whether the view was cached. If it wasn't, the caller is responsible for closing it.
+   */
+  def put(view: View, newView: View): Boolean = {
+    if(view.url == null || !view.cacheable || maxViews == 0) return false
+    // the content node is reused by the new view, for example by a container filter
+    if(newView != null && sharesContent(view, newView)) return false
+    val nodes = ViewCache.countNodes(view.realContent)
+    if(nodes > maxNodes) return false
+
+    val previous = views.remove(view.url)
+    if(previous != null) {
+      nodeCount -= previous.nodes
+      if(previous.view ne view) evict(previous.view)
+    }
+    views.put(view.url, CachedView(view, nodes))
+    nodeCount += nodes
+    val iterator = views.values().iterator()
+    while((views.size() > maxViews || nodeCount > maxNodes) && iterator.hasNext) {
+      val cached = iterator.next()
+      iterator.remove()
+      nodeCount -= cached.nodes
+      evict(cached.view)
+    }
+    true
+  }
+
+  /**
+   * Removes and returns the cached view for the given url.
+   *
+   * @return the view or `null`, if there is no cached view for the url
+   */
+  def take(url: String): View = {
+    val cached = views.remove(url)
+    if(cached == null) null else {
+      nodeCount -= cached.nodes
+      cached.view
+    }
+  }
+
+  /**
+   * Evicts all cached views.
+   */
+  def clear(): Unit = {
+    val cached = new java.util.ArrayList(views.values())
+    views.clear()
+    nodeCount = 0
+    cached.forEach(x => evict(x.view))
+  }
+
+  private def evict(view: View): Unit = {
+    view.onClose()
+    if(onEvicted != null) onEvicted.accept(view)
+  }
+
+  private def sharesContent(view: View, newView: View): Boolean = {
+    var x = newView
+    while(x != null) {
+      if(x.realContent eq view.realContent) return true
+      x = x.subView()
+    }
+    false
+  }
+
+  private case class CachedView(view: View, nodes: Int)
+}
+
+object ViewCache {
+  val DEFAULT_MAX_VIEWS = 10
+  val DEFAULT_MAX_NODES = 20000
+
+  /**
+   * Estimates the size of a view by the number of nodes in its scene graph.
+   */
+  def countNodes(node: Node): Int = node match {
+    case null => 0
+    case parent: Parent =>
+      var count = 1
+      parent.getChildrenUnmodifiable.forEach(child => count += countNodes(child))
+      count
+    case _ => 1
+  }
+}
@@ -0,0 +1,104 @@
+package one.jpro.platform.session;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link SessionStore} implementation that stores each session in its own directory
+ * inside a base directory, with one file per key.
+ *
+ * @author Florian Kirmaier
+ */
+public class FileSessionStore implements SessionStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSessionStore.class.getName());
+
+    private final File baseDirectory;
+
+    /**
+     * Creates a FileSessionStore object with the given base directory.
+     *
+     * @param baseDirectory the base directory for session storage
+     * @throws SessionException if the session directory cannot be created
+     */
+    public FileSessionStore(File baseDirectory) {
+        this.baseDirectory = baseDirectory;
+        if (!baseDirectory.exists()) {
+            if (baseDirectory.mkdir()) {
+                logger.info("Created session directory: " + baseDirectory);
+            } else {
+                throw new SessionException("Could not create session directory: " + baseDirectory);
+            }
+        }
+    }
+
+    /**
+     * Returns the base directory used for session storage.
+     *
+     * @return the base directory for session storage
+     */
+    public File getBaseDirectory() {
+        return baseDirectory;
+    }
+
+    @Override
+    public boolean exists(String sessionKey) {
+        return new File(baseDirectory, sessionKey).exists();
+    }
+
+    @Override
+    public Map<String, String> load(String sessionKey) {
+        if (!baseDirectory.exists()) {
+            throw new SessionException("Internal Error: session directory does not exist: " + baseDirectory);
+        }
+        File cookieDirectory = new File(baseDirectory, sessionKey);
+        if (!cookieDirectory.exists()) {
+            if (cookieDirectory.mkdir()) {
+                logger.info("Created session directory: " + cookieDirectory);
+            } else {
+                throw new SessionException("Could not create session directory: " + cookieDirectory);
+            }
+        }
+
+        Map<String, String> session = new HashMap<>();
+        try {
+            for (File file : cookieDirectory.listFiles()) {
+                String key = file.getName();
+                String str = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+                session.put(key, str);
+            }
+        } catch (IOException ex) {
+            throw new SessionException(ex);
+        }
+        return session;
+    }
+
+    @Override
+    public void put(String sessionKey, String key, String value) {
+        File f = new File(new File(baseDirectory, sessionKey), key);
+        try {
+            logger.warn("Saving to: " + f);
+            FileUtils.writeStringToFile(f, value, StandardCharsets.UTF_8);
+            if (!f.exists()) {
+                throw new SessionException("Internal Error: file was not written: " + f);
+            }
+        } catch (Exception ex) {
+            logger.error("Error writing session content: " + f);
+        }
+    }
+
+    @Override
+    public void remove(String sessionKey, String key) {
+        File f = new File(new File(baseDirectory, sessionKey), key);
+        if (!f.delete()) {
+            logger.warn("Could not delete file: " + f);
+        }
+    }
+}
@@ -0,0 +1,677 @@
+package one.jpro.platform.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link SessionStore} implementation that keeps the sessions in memory and replicates
+ * every change to a set of peer nodes over a simple TCP protocol. This allows running several
+ * JPro nodes behind a load balancer without sticky sessions.
+ * <p>
+ * Every value is stored together with a version and the id of the node that wrote it.
+ * Conflicting writes are resolved per key with a last-writer-wins strategy: the entry with the
+ * higher version wins, ties are broken by the node id. The version is a hybrid logical clock,
+ * so it follows the wall clock but never goes backwards after a remote entry has been merged.
+ * Removed values are kept as tombstones, so that a removal can't be undone by an older write.
+ * <p>
+ * Local changes are not sent right away, but collected per peer and shipped in batches at a
+ * fixed interval. Every peer is flushed on its own thread, so an unreachable peer doesn't delay
+ * the replication to the other peers, and the connection attempts to it back off exponentially.
+ * No changes are collected for a disconnected peer. Instead, whenever a connection to a peer is
+ * (re-)established, both nodes exchange their complete state, so nodes that join late or were
+ * temporarily unreachable converge.
+ * The peers are expected to form a full mesh, which means every node must know all other nodes.
+ * <p>
+ * All nodes share a secret. When a connection is established, both sides prove that they know
+ * the secret with an HMAC over a random challenge of the other side, before any session data
+ * is exchanged. The session data itself is not encrypted, so the replication port should only be
+ * reachable from the private network of the nodes.
+ * <p>
+ * Tombstones are purged once they are older than the tombstone timeout (one day by default), and
+ * sessions whose last change is older than the session timeout are purged on every node. A node
+ * that is unreachable for longer than the tombstone timeout may bring back removed values when it
+ * reconnects.
+ */
+public class ReplicatedSessionStore implements SessionStore, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicatedSessionStore.class.getName());
+
+    private static final int PROTOCOL_MAGIC = 0x4A505353;
+    private static final byte MESSAGE_DELTAS = 1;
+    private static final byte MESSAGE_SYNC_REQUEST = 2;
+    private static final byte MESSAGE_SYNC_COMPLETE = 3;
+    private static final String SESSION_MARKER = "";
+    private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(100);
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int CONNECT_TIMEOUT = 2000;
+    private static final int READ_TIMEOUT = 10000;
+    private static final Duration INITIAL_RECONNECT_DELAY = Duration.ofMillis(100);
+    private static final Duration MAX_RECONNECT_DELAY = Duration.ofSeconds(30);
+    private static final int MAX_STRING_LENGTH = 4 * 1024 * 1024;
+    private static final int NONCE_LENGTH = 16;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 32;
+    private static final byte MAC_ROLE_CLIENT = 1;
+    private static final byte MAC_ROLE_SERVER = 2;
+    private static final Duration DEFAULT_TOMBSTONE_TIMEOUT = Duration.ofDays(1);
+    private static final Duration PURGE_INTERVAL = Duration.ofMinutes(1);
+
+    private final String nodeId;
+    private final SecretKeySpec secret;
+    private final SecureRandom random = new SecureRandom();
+    private final ServerSocket serverSocket;
+    private final Map<String, Map<String, Entry>> sessions = new HashMap<>();
+    private final Map<InetSocketAddress, Peer> peers = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService connectionExecutor;
+    private final ScheduledExecutorService flushExecutor;
+    private long clock;
+    private volatile Duration tombstoneTimeout = DEFAULT_TOMBSTONE_TIMEOUT;
+    private volatile Duration sessionTimeout;
+    private volatile boolean closed;
+
+    /**
+     * Creates a ReplicatedSessionStore that listens for peer connections on the given address
+     * and ships the local changes every 100 milliseconds.
+     *
+     * @param nodeId      the unique id of this node
+     * @param bindAddress the address to listen on for peer connections, use port 0 for an ephemeral port
+     * @param secret      the secret shared by all nodes, used to authenticate the peers
+     * @throws SessionException if the server socket can't be bound
+     */
+    public ReplicatedSessionStore(String nodeId, InetSocketAddress bindAddress, String secret) {
+        this(nodeId, bindAddress, secret, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * Creates a ReplicatedSessionStore that listens for peer connections on the given address
+     * and ships the local changes at the given interval.
+     *
+     * @param nodeId        the unique id of this node
+     * @param bindAddress   the address to listen on for peer connections, use port 0 for an ephemeral port
+     * @param secret        the secret shared by all nodes, used to authenticate the peers
+     * @param flushInterval the interval at which the pending changes are shipped to the peers
+     * @throws SessionException if the server socket can't be bound
+     */
+    public ReplicatedSessionStore(String nodeId, InetSocketAddress bindAddress, String secret,
+                                  Duration flushInterval) {
+        this.nodeId = Objects.requireNonNull(nodeId, "nodeId must not be null");
+        Objects.requireNonNull(secret, "secret must not be null");
+        if (secret.isEmpty()) {
+            throw new IllegalArgumentException("secret must not be empty");
+        }
+        this.secret = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM);
+        try {
+            serverSocket = new ServerSocket();
+            serverSocket.bind(bindAddress);
+        } catch (IOException ex) {
+            throw new SessionException("Could not bind session replication socket: " + bindAddress, ex);
+        }
+        connectionExecutor = Executors.newCachedThreadPool(daemonThreadFactory("session-replication-" + nodeId));
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("session-flush-" + nodeId));
+        connectionExecutor.execute(this::acceptConnections);
+        final long interval = flushInterval.toMillis();
+        flushExecutor.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        final long purgeInterval = PURGE_INTERVAL.toMillis();
+        flushExecutor.scheduleWithFixedDelay(this::purgeQuietly, purgeInterval, purgeInterval, TimeUnit.MILLISECONDS);
+        logger.info("Session replication node {} listening on {}", nodeId, getLocalAddress());
+    }
+
+    /**
+     * Returns the id of this node.
+     *
+     * @return the node id
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Returns the address this node listens on for peer connections.
+     *
+     * @return the bound socket address
+     */
+    public InetSocketAddress getLocalAddress() {
+        return (InetSocketAddress) serverSocket.getLocalSocketAddress();
+    }
+
+    /**
+     * Adds a peer node the local changes are replicated to. The connection is established
+     * lazily with the next flush, at which point the complete state is exchanged.
+     *
+     * @param address the address the peer listens on
+     */
+    public void addPeer(InetSocketAddress address) {
+        peers.computeIfAbsent(address, Peer::new);
+    }
+
+    /**
+     * Removes a previously added peer node and closes the connection to it.
+     *
+     * @param address the address of the peer
+     */
+    public void removePeer(InetSocketAddress address) {
+        Peer peer = peers.remove(address);
+        if (peer != null) {
+            peer.disconnect();
+        }
+    }
+
+    /**
+     * Returns how long removed values are remembered as tombstones.
+     *
+     * @return the tombstone timeout
+     */
+    public Duration getTombstoneTimeout() {
+        return tombstoneTimeout;
+    }
+
+    /**
+     * Sets how long removed values are remembered as tombstones. It should be longer than the time
+     * a node may be unreachable, otherwise the node may bring back removed values when it reconnects.
+     *
+     * @param tombstoneTimeout the tombstone timeout
+     */
+    public void setTombstoneTimeout(Duration tombstoneTimeout) {
+        this.tombstoneTimeout = Objects.requireNonNull(tombstoneTimeout, "tombstoneTimeout must not be null");
+    }
+
+    /**
+     * Returns the time after its last change a session is purged, or {@code null} if sessions are never purged.
+     *
+     * @return the session timeout or {@code null}
+     */
+    public Duration getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    /**
+     * Sets the time after its last change a session is purged. By default, sessions are never purged.
+     *
+     * @param sessionTimeout the session timeout or {@code null}
+     */
+    public void setSessionTimeout(Duration sessionTimeout) {
+        this.sessionTimeout = sessionTimeout;
+    }
+
+    @Override
+    public synchronized boolean exists(String sessionKey) {
+        return sessions.containsKey(sessionKey);
+    }
+
+    @Override
+    public Map<String, String> load(String sessionKey) {
+        synchronized (this) {
+            Map<String, Entry> session = sessions.get(sessionKey);
+            if (session != null) {
+                Map<String, String> result = new HashMap<>();
+                session.forEach((key, entry) -> {
+                    if (entry.value() != null && !SESSION_MARKER.equals(key)) {
+                        result.put(key, entry.value());
+                    }
+                });
+                return result;
+            }
+        }
+        // replicate the existence of the session, so the session cookie stays valid on every node
+        update(sessionKey, SESSION_MARKER, SESSION_MARKER);
+        return new HashMap<>();
+    }
+
+    @Override
+    public void put(String sessionKey, String key, String value) {
+        update(sessionKey, key, Objects.requireNonNull(value, "value must not be null"));
+    }
+
+    @Override
+    public void remove(String sessionKey, String key) {
+        update(sessionKey, key, null);
+    }
+
+    @Override
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Ships all pending changes to the peers right away, instead of waiting for the next
+     * scheduled flush, and waits until they are shipped. Peers that are currently not connected
+     * are connected first, unless the connection is backing off after a failed attempt.
+     */
+    public void flush() {
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (Peer peer : peers.values()) {
+                futures.add(connectionExecutor.submit(peer::flush));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (RejectedExecutionException ex) {
+            // the store has been closed
+        } catch (ExecutionException ex) {
+            throw new SessionException("Error flushing session changes", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        flushExecutor.shutdownNow();
+        try {
+            serverSocket.close();
+        } catch (IOException ex) {
+            logger.warn("Error closing session replication socket", ex);
+        }
+        peers.values().forEach(Peer::disconnect);
+        connectionExecutor.shutdownNow();
+    }
+
+    private void update(String sessionKey, String key, String value) {
+        final Delta delta;
+        synchronized (this) {
+            clock = Math.max(clock + 1, System.currentTimeMillis());
+            Entry entry = new Entry(value, clock, nodeId);
+            sessions.computeIfAbsent(sessionKey, k -> new HashMap<>()).put(key, entry);
+            delta = new Delta(sessionKey, key, entry);
+        }
+        for (Peer peer : peers.values()) {
+            // a disconnected peer receives the complete state when it is connected again
+            if (peer.connected) {
+                peer.pending.add(delta);
+            }
+        }
+    }
+
+    private void merge(Delta delta) {
+        final Entry previous;
+        synchronized (this) {
+            clock = Math.max(clock, delta.entry().version());
+            Map<String, Entry> session = sessions.computeIfAbsent(delta.sessionKey(), k -> new HashMap<>());
+            previous = session.get(delta.key());
+            if (previous != null && !delta.entry().isNewerThan(previous)) {
+                return;
+            }
+            session.put(delta.key(), delta.entry());
+        }
+        final String value = delta.entry().value();
+        final String previousValue = previous == null ? null : previous.value();
+        if (!SESSION_MARKER.equals(delta.key()) && !Objects.equals(value, previousValue)) {
+            for (Listener listener : listeners) {
+                try {
+                    listener.sessionChanged(delta.sessionKey(), delta.key(), value);
+                } catch (Exception ex) {
+                    logger.error("Error notifying session listener", ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Purges the tombstones older than the tombstone timeout and the sessions whose last change
+     * is older than the session timeout.
+     *
+     * @param now the current time in milliseconds
+     */
+    synchronized void purge(long now) {
+        final long tombstoneLimit = now - tombstoneTimeout.toMillis();
+        final Duration sessionTimeout = this.sessionTimeout;
+        final long sessionLimit = sessionTimeout == null ? Long.MIN_VALUE : now - sessionTimeout.toMillis();
+        sessions.values().removeIf(session -> {
+            long lastChange = Long.MIN_VALUE;
+            for (Entry entry : session.values()) {
+                lastChange = Math.max(lastChange, entry.version());
+            }
+            if (lastChange < sessionLimit) {
+                return true;
+            }
+            session.values().removeIf(entry -> entry.value() == null && entry.version() < tombstoneLimit);
+            return session.isEmpty();
+        });
+    }
+
+    private synchronized List<Delta> snapshot() {
+        List<Delta> result = new ArrayList<>();
+        sessions.forEach((sessionKey, session) ->
+                session.forEach((key, entry) -> result.add(new Delta(sessionKey, key, entry))));
+        return result;
+    }
+
+    private void flushQuietly() {
+        try {
+            for (Peer peer : peers.values()) {
+                peer.flushAsync();
+            }
+        } catch (RejectedExecutionException ex) {
+            // the store has been closed
+        } catch (Exception ex) {
+            logger.error("Error flushing session changes", ex);
+        }
+    }
+
+    private void purgeQuietly() {
+        try {
+            purge(System.currentTimeMillis());
+        } catch (Exception ex) {
+            logger.error("Error purging sessions", ex);
+        }
+    }
+
+    private void acceptConnections() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                connectionExecutor.execute(() -> handleConnection(socket));
+            } catch (IOException ex) {
+                if (!closed) {
+                    logger.error("Error accepting session replication connection", ex);
+                }
+            } catch (RejectedExecutionException ex) {
+                // the store has been closed
+            }
+        }
+    }
+
+    private void handleConnection(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            // the handshake must not block a thread forever, but the connection may be idle afterward
+            socket.setSoTimeout(READ_TIMEOUT);
+            if (in.readInt() != PROTOCOL_MAGIC) {
+                logger.warn("Rejected session replication connection from {}", socket.getRemoteSocketAddress());
+                return;
+            }
+            final byte[] clientNonce = in.readNBytes(NONCE_LENGTH);
+            final byte[] serverNonce = createNonce();
+            out.write(serverNonce);
+            out.write(mac(MAC_ROLE_SERVER, clientNonce));
+            out.flush();
+            if (!MessageDigest.isEqual(mac(MAC_ROLE_CLIENT, serverNonce), in.readNBytes(MAC_LENGTH))) {
+                logger.warn("Rejected unauthenticated session replication connection from {}",
+                        socket.getRemoteSocketAddress());
+                return;
+            }
+            socket.setSoTimeout(0);
+            while (!closed) {
+                byte message = in.readByte();
+                if (message == MESSAGE_DELTAS) {
+                    readDeltas(in).forEach(this::merge);
+                } else if (message == MESSAGE_SYNC_REQUEST) {
+                    writeSnapshot(out);
+                    out.writeByte(MESSAGE_SYNC_COMPLETE);
+                    out.flush();
+                } else {
+                    throw new IOException("Unknown session replication message: " + message);
+                }
+            }
+        } catch (EOFException | SocketException ex) {
+            // the peer closed the connection
+        } catch (IOException ex) {
+            if (!closed) {
+                logger.warn("Session replication connection from {} failed", socket.getRemoteSocketAddress(), ex);
+            }
+        }
+    }
+
+    /**
+     * Writes the complete state in batches, so the state of a node can always be read by its peers.
+     */
+    private void writeSnapshot(DataOutputStream out) throws IOException {
+        final List<Delta> snapshot = snapshot();
+        for (int i = 0; i < snapshot.size(); i += MAX_BATCH_SIZE) {
+            writeDeltas(out, snapshot.subList(i, Math.min(i + MAX_BATCH_SIZE, snapshot.size())));
+        }
+    }
+
+    private static void writeDeltas(DataOutputStream out, List<Delta> deltas) throws IOException {
+        out.writeByte(MESSAGE_DELTAS);
+        out.writeInt(deltas.size());
+        for (Delta delta : deltas) {
+            writeString(out, delta.sessionKey());
+            writeString(out, delta.key());
+            out.writeLong(delta.entry().version());
+            writeString(out, delta.entry().nodeId());
+            out.writeBoolean(delta.entry().value() != null);
+            if (delta.entry().value() != null) {
+                writeString(out, delta.entry().value());
+            }
+        }
+    }
+
+    private static List<Delta> readDeltas(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > MAX_BATCH_SIZE) {
+            throw new IOException("Malformed session replication message with " + count + " changes");
+        }
+        List<Delta> deltas = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String sessionKey = readString(in);
+            String key = readString(in);
+            long version = in.readLong();
+            String nodeId = readString(in);
+            String value = in.readBoolean() ? readString(in) : null;
+            deltas.add(new Delta(sessionKey, key, new Entry(value, version, nodeId)));
+        }
+        return deltas;
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING_LENGTH) {
+            throw new IOException("Malformed session replication message with a string of " + length + " bytes");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private byte[] createNonce() {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        random.nextBytes(nonce);
+        return nonce;
+    }
+
+    private byte[] mac(byte role, byte[] nonce) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(secret);
+            mac.update(role);
+            return mac.doFinal(nonce);
+        } catch (GeneralSecurityException ex) {
+            throw new SessionException("Could not authenticate session replication connection", ex);
+        }
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static ThreadFactory daemonThreadFactory(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A versioned value, a {@code null} value marks a removed key.
+     */
+    private record Entry(String value, long version, String nodeId) {
+
+        boolean isNewerThan(Entry other) {
+            if (version != other.version) {
+                return version > other.version;
+            }
+            return nodeId.compareTo(other.nodeId) > 0;
+        }
+    }
+
+    private record Delta(String sessionKey, String key, Entry entry) {
+    }
+
+    /**
+     * The outgoing connection to a peer node together with the changes not yet shipped to it.
+     */
+    private final class Peer {
+
+        private final InetSocketAddress address;
+        private final Queue<Delta> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean flushing = new AtomicBoolean();
+        private volatile boolean connected;
+        private Socket socket;
+        private DataOutputStream out;
+        private Duration reconnectDelay = Duration.ZERO;
+        private long nextConnectTime;
+
+        Peer(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        /**
+         * Flushes this peer on the connection executor, unless a flush of this peer is still running.
+         */
+        void flushAsync() {
+            if (flushing.compareAndSet(false, true)) {
+                try {
+                    connectionExecutor.execute(() -> {
+                        try {
+                            flush();
+                        } finally {
+                            flushing.set(false);
+                        }
+                    });
+                } catch (RejectedExecutionException ex) {
+                    flushing.set(false);
+                    throw ex;
+                }
+            }
+        }
+
+        synchronized void flush() {
+            if (closed) {
+                return;
+            }
+            if (socket == null) {
+                if (System.currentTimeMillis() < nextConnectTime) {
+                    return;
+                }
+                try {
+                    connect();
+                    reconnectDelay = Duration.ZERO;
+                } catch (IOException ex) {
+                    reconnectDelay = reconnectDelay.isZero() ? INITIAL_RECONNECT_DELAY
+                            : min(reconnectDelay.multipliedBy(2), MAX_RECONNECT_DELAY);
+                    nextConnectTime = System.currentTimeMillis() + reconnectDelay.toMillis();
+                    logger.debug("Session replication peer {} is not reachable, retrying in {}: {}",
+                            address, reconnectDelay, ex.getMessage());
+                    return;
+                }
+            }
+            try {
+                List<Delta> batch = new ArrayList<>();
+                Delta delta;
+                while ((delta = pending.poll()) != null) {
+                    batch.add(delta);
+                    if (batch.size() == MAX_BATCH_SIZE) {
+                        writeDeltas(out, batch);
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    writeDeltas(out, batch);
+                }
+                out.flush();
+            } catch (IOException ex) {
+                logger.debug("Session replication peer {} is not reachable: {}", address, ex.getMessage());
+                disconnect();
+            }
+        }
+
+        private void connect() throws IOException {
+            Socket newSocket = new Socket();
+            try {
+                newSocket.connect(address, CONNECT_TIMEOUT);
+                newSocket.setSoTimeout(READ_TIMEOUT);
+                DataOutputStream newOut = new DataOutputStream(new BufferedOutputStream(newSocket.getOutputStream()));
+                DataInputStream in = new DataInputStream(new BufferedInputStream(newSocket.getInputStream()));
+                newOut.writeInt(PROTOCOL_MAGIC);
+                final byte[] clientNonce = createNonce();
+                newOut.write(clientNonce);
+                newOut.flush();
+                final byte[] serverNonce = in.readNBytes(NONCE_LENGTH);
+                if (!MessageDigest.isEqual(mac(MAC_ROLE_SERVER, clientNonce), in.readNBytes(MAC_LENGTH))) {
+                    throw new IOException("Session replication peer " + address + " failed to authenticate");
+                }
+                newOut.write(mac(MAC_ROLE_CLIENT, serverNonce));
+
+                // changes are collected from now on, the snapshot contains all earlier changes
+                connected = true;
+                pending.clear();
+                writeSnapshot(newOut);
+                newOut.writeByte(MESSAGE_SYNC_REQUEST);
+                newOut.flush();
+                byte message;
+                while ((message = in.readByte()) != MESSAGE_SYNC_COMPLETE) {
+                    if (message != MESSAGE_DELTAS) {
+                        throw new IOException("Unexpected session replication response from " + address);
+                    }
+                    readDeltas(in).forEach(ReplicatedSessionStore.this::merge);
+                }
+
+                socket = newSocket;
+                out = newOut;
+                logger.info("Connected to session replication peer {}", address);
+            } catch (IOException ex) {
+                connected = false;
+                pending.clear();
+                newSocket.close();
+                throw ex;
+            }
+        }
+
+        synchronized void disconnect() {
+            connected = false;
+            pending.clear();
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException ex) {
+                    logger.debug("Error closing session replication connection to {}", address, ex);
+                }
+                socket = null;
+                out = null;
+            }
+        }
+    }
+}
@@ -5,19 +5,17 @@ import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.MapChangeListener;
 import javafx.collections.ObservableMap;
-import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.Random;
 import java.util.WeakHashMap;
 
 /**
  * This class handles the management of sessions in an application.
  * It provides the functionality to create, retrieve, and store sessions.
+ * The content of the sessions is persisted through a {@link SessionStore}.
  *
  * @author Florian Kirmaier
  * @author Besmir Beqiri
@@ -26,10 +24,11 @@ public class SessionManager {
 
     private static final Logger logger = LoggerFactory.getLogger(SessionManager.class.getName());
 
-    private final File baseDirectory;
+    private final SessionStore sessionStore;
     private final String cookieName;
     private static final Random random = new Random();
     private final WeakHashMap<String, ObservableMap<String, String>> sessionCache = new WeakHashMap<>();
+    private boolean applyingStoreChange = false;
 
     /**
      * Creates a SessionManager object with the given app name.
@@ -48,24 +47,42 @@ public class SessionManager {
      * @throws SessionException if the session directory cannot be created
      */
     public SessionManager(File baseDirectory, String cookieName) {
-        this.baseDirectory = baseDirectory;
+        this(new FileSessionStore(baseDirectory), cookieName);
+    }
+
+    /**
+     * Creates a SessionManager object with the given session store and cookie name.
+     *
+     * @param sessionStore the store used to persist the sessions
+     * @param cookieName the name of the cookie used for session tracking
+     */
+    public SessionManager(SessionStore sessionStore, String cookieName) {
+        this.sessionStore = sessionStore;
         this.cookieName = cookieName;
-        if (!baseDirectory.exists()) {
-            if (baseDirectory.mkdir()) {
-                logger.info("Created session directory: " + baseDirectory);
-            } else {
-                throw new SessionException("Could not create session directory: " + baseDirectory);
-            }
-        }
+        sessionStore.addListener((sessionKey, key, value) -> Platform.runLater(() ->
+                applyStoreChange(sessionKey, key, value)));
     }
 
     /**
      * Returns the base directory used for session storage.
      *
-     * @return the base directory for session storage
+     * @return the base directory for session storage or {@code null}
+     * if the sessions are not stored in a {@link FileSessionStore}
      */
     public File getFolder() {
-        return baseDirectory;
+        if (sessionStore instanceof FileSessionStore) {
+            return ((FileSessionStore) sessionStore).getBaseDirectory();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the store used to persist the sessions.
+     *
+     * @return the session store
+     */
+    public SessionStore getSessionStore() {
+        return sessionStore;
     }
 
     /**
@@ -78,11 +95,8 @@ public class SessionManager {
         String cookieValue = webAPI.getCookies().get(cookieName);
         if (cookieValue == null || !isValidCookie(cookieValue)) {
             cookieValue = null;
-        } else {
-            File sessionDirectory = new File(baseDirectory, cookieValue);
-            if (!sessionDirectory.exists()) {
-                cookieValue = null;
-            }
+        } else if (!sessionStore.exists(cookieValue)) {
+            cookieValue = null;
         }
         if (cookieValue == null) {
             cookieValue = createUniqueIdentifier();
@@ -123,52 +137,48 @@ public class SessionManager {
 
     private ObservableMap<String, String> getSessionImpl(String sessionKey) {
         ObservableMap<String, String> session = FXCollections.observableHashMap();
-        if (!baseDirectory.exists()) {
-            throw new SessionException("Internal Error: session directory does not exist: " + baseDirectory);
-        }
-        File cookieDirectory = new File(baseDirectory, sessionKey);
-        if (!cookieDirectory.exists()) {
-            if (cookieDirectory.mkdir()) {
-                logger.info("Created session directory: " + cookieDirectory);
-            } else {
-                throw new SessionException("Could not create session directory: " + cookieDirectory);
-            }
-        }
-
-        try {
-            for (File file : cookieDirectory.listFiles()) {
-                String key = file.getName();
-                String str = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
-                session.put(key, str);
-            }
-        } catch (IOException ex) {
-            throw new SessionException(ex);
-        }
+        session.putAll(sessionStore.load(sessionKey));
 
         session.addListener((MapChangeListener<String, String>) change -> {
-            String k = change.getKey();
-            File f = new File(cookieDirectory, k);
-            if (change.wasRemoved()) {
-                if (!f.delete()) {
-                    logger.warn("Could not delete file: " + f);
-                }
+            if (applyingStoreChange) {
+                return;
             }
+            String k = change.getKey();
             if (change.wasAdded()) {
-                try {
-                    logger.warn("Saving to: " + f);
-                    FileUtils.writeStringToFile(f, change.getValueAdded(), StandardCharsets.UTF_8);
-                    if (!f.exists()) {
-                        throw new SessionException("Internal Error: file was not written: " + f);
-                    }
-                } catch (Exception ex) {
-                    logger.error("Error writing session content: " + f);
-                }
+                sessionStore.put(sessionKey, k, change.getValueAdded());
+            } else if (change.wasRemoved()) {
+                sessionStore.remove(sessionKey, k);
             }
         });
 
         return session;
     }
 
+    /**
+     * Applies a change coming from the session store to the cached session, if any,
+     * without writing it back to the store.
+     *
+     * @param sessionKey the session key
+     * @param key the key of the changed value
+     * @param value the new value or {@code null} if the value has been removed
+     */
+    private void applyStoreChange(String sessionKey, String key, String value) {
+        ObservableMap<String, String> session = sessionCache.get(sessionKey);
+        if (session == null) {
+            return;
+        }
+        applyingStoreChange = true;
+        try {
+            if (value == null) {
+                session.remove(key);
+            } else {
+                session.put(key, value);
+            }
+        } finally {
+            applyingStoreChange = false;
+        }
+    }
+
     /**
      * Determines whether a cookie value is valid.
      *
@@ -192,7 +202,7 @@ public class SessionManager {
     private String createUniqueIdentifier() {
         while (true) {
             String newValue = createIdentifier();
-            if (!new File(baseDirectory, newValue).exists()) {
+            if (!sessionStore.exists(newValue)) {
                 return newValue;
             }
         }
@@ -0,0 +1,82 @@
+package one.jpro.platform.session;
+
+import java.util.Map;
+
+/**
+ * A SessionStore is responsible for persisting the key-value pairs of the sessions
+ * handled by a {@link SessionManager}. The default implementation stores the sessions
+ * in the local file system, see {@link FileSessionStore}.
+ */
+public interface SessionStore {
+
+    /**
+     * Determines whether a session with the given key exists in this store.
+     *
+     * @param sessionKey the session key
+     * @return {@code true} if the session exists, {@code false} otherwise
+     */
+    boolean exists(String sessionKey);
+
+    /**
+     * Loads the content of the session with the given key. If the session does not exist yet,
+     * it is created.
+     *
+     * @param sessionKey the session key
+     * @return a map containing the key-value pairs of the session
+     * @throws SessionException if the session could not be loaded or created
+     */
+    Map<String, String> load(String sessionKey);
+
+    /**
+     * Stores the given value under the given key in the specified session.
+     *
+     * @param sessionKey the session key
+     * @param key        the key of the value
+     * @param value      the value to store
+     */
+    void put(String sessionKey, String key, String value);
+
+    /**
+     * Removes the value stored under the given key in the specified session.
+     *
+     * @param sessionKey the session key
+     * @param key        the key of the value to remove
+     */
+    void remove(String sessionKey, String key);
+
+    /**
+     * Registers a listener that is notified whenever the content of a session is changed
+     * by a source other than this store's own {@link #put} and {@link #remove} calls,
+     * for example by another node in a replicated setup. Stores that are never changed
+     * externally don't need to override this method.
+     *
+     * @param listener the listener to register
+     */
+    default void addListener(Listener listener) {
+    }
+
+    /**
+     * Unregisters a previously registered listener.
+     *
+     * @param listener the listener to unregister
+     */
+    default void removeListener(Listener listener) {
+    }
+
+    /**
+     * A listener for external changes of the session content.
+     */
+    @FunctionalInterface
+    interface Listener {
+
+        /**
+         * Called when a value of a session has been changed externally.
+         * This method may be called from any thread.
+         *
+         * @param sessionKey the session key
+         * @param key        the key of the changed value
+         * @param value      the new value or {@code null} if the value has been removed
+         */
+        void sessionChanged(String sessionKey, String key, String value);
+    }
+}
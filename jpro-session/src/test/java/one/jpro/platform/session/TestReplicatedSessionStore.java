@@ -0,0 +1,223 @@
+package one.jpro.platform.session;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestReplicatedSessionStore {
+
+    private static final String SECRET = "test-secret";
+
+    private final List<ReplicatedSessionStore> nodes = new ArrayList<>();
+
+    @BeforeEach
+    public void startNodes() {
+        for (int i = 0; i < 3; i++) {
+            nodes.add(createNode("node" + i));
+        }
+        for (ReplicatedSessionStore node : nodes) {
+            for (ReplicatedSessionStore peer : nodes) {
+                if (node != peer) {
+                    node.addPeer(peer.getLocalAddress());
+                }
+            }
+        }
+    }
+
+    @AfterEach
+    public void stopNodes() {
+        nodes.forEach(ReplicatedSessionStore::close);
+    }
+
+    @Test
+    public void testReplication() {
+        ReplicatedSessionStore node0 = nodes.get(0);
+        ReplicatedSessionStore node1 = nodes.get(1);
+        ReplicatedSessionStore node2 = nodes.get(2);
+
+        assertTrue(node0.load("tester1").isEmpty());
+        node0.put("tester1", "k1", "v1");
+        node0.put("tester1", "k2", "v2");
+
+        waitFor(() -> node1.exists("tester1") && node2.load("tester1").size() == 2);
+        assertEquals(Map.of("k1", "v1", "k2", "v2"), node1.load("tester1"));
+        assertEquals(Map.of("k1", "v1", "k2", "v2"), node2.load("tester1"));
+
+        node1.put("tester1", "k1", "vv1");
+        node2.remove("tester1", "k2");
+
+        waitFor(() -> nodes.stream().allMatch(node -> node.load("tester1").equals(Map.of("k1", "vv1"))));
+        assertFalse(node0.exists("tester2"));
+    }
+
+    @Test
+    public void testConcurrentWritesConverge() {
+        for (int i = 0; i < 100; i++) {
+            for (ReplicatedSessionStore node : nodes) {
+                node.put("tester1", "k", node.getNodeId() + "-" + i);
+            }
+        }
+
+        waitFor(() -> nodes.stream().map(node -> node.load("tester1")).distinct().count() == 1);
+        String winner = nodes.get(0).load("tester1").get("k");
+        assertTrue(winner.endsWith("-99"), "last write of one of the nodes must win: " + winner);
+    }
+
+    @Test
+    public void testListenerNotifiedOnRemoteChange() {
+        List<String> changes = new CopyOnWriteArrayList<>();
+        nodes.get(1).addListener((sessionKey, key, value) -> changes.add(sessionKey + ":" + key + "=" + value));
+
+        nodes.get(0).put("tester1", "k1", "v1");
+        waitFor(() -> changes.contains("tester1:k1=v1"));
+
+        nodes.get(0).remove("tester1", "k1");
+        waitFor(() -> changes.contains("tester1:k1=null"));
+
+        // local changes are not reported
+        nodes.get(1).put("tester1", "k2", "v2");
+        nodes.get(1).flush();
+        assertFalse(changes.stream().anyMatch(change -> change.startsWith("tester1:k2")));
+    }
+
+    @Test
+    public void testLateJoiningNodeReceivesState() {
+        nodes.get(0).put("tester1", "k1", "v1");
+        waitFor(() -> nodes.get(1).exists("tester1"));
+
+        ReplicatedSessionStore lateNode = createNode("node3");
+        nodes.add(lateNode);
+        lateNode.addPeer(nodes.get(0).getLocalAddress());
+        lateNode.flush();
+
+        assertEquals(Map.of("k1", "v1"), lateNode.load("tester1"));
+    }
+
+    @Test
+    public void testLateJoiningNodeReceivesLargeState() {
+        for (int i = 0; i < 2500; i++) {
+            nodes.get(0).put("tester" + i, "k", "v" + i);
+        }
+
+        ReplicatedSessionStore lateNode = createNode("node3");
+        nodes.add(lateNode);
+        lateNode.addPeer(nodes.get(0).getLocalAddress());
+        lateNode.flush();
+
+        // the state is sent in several batches
+        assertTrue(lateNode.exists("tester0"));
+        assertEquals(Map.of("k", "v2499"), lateNode.load("tester2499"));
+    }
+
+    @Test
+    public void testStalledPeerDoesNotDelayReplication() throws IOException, InterruptedException {
+        // accepts connections in its backlog, but never answers the handshake
+        try (ServerSocket stalledPeer = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            nodes.get(0).addPeer((InetSocketAddress) stalledPeer.getLocalSocketAddress());
+            Thread.sleep(300);
+
+            nodes.get(0).put("tester1", "k1", "v1");
+            long deadline = System.currentTimeMillis() + 3_000;
+            while (!nodes.get(1).exists("tester1")) {
+                assertTrue(System.currentTimeMillis() < deadline, "Replication was delayed by the stalled peer");
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    @Test
+    public void testPeerWithWrongSecretIsRejected() {
+        nodes.get(0).put("tester1", "k1", "v1");
+
+        ReplicatedSessionStore intruder = createNode("intruder", "wrong-secret");
+        nodes.add(intruder);
+        intruder.addPeer(nodes.get(0).getLocalAddress());
+        nodes.get(0).addPeer(intruder.getLocalAddress());
+        intruder.flush();
+        nodes.get(0).flush();
+
+        assertFalse(intruder.exists("tester1"));
+    }
+
+    @Test
+    public void testUnauthenticatedConnectionIsRejected() throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), nodes.get(0).getLocalAddress().getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            // a peer without the secret must be rejected before its changes are read
+            out.writeInt(0x4A505353);
+            out.write(new byte[16]);
+            out.write(new byte[32]);
+            out.writeByte(1);
+            out.writeInt(Integer.MAX_VALUE);
+            out.flush();
+            socket.setSoTimeout(20_000);
+            InputStream in = socket.getInputStream();
+            while (in.read() >= 0) {
+                // wait until the node closes the connection
+            }
+        }
+
+        nodes.get(0).put("tester1", "k1", "v1");
+        waitFor(() -> nodes.get(1).exists("tester1"));
+    }
+
+    @Test
+    public void testPurge() {
+        ReplicatedSessionStore node = nodes.get(0);
+        node.load("tester1");
+        node.put("tester1", "k1", "v1");
+        node.put("tester1", "k2", "v2");
+        node.remove("tester1", "k2");
+        node.load("tester2");
+
+        final long later = System.currentTimeMillis() + Duration.ofHours(2).toMillis();
+        node.setTombstoneTimeout(Duration.ofHours(1));
+        node.purge(later);
+        assertEquals(Map.of("k1", "v1"), node.load("tester1"));
+        assertTrue(node.exists("tester2"));
+
+        node.setSessionTimeout(Duration.ofHours(1));
+        node.purge(later);
+        assertFalse(node.exists("tester1"));
+        assertFalse(node.exists("tester2"));
+    }
+
+    private ReplicatedSessionStore createNode(String nodeId) {
+        return createNode(nodeId, SECRET);
+    }
+
+    private ReplicatedSessionStore createNode(String nodeId, String secret) {
+        return new ReplicatedSessionStore(nodeId, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), secret);
+    }
+
+    private void waitFor(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition was not met in time");
+            }
+            nodes.forEach(ReplicatedSessionStore::flush);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+}